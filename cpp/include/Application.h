@@ -10,15 +10,22 @@ class Application {
 private:
     std::string inputPath;
     std::string outputPath;
+    std::string mlInputPath;
+    std::string mlOutputPath;
     std::unique_ptr<Recommender> recommender;
     
     // NEW: Python ML integration methods
-    void prepareMLInput(const std::vector<std::string>& preferredGenres);
+    void prepareMLInput(const std::vector<std::string>& preferredGenres, int count);
     void copyMLOutputToOutput();
     void readMLOutput();
+    
+    // Batch requests: many users, one Python run
+    void prepareMLBatchInput(const std::vector<std::vector<std::string>>& profiles);
+    void copyMLBatchOutputToOutput();
 
 public:
-    Application(const std::string& inputPath, const std::string& outputPath);
+    Application(const std::string& inputPath, const std::string& outputPath,
+                const std::string& mlInputPath, const std::string& mlOutputPath);
     
     void run();
     void callPythonMLAsync();
@@ -10,8 +10,56 @@
 
 using json = nlohmann::json;
 
-Application::Application(const std::string& inputPath, const std::string& outputPath)
-    : inputPath(inputPath), outputPath(outputPath) {
+namespace {
+
+// Convert Python ML movies to the output.json movie format
+json toOutputRecommendations(const json& mlRecommendations) {
+    json recommendations = json::array();
+    
+    for (const auto& movie : mlRecommendations) {
+        json movieJson;
+        movieJson["id"] = movie["id"];
+        movieJson["title"] = movie["title"];
+        
+        // Handle genres array
+        if (movie.contains("genres")) {
+            movieJson["genres"] = movie["genres"];
+        }
+        
+        // Handle rating (Python uses vote_average)
+        if (movie.contains("vote_average")) {
+            movieJson["rating"] = movie["vote_average"];
+        } else if (movie.contains("rating")) {
+            movieJson["rating"] = movie["rating"];
+        } else {
+            movieJson["rating"] = 0.0;
+        }
+        
+        // Include ML score for reference
+        if (movie.contains("ml_score")) {
+            movieJson["ml_score"] = movie["ml_score"];
+        }
+        
+        // Include vote_count and popularity if available
+        if (movie.contains("vote_count")) {
+            movieJson["vote_count"] = movie["vote_count"];
+        }
+        if (movie.contains("popularity")) {
+            movieJson["popularity"] = movie["popularity"];
+        }
+        
+        recommendations.push_back(movieJson);
+    }
+    
+    return recommendations;
+}
+
+}
+
+Application::Application(const std::string& inputPath, const std::string& outputPath,
+                         const std::string& mlInputPath, const std::string& mlOutputPath)
+    : inputPath(inputPath), outputPath(outputPath),
+      mlInputPath(mlInputPath), mlOutputPath(mlOutputPath) {
     recommender = std::make_unique<RuleBasedRecommender>();
 }
 
@@ -29,6 +77,26 @@ void Application::run() {
         inputFile >> inputData;
         inputFile.close();
         
+        // Batch request: one ML run for every user in the file
+        if (inputData.value("action", "") == "GET_RECOMMENDATIONS_BATCH") {
+            std::vector<std::vector<std::string>> profiles;
+            for (const auto& user : inputData["users"]) {
+                std::vector<std::string> genres;
+                if (user.contains("preferredGenres")) {
+                    for (const auto& genre : user["preferredGenres"]) {
+                        genres.push_back(genre.get<std::string>());
+                    }
+                }
+                profiles.push_back(genres);
+            }
+            std::cout << "Batch request with " << profiles.size() << " users" << std::endl;
+            
+            prepareMLBatchInput(profiles);
+            callPythonMLAsync();
+            copyMLBatchOutputToOutput();
+            return;
+        }
+        
         // 2. Parse user preferences
         std::vector<std::string> preferredGenres;
         if (inputData.contains("user") && inputData["user"].contains("preferredGenres")) {
@@ -37,6 +105,9 @@ void Application::run() {
             }
         }
         
+        // Optional ranking depth for paged requests, the ML default otherwise
+        int count = inputData.value("count", 10);
+
         std::string userName = inputData["user"]["name"].get<std::string>();
         int userAge = inputData["user"]["age"].get<int>();
 
@@ -49,7 +120,7 @@ void Application::run() {
         std::cout << std::endl;
         
         // 5. Prepare input for Python ML
-        prepareMLInput(preferredGenres);
+        prepareMLInput(preferredGenres, count);
         
         // 6. Call Python ML asynchronously
         callPythonMLAsync();
@@ -68,16 +139,17 @@ void Application::run() {
     }
 }
 
-void Application::prepareMLInput(const std::vector<std::string>& preferredGenres) {
+void Application::prepareMLInput(const std::vector<std::string>& preferredGenres, int count) {
     std::cout << "Preparing ML input for Python...\n";
     
     // Create JSON input file for Python
     json mlInput;
     mlInput["preferredGenres"] = preferredGenres;
+    mlInput["n"] = count;
     
-    std::ofstream file("../../shared/ml_input.json");
+    std::ofstream file(mlInputPath);
     if (!file.is_open()) {
-        std::cerr << "Could not create ml_input.json\n";
+        std::cerr << "Could not create " << mlInputPath << "\n";
         return;
     }
     
@@ -99,7 +171,9 @@ void Application::callPythonMLAsync() {
                   << std::this_thread::get_id() << ")\n";
         
         // Call Python ML script
-        std::string pythonCommand = "python ..\\..\\python\\recommender\\model.py";
+        // Pass this request's ML exchange files so parallel engines don't share them
+        std::string pythonCommand = "python ..\\..\\python\\recommender\\model.py \""
+                                    + mlInputPath + "\" \"" + mlOutputPath + "\"";
         std::cout << "[THREAD] Executing: " << pythonCommand << "\n";
         
         int result = system(pythonCommand.c_str());
@@ -130,7 +204,7 @@ void Application::copyMLOutputToOutput() {
     std::cout << "Copying ML recommendations to output.json...\n";
     
     // Read ml_output.json
-    std::ifstream mlFile("../../shared/ml_output.json");
+    std::ifstream mlFile(mlOutputPath);
     if (!mlFile.is_open()) {
         std::cerr << "ERROR: Could not read ml_output.json\n";
         std::cerr << "Python ML may have failed. Check logs above.\n";
@@ -155,40 +229,7 @@ void Application::copyMLOutputToOutput() {
     outputData["recommendations"] = json::array();
     
     if (mlData.contains("ml_recommendations")) {
-        for (const auto& movie : mlData["ml_recommendations"]) {
-            json movieJson;
-            movieJson["id"] = movie["id"];
-            movieJson["title"] = movie["title"];
-            
-            // Handle genres array
-            if (movie.contains("genres")) {
-                movieJson["genres"] = movie["genres"];
-            }
-            
-            // Handle rating (Python uses vote_average)
-            if (movie.contains("vote_average")) {
-                movieJson["rating"] = movie["vote_average"];
-            } else if (movie.contains("rating")) {
-                movieJson["rating"] = movie["rating"];
-            } else {
-                movieJson["rating"] = 0.0;
-            }
-            
-            // Include ML score for reference
-            if (movie.contains("ml_score")) {
-                movieJson["ml_score"] = movie["ml_score"];
-            }
-            
-            // Include vote_count and popularity if available
-            if (movie.contains("vote_count")) {
-                movieJson["vote_count"] = movie["vote_count"];
-            }
-            if (movie.contains("popularity")) {
-                movieJson["popularity"] = movie["popularity"];
-            }
-            
-            outputData["recommendations"].push_back(movieJson);
-        }
+        outputData["recommendations"] = toOutputRecommendations(mlData["ml_recommendations"]);
         
         std::cout << "Copied " << outputData["recommendations"].size() 
                   << " ML recommendations to output.json\n";
@@ -210,10 +251,72 @@ void Application::copyMLOutputToOutput() {
     std::cout << "Results written to: " << outputPath << std::endl;
 }
 
+void Application::prepareMLBatchInput(const std::vector<std::vector<std::string>>& profiles) {
+    std::cout << "Preparing batch ML input for " << profiles.size() << " profiles...\n";
+    
+    json mlInput;
+    mlInput["requests"] = json::array();
+    for (const auto& genres : profiles) {
+        json request;
+        request["preferredGenres"] = genres;
+        mlInput["requests"].push_back(request);
+    }
+    
+    std::ofstream file(mlInputPath);
+    if (!file.is_open()) {
+        std::cerr << "Could not create " << mlInputPath << "\n";
+        return;
+    }
+    
+    file << mlInput.dump(2);
+    file.close();
+}
+
+void Application::copyMLBatchOutputToOutput() {
+    std::cout << "Copying batch ML recommendations to output.json...\n";
+    
+    json outputData;
+    outputData["results"] = json::array();
+    
+    std::ifstream mlFile(mlOutputPath);
+    if (!mlFile.is_open()) {
+        std::cerr << "ERROR: Could not read ml_output.json\n";
+        outputData["error"] = "Python ML failed to generate recommendations";
+    } else {
+        json mlData;
+        mlFile >> mlData;
+        mlFile.close();
+        
+        if (mlData.contains("results")) {
+            for (const auto& result : mlData["results"]) {
+                json entry;
+                entry["recommendations"] = result.contains("ml_recommendations")
+                    ? toOutputRecommendations(result["ml_recommendations"])
+                    : json::array();
+                outputData["results"].push_back(entry);
+            }
+            std::cout << "Copied " << outputData["results"].size() << " batch results\n";
+        } else {
+            std::cerr << "WARNING: ml_output.json does not contain 'results' field\n";
+            outputData["error"] = "Invalid ML batch output format";
+        }
+    }
+    
+    std::ofstream outputFile(outputPath);
+    if (!outputFile.is_open()) {
+        throw std::runtime_error("Could not open output file: " + outputPath);
+    }
+    
+    outputFile << outputData.dump(4);
+    outputFile.close();
+    
+    std::cout << "Results written to: " << outputPath << std::endl;
+}
+
 void Application::readMLOutput() {
     std::cout << "\nReading Python ML recommendations...\n";
     
-    std::ifstream file("../../shared/ml_output.json");
+    std::ifstream file(mlOutputPath);
     if (!file.is_open()) {
         std::cerr << "Could not open ml_output.json (Python may have failed)\n";
         return;
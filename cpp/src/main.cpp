@@ -2,14 +2,27 @@
 #include <string>
 #include "Application.h"
 
+// Usage: crossai-engine [input.json output.json [ml_input.json ml_output.json]]
+// Without arguments the shared/ exchange files are used (single request at a time).
 int main(int argc, char* argv[]) {
     try {
         std::string inputPath = "../../shared/input.json";
         std::string outputPath = "../../shared/output.json";
+        std::string mlInputPath = "../../shared/ml_input.json";
+        std::string mlOutputPath = "../../shared/ml_output.json";
+        
+        if (argc >= 3) {
+            inputPath = argv[1];
+            outputPath = argv[2];
+        }
+        if (argc >= 5) {
+            mlInputPath = argv[3];
+            mlOutputPath = argv[4];
+        }
         
         std::cout << "CrossAI C++ Engine starting..." << std::endl;
         
-        Application app(inputPath, outputPath);
+        Application app(inputPath, outputPath, mlInputPath, mlOutputPath);
         app.run();
         
         std::cout << "Recommendations generated successfully!" << std::endl;
@@ -0,0 +1,85 @@
+package crossai.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crossai.util.Cache;
+
+/**
+ * Cache get/put under contention.
+ * All threads share one cache; run with -t N to change the number of threads
+ * for get and put (the mixed group always runs 3 readers per writer).
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    // keys in use; more keys than capacity means evictions on put
+    @Param({ "64", "20000" })
+    public int keyCount;
+
+    @Param({ "10000" })
+    public int capacity;
+
+    private Cache<String> cache;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        cache = new Cache<>(capacity);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "hybrid:" + Integer.toHexString(i) + ":10";
+            cache.put(keys[i], keys[i]);
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keyCount)];
+    }
+
+    @Benchmark
+    public Object get() {
+        return cache.get(randomKey());
+    }
+
+    @Benchmark
+    public void put() {
+        String key = randomKey();
+        cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Object mixedGet() {
+        return cache.get(randomKey());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedPut() {
+        String key = randomKey();
+        cache.put(key, key);
+    }
+}
@@ -0,0 +1,174 @@
+package crossai.bench;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.json.BinaryExchangeCodec;
+import crossai.json.ExchangeCodec;
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * JSON read/write paths of HybridRecommendationService against fixture files, and the
+ * binary worker format next to the JSON worker line ("readWorkerFrame").
+ *
+ * Fixtures are written at setup in the engine's format (nlohmann dump(4): indented,
+ * keys sorted, extra ml_score/popularity/vote_count fields) for resultSize movies.
+ * "readTree" is the old path (whole file into a String, Gson JsonObject tree, walked
+ * by hand) and is kept as a baseline. Run with -prof gc to compare garbage per request.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExchangeCodecBenchmark {
+    private static final String[] GENRES = {
+        "Action", "Adventure", "Comedy", "Crime", "Drama", "Horror", "Science Fiction", "Thriller"
+    };
+
+    @Param({ "10", "100", "1000" })
+    public int resultSize;
+
+    private final ExchangeCodec codec = new ExchangeCodec();
+    private final BinaryExchangeCodec binaryCodec = new BinaryExchangeCodec();
+    private final Gson gson = new Gson();
+    private Path directory;
+    private Path outputFile;
+    private Path inputFile;
+    private String workerLine;
+    private byte[] workerFrame; // the same results as a binary response body
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("crossai-bench");
+        outputFile = directory.resolve("output.json");
+        inputFile = directory.resolve("input.json");
+
+        try (Writer writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+            JsonWriter out = new JsonWriter(writer);
+            out.setIndent("    ");
+            writeEngineOutput(out, "recommendations", "rating");
+        }
+
+        StringWriter line = new StringWriter();
+        JsonWriter out = new JsonWriter(line);
+        writeEngineOutput(out, "ml_recommendations", "vote_average");
+        workerLine = line.toString();
+
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        binaryCodec.writeItems(new DataOutputStream(frame), codec.readRecommendations(workerLine, "ml_recommendations"));
+        workerFrame = frame.toByteArray();
+
+        user = new User("Bench", 30);
+        user.addPreferredGenres(Arrays.asList(Genre.ACTION, Genre.SCIENCE_FICTION, Genre.THRILLER));
+    }
+
+    private void writeEngineOutput(JsonWriter out, String field, String ratingField) throws IOException {
+        out.beginObject();
+        out.name(field).beginArray();
+        for (int i = 0; i < resultSize; i++) {
+            out.beginObject();
+            out.name("genres").beginArray()
+               .value(GENRES[i % GENRES.length])
+               .value(GENRES[(i * 7 + 3) % GENRES.length])
+               .endArray();
+            out.name("id").value(10_000 + i);
+            out.name("ml_score").value(1.0 - i * 0.0001);
+            out.name("popularity").value(5.0 + (i % 50) * 0.37);
+            out.name(ratingField).value(6.0 + (i % 30) * 0.1);
+            out.name("title").value("Movie number " + i);
+            out.name("vote_count").value(100.0 + i);
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+        out.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(outputFile);
+        Files.deleteIfExists(inputFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<Item> readStreaming() throws IOException {
+        return codec.readRecommendations(outputFile, "recommendations");
+    }
+
+    @Benchmark
+    public List<Item> readWorkerLine() throws IOException {
+        return codec.readRecommendations(workerLine, "ml_recommendations");
+    }
+
+    @Benchmark
+    public List<Item> readWorkerFrame() throws IOException {
+        return binaryCodec.readRecommendations(workerFrame);
+    }
+
+    @Benchmark
+    public List<Item> readTree() throws IOException {
+        StringBuilder content = new StringBuilder();
+        try (BufferedReader reader = Files.newBufferedReader(outputFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line);
+            }
+        }
+        JsonObject root = gson.fromJson(content.toString(), JsonObject.class);
+
+        List<Item> items = new ArrayList<>();
+        for (JsonElement element : root.getAsJsonArray("recommendations")) {
+            JsonObject movie = element.getAsJsonObject();
+            List<Genre> genres = new ArrayList<>();
+            for (JsonElement genre : movie.getAsJsonArray("genres")) {
+                genres.add(Genre.fromString(genre.getAsString()));
+            }
+            items.add(new Item(movie.get("id").getAsInt(), movie.get("title").getAsString(), "",
+                               genres, movie.get("rating").getAsDouble()));
+        }
+        return items;
+    }
+
+    @Benchmark
+    public Path writeRequest() throws IOException {
+        codec.writeRequest(inputFile, user);
+        return inputFile;
+    }
+}
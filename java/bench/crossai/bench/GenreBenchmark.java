@@ -0,0 +1,38 @@
+package crossai.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crossai.model.Genre;
+
+/**
+ * Genre.fromString for the spellings seen in engine output and user input.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenreBenchmark {
+
+    // display name, enum name, alias and an unknown genre (full miss)
+    @Param({ "Drama", "SCIENCE_FICTION", "Sci-Fi", "Documentary Short" })
+    public String name;
+
+    @Benchmark
+    public Genre fromString() {
+        return Genre.fromString(name);
+    }
+}
@@ -0,0 +1,54 @@
+package crossai.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+
+/**
+ * Item construction and genre access, done once per movie of every result.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemBenchmark {
+    private final List<Genre> genres = Arrays.asList(Genre.ACTION, Genre.SCIENCE_FICTION, Genre.THRILLER);
+    private final int genreMask = Genre.maskOf(genres);
+    private final Item item = new Item(27205, "Inception", "Dreams within dreams", genres, 8.3);
+
+    @Benchmark
+    public Item construct() {
+        return new Item(27205, "Inception", "Dreams within dreams", genres, 8.3);
+    }
+
+    @Benchmark
+    public Item constructFromMask() {
+        return new Item(27205, "Inception", "Dreams within dreams", genreMask, 8.3);
+    }
+
+    @Benchmark
+    public boolean matchesAny() {
+        return item.matchesAny(Genre.DRAMA.mask() | Genre.THRILLER.mask());
+    }
+
+    @Benchmark
+    public Object getGenres() {
+        return item.getGenres();
+    }
+}
@@ -0,0 +1,58 @@
+package crossai.bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.service.MockRecommendationService;
+
+/**
+ * End-to-end MockRecommendationService.getRecommendations.
+ * "cached" answers a repeated profile, "uncached" clears the cache before every call.
+ * The service is shared, so -t N measures it under concurrent requests.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockServiceBenchmark {
+    private MockRecommendationService service;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        service = new MockRecommendationService("target/bench-data");
+        service.setLoggingEnabled(false);
+
+        user = new User("Bench", 30);
+        user.addPreferredGenres(Arrays.asList(Genre.ACTION, Genre.DRAMA));
+    }
+
+    @Benchmark
+    public List<Item> cached() {
+        return service.getRecommendations(user);
+    }
+
+    @Benchmark
+    public List<Item> uncached() {
+        service.clearCache();
+        return service.getRecommendations(user);
+    }
+}
@@ -0,0 +1,106 @@
+package crossai.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import crossai.catalog.GenreTfIdfModel;
+import crossai.catalog.MovieCatalog;
+import crossai.catalog.TopKSelector;
+import crossai.model.Genre;
+
+/**
+ * Full-catalog TF-IDF scoring, the CatalogRecommendationService scan path,
+ * on one thread and split over the ForkJoin common pool.
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopKBenchmark {
+    private static final int K = 50;
+
+    @Param({"10000", "100000", "500000"})
+    public int catalogSize;
+
+    private int[] genreMasks;
+    private GenreTfIdfModel model;
+    private int queryMask;
+    private double queryNorm;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        genreMasks = new int[catalogSize];
+        for (int i = 0; i < catalogSize; i++) {
+            // one to three genres per movie, like the Kaggle data
+            int genres = 1 + random.nextInt(3);
+            for (int g = 0; g < genres; g++) {
+                genreMasks[i] |= 1 << random.nextInt(Genre.values().length);
+            }
+        }
+        model = new GenreTfIdfModel(new MaskCatalog(genreMasks));
+        queryMask = Genre.ACTION.mask() | Genre.SCIENCE_FICTION.mask() | Genre.THRILLER.mask();
+        queryNorm = model.norm(queryMask);
+    }
+
+    @Benchmark
+    public int[] sequential() {
+        return TopKSelector.topKSequential(catalogSize, K,
+            i -> model.similarity(queryMask, queryNorm, i, genreMasks[i]));
+    }
+
+    @Benchmark
+    public int[] parallel() {
+        return TopKSelector.topKParallel(catalogSize, K,
+            i -> model.similarity(queryMask, queryNorm, i, genreMasks[i]), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Catalog with genres only, enough to fit the model.
+     */
+    private static final class MaskCatalog implements MovieCatalog {
+        private final int[] genreMasks;
+
+        MaskCatalog(int[] genreMasks) {
+            this.genreMasks = genreMasks;
+        }
+
+        @Override
+        public int size() { return genreMasks.length; }
+
+        @Override
+        public int getId(int index) { return index; }
+
+        @Override
+        public String getTitle(int index) { return ""; }
+
+        @Override
+        public int getGenreMask(int index) { return genreMasks[index]; }
+
+        @Override
+        public double getVoteAverage(int index) { return 0.0; }
+
+        @Override
+        public double getVoteCount(int index) { return 0.0; }
+
+        @Override
+        public double getPopularity(int index) { return 0.0; }
+    }
+}
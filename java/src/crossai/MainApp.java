@@ -8,10 +8,17 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
 import java.awt.Insets;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.BorderFactory;
 import javax.swing.ButtonGroup;
@@ -19,22 +26,28 @@ import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
-import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 
 import crossai.controller.AppController;
+import crossai.controller.ServiceType;
 import crossai.model.Genre;
 import crossai.model.Item;
+import crossai.model.User;
+import crossai.server.RecommendationServer;
+import crossai.ui.RecommendationCellRenderer;
+import crossai.ui.RecommendationListModel;
+import crossai.util.TaskExecutors;
 
 /**
  * Main application entry point with Swing GUI.
@@ -42,7 +55,16 @@ import crossai.model.Item;
  */
 public class MainApp extends JFrame {
     
+    // give up on a request (and kill its engine run) after this long
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    // rows fetched per page when the list is scrolled towards its end
+    private static final int RESULTS_PAGE_SIZE = 10;
+    
     private AppController controller;
+    private CompletableFuture<List<Item>> pendingRequest; // latest request, older ones are cancelled
+    private CompletableFuture<List<Item>> pendingPage; // next page of the displayed results
+    private User displayedUser; // whose results are in the list
+    private boolean moreResults; // the ranking may go on after the last row
     
     // UI Components
     private JTextField nameField;
@@ -50,7 +72,10 @@ public class MainApp extends JFrame {
     private Map<Genre, JCheckBox> genreCheckboxes;
     private JRadioButton mockRadio;
     private JRadioButton hybridRadio;
-    private JTextArea resultsArea;
+    private JRadioButton catalogRadio;
+    private RecommendationListModel resultsModel;
+    private JList<Item> resultsList;
+    private JPanel resultsPanel;
     private JButton getRecommendationsButton;
     private JButton clearButton;
     private JLabel statusLabel;
@@ -182,13 +207,16 @@ public class MainApp extends JFrame {
         
         mockRadio = new JRadioButton("Mock Service (Test Data)", true);
         hybridRadio = new JRadioButton("Hybrid Service (Real C++/Python)");
+        catalogRadio = new JRadioButton("Catalog Service (In-JVM)");
         
         ButtonGroup serviceGroup = new ButtonGroup();
         serviceGroup.add(mockRadio);
         serviceGroup.add(hybridRadio);
+        serviceGroup.add(catalogRadio);
         
         servicePanel.add(mockRadio);
         servicePanel.add(hybridRadio);
+        servicePanel.add(catalogRadio);
         
         // Buttons panel
         JPanel buttonsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 10));
@@ -213,20 +241,28 @@ public class MainApp extends JFrame {
      * Create results display panel.
      */
     private JPanel createResultsPanel() {
-        JPanel panel = new JPanel(new BorderLayout());
-        panel.setBorder(BorderFactory.createTitledBorder("Recommendations"));
-        panel.setPreferredSize(new Dimension(300, 0));
-        
-        resultsArea = new JTextArea();
-        resultsArea.setEditable(false);
-        resultsArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
-        resultsArea.setLineWrap(true);
-        resultsArea.setWrapStyleWord(true);
-        
-        JScrollPane scrollPane = new JScrollPane(resultsArea);
-        panel.add(scrollPane, BorderLayout.CENTER);
+        resultsPanel = new JPanel(new BorderLayout());
+        resultsPanel.setBorder(BorderFactory.createTitledBorder("Recommendations"));
+        resultsPanel.setPreferredSize(new Dimension(300, 0));
+        
+        // Fixed row sizes (from a prototype row) let the list skip measuring every row,
+        // so only the rows in view are laid out and painted
+        resultsModel = new RecommendationListModel();
+        resultsList = new JList<>(resultsModel);
+        resultsList.setCellRenderer(new RecommendationCellRenderer());
+        resultsList.setPrototypeCellValue(new Item(0, "Prototype", "", Genre.DRAMA.mask(), 5.0));
+        resultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        
+        JScrollPane scrollPane = new JScrollPane(resultsList);
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            // only once scrolled down; filling the list also moves the scroll bar
+            if (e.getAdjustable().getValue() > 0) {
+                loadMoreIfNeeded();
+            }
+        });
+        resultsPanel.add(scrollPane, BorderLayout.CENTER);
         
-        return panel;
+        return resultsPanel;
     }
     
     /**
@@ -247,8 +283,43 @@ public class MainApp extends JFrame {
         
         hybridRadio.addActionListener(e -> {
             controller.setUseMockService(false);
-            statusLabel.setText("Using Hybrid Service (C++/Python)");
+            if (controller.isReady()) {
+                statusLabel.setText("Using Hybrid Service (C++/Python)");
+                return;
+            }
+            statusLabel.setText("Using Hybrid Service (C++/Python) - warming up...");
+            controller.whenReady().thenRun(() -> SwingUtilities.invokeLater(() -> {
+                if (controller.getServiceType() == ServiceType.HYBRID) {
+                    statusLabel.setText("Using Hybrid Service (C++/Python)");
+                }
+            }));
         });
+        
+        catalogRadio.addActionListener(e -> {
+            try {
+                controller.setServiceType(ServiceType.CATALOG);
+                statusLabel.setText("Using Catalog Service (In-JVM)");
+            } catch (Exception ex) {
+                showError("Failed to load movie catalog: " + ex.getMessage());
+                selectServiceRadio(controller.getServiceType());
+            }
+        });
+    }
+    
+    /**
+     * Select the radio button matching the controller's current service.
+     */
+    private void selectServiceRadio(ServiceType type) {
+        switch (type) {
+            case HYBRID:
+                hybridRadio.setSelected(true);
+                break;
+            case CATALOG:
+                catalogRadio.setSelected(true);
+                break;
+            default:
+                mockRadio.setSelected(true);
+        }
     }
     
     /**
@@ -282,89 +353,120 @@ public class MainApp extends JFrame {
             controller.createUser(name, age);
             controller.addGenresToCurrentUser(selectedGenres);
             
+            // A new click supersedes the request still running, if any
+            if (pendingRequest != null) {
+                pendingRequest.cancel(true);
+            }
+            
             // Update status
             statusLabel.setText("Getting recommendations...");
-            getRecommendationsButton.setEnabled(false);
             
             // Get recommendations (in background to keep UI responsive)
-            SwingWorker<List<Item>, Void> worker = new SwingWorker<>() {
-                @Override
-                protected List<Item> doInBackground() throws Exception {
-                    return controller.getRecommendationsForCurrentUser();
+            CompletableFuture<List<Item>> request =
+                controller.getRecommendationsForCurrentUserAsync(REQUEST_TIMEOUT);
+            pendingRequest = request;
+            
+            request.whenComplete((recommendations, error) -> SwingUtilities.invokeLater(() -> {
+                if (request != pendingRequest) {
+                    return; // superseded by a newer request
                 }
+                pendingRequest = null;
                 
-                @Override
-                protected void done() {
-                    try {
-                        List<Item> recommendations = get();
-                        displayRecommendations(recommendations);
-                        statusLabel.setText("Found " + recommendations.size() + " recommendations!");
-                    } catch (Exception ex) {
-                        showError("Failed to get recommendations: " + ex.getMessage());
-                        statusLabel.setText("Error occurred");
-                    } finally {
-                        getRecommendationsButton.setEnabled(true);
-                    }
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause == null) {
+                    displayRecommendations(recommendations);
+                    statusLabel.setText("Found " + recommendations.size() + " recommendations!");
+                } else if (cause instanceof TimeoutException) {
+                    showError("Recommendations took longer than " + REQUEST_TIMEOUT.getSeconds() + " seconds.");
+                    statusLabel.setText("Request timed out");
+                } else if (!(cause instanceof CancellationException)) {
+                    showError("Failed to get recommendations: " + cause.getMessage());
+                    statusLabel.setText("Error occurred");
                 }
-            };
-            worker.execute();
+            }));
             
         } catch (Exception ex) {
             showError("Error: " + ex.getMessage());
-            getRecommendationsButton.setEnabled(true);
         }
     }
     
     /**
-     * Display recommendations in the results area.
+     * Display recommendations in the results list, replacing the previous ones.
      */
     private void displayRecommendations(List<Item> recommendations) {
-    StringBuilder sb = new StringBuilder();
-    sb.append("══════════════════════════════════════\n");
-    sb.append("       YOUR RECOMMENDATIONS\n");
-    sb.append("══════════════════════════════════════\n\n");
+        clearResults();
+        displayedUser = controller.getCurrentUser();
+        resultsModel.append(recommendations);
+        moreResults = recommendations.size() >= RESULTS_PAGE_SIZE;
+        updateResultsTitle();
+        if (!recommendations.isEmpty()) {
+            resultsList.ensureIndexIsVisible(0); // Scroll to top
+        }
+    }
     
-    int count = 1;
-    for (Item item : recommendations) {
-        sb.append("─────────────────────────────────────\n");
-        sb.append(String.format("%d. %s\n", count++, item.getTitle()));
-        sb.append("─────────────────────────────────────\n");
-        
-        // ID
-        sb.append(String.format("🎬 ID: %d\n", item.getId()));
-        
-        // Genres
-        String genresStr = item.getGenresAsString();
-        if (!genresStr.equals("Unknown")) {
-            sb.append(String.format("🎭 Genres: %s\n", genresStr));
+    /**
+     * Fetch the next page in the background when the list is scrolled near its end.
+     * Called from the scroll bar only, so showing results never fetches a page by itself.
+     */
+    private void loadMoreIfNeeded() {
+        if (!moreResults || pendingPage != null || displayedUser == null) {
+            return;
         }
-        
-        // Rating
-        if (item.getRating() > 0) {
-            sb.append(String.format("⭐ Rating: %.1f/10\n", item.getRating()));
+        int lastVisible = resultsList.getLastVisibleIndex();
+        if (lastVisible < resultsModel.getSize() - RESULTS_PAGE_SIZE / 2) {
+            return;
         }
         
-        // Description (if available)
-        String desc = item.getDescription();
-        if (desc != null && !desc.isEmpty() && !desc.equals("A great movie")) {
-            sb.append(String.format("\n📝 %s\n", desc));
-        }
+        User user = displayedUser;
+        int offset = resultsModel.getSize();
+        CompletableFuture<List<Item>> page = TaskExecutors.supplyAsync(
+            () -> controller.getRecommendations(user, offset, RESULTS_PAGE_SIZE), TaskExecutors.shared());
+        pendingPage = page;
+        statusLabel.setText("Loading more recommendations...");
         
-        sb.append("\n");
+        page.whenComplete((items, error) -> SwingUtilities.invokeLater(() -> {
+            if (page != pendingPage) {
+                return; // the results were replaced or cleared meanwhile
+            }
+            pendingPage = null;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                moreResults = false;
+                statusLabel.setText("Could not load more recommendations: " + cause.getMessage());
+                return;
+            }
+            resultsModel.append(items);
+            moreResults = items.size() == RESULTS_PAGE_SIZE;
+            updateResultsTitle();
+            statusLabel.setText("Showing " + resultsModel.getSize() + " recommendations");
+        }));
     }
     
-    sb.append("══════════════════════════════════════\n");
-    sb.append(String.format("   Total: %d movies recommended\n", recommendations.size()));
-    sb.append("══════════════════════════════════════\n");
+    private void clearResults() {
+        if (pendingPage != null) {
+            pendingPage.cancel(true);
+            pendingPage = null;
+        }
+        displayedUser = null;
+        moreResults = false;
+        resultsModel.clear();
+        updateResultsTitle();
+    }
     
-    resultsArea.setText(sb.toString());
-    resultsArea.setCaretPosition(0); // Scroll to top
+    private void updateResultsTitle() {
+        resultsPanel.setBorder(BorderFactory.createTitledBorder(resultsModel.getSize() == 0
+            ? "Recommendations" : "Recommendations (" + resultsModel.getSize() + ")"));
     }
     
     /**
      * Handle Clear button click.
      */
     private void handleClear() {
+        if (pendingRequest != null) {
+            pendingRequest.cancel(true);
+            pendingRequest = null;
+        }
+        
         nameField.setText("");
         ageSpinner.setValue(25);
         
@@ -372,10 +474,9 @@ public class MainApp extends JFrame {
             checkbox.setSelected(false);
         }
         
-        resultsArea.setText("");
+        clearResults();
         controller.clearCurrentUser();
-        statusLabel.setText("Ready - " + 
-            (mockRadio.isSelected() ? "Using Mock Service" : "Using Hybrid Service"));
+        statusLabel.setText("Ready - Using " + controller.getServiceTypeName() + " Service");
     }
     
     /**
@@ -389,6 +490,11 @@ public class MainApp extends JFrame {
      * Main entry point.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
+
         // Set look and feel to system default
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -399,4 +505,46 @@ public class MainApp extends JFrame {
         // Create GUI on Event Dispatch Thread
         SwingUtilities.invokeLater(() -> new MainApp());
     }
-}
\ No newline at end of file
+
+    /**
+     * Headless mode: --server [port] [mock|hybrid|catalog], serves until the JVM is stopped.
+     */
+    private static void runServer(String[] args) {
+        int port;
+        ServiceType type;
+        try {
+            port = args.length > 1 ? Integer.parseInt(args[1]) : RecommendationServer.DEFAULT_PORT;
+            if (port < 0 || port > 65535) {
+                throw new IllegalArgumentException("Port out of range: " + port);
+            }
+            type = args.length > 2 ? ServiceType.valueOf(args[2].toUpperCase(Locale.ROOT)) : ServiceType.HYBRID;
+        } catch (IllegalArgumentException e) { // NumberFormatException too
+            System.err.println(e.getMessage());
+            System.err.println("Usage: MainApp --server [port] [" + serviceTypeNames() + "]");
+            System.exit(2);
+            return;
+        }
+
+        AppController controller = new AppController(type);
+        try {
+            RecommendationServer server = new RecommendationServer(controller, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                controller.close();
+            }, "server-shutdown"));
+            server.start();
+        } catch (IOException e) {
+            System.err.println("Could not start server on port " + port + ": " + e.getMessage());
+            controller.close();
+            System.exit(1);
+        }
+    }
+
+    private static String serviceTypeNames() {
+        List<String> names = new ArrayList<>();
+        for (ServiceType type : ServiceType.values()) {
+            names.add(type.name().toLowerCase(Locale.ROOT));
+        }
+        return String.join("|", names);
+    }
+}
@@ -0,0 +1,54 @@
+package crossai.catalog;
+
+import crossai.model.Genre;
+
+/**
+ * Layout of the binary catalog file (processed_movies.bin).
+ *
+ * All numbers are little-endian. The file is a fixed header followed by one column
+ * per field, each column starting on an 8-byte boundary:
+ *
+ *   header      MAGIC, VERSION, movie count, genre layout hash, column offsets
+ *   ids         int[count]
+ *   voteAverage double[count]
+ *   voteCount   double[count]
+ *   popularity  double[count]
+ *   genreMask   int[count]       bitmask over Genre ordinals
+ *   titleStart  int[count + 1]   byte offsets into the title heap
+ *   titleHeap   UTF-8 bytes of all titles, back to back
+ *
+ * Genre masks depend on the order of the Genre enum, so the header records a hash of
+ * the genre names and a file written for a different Genre list is rejected.
+ */
+
+final class BinaryCatalogFormat {
+    static final int MAGIC = 0x434D5843; // "CXMC"
+    static final int VERSION = 1;
+
+    // magic, version, count, genre hash, then 8 column offsets and the heap length
+    static final int HEADER_SIZE = 4 * Integer.BYTES + 8 * Long.BYTES;
+
+    static final int IDS = 0;
+    static final int VOTE_AVERAGES = 1;
+    static final int VOTE_COUNTS = 2;
+    static final int POPULARITIES = 3;
+    static final int GENRE_MASKS = 4;
+    static final int TITLE_STARTS = 5;
+    static final int TITLE_HEAP = 6;
+    static final int END = 7; // offset of the end of the title heap = file size
+
+    private BinaryCatalogFormat() {
+    }
+
+    static int genreLayoutHash() {
+        int hash = 1;
+        for (Genre genre : Genre.values()) {
+            hash = 31 * hash + genre.getDisplayName().hashCode();
+        }
+        return hash;
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+}
@@ -0,0 +1,114 @@
+package crossai.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Converts a movie catalog to the binary format read by MappedMovieCatalog.
+ *
+ * Usage (from java/, after mvn compile):
+ *   java -cp target/classes:gson.jar crossai.catalog.BinaryCatalogWriter \
+ *        [../python/data/processed_movies.json] [../python/data/processed_movies.bin]
+ */
+
+public final class BinaryCatalogWriter {
+
+    private BinaryCatalogWriter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path jsonPath = Paths.get(args.length > 0 ? args[0] : "../python/data/processed_movies.json");
+        Path binaryPath = Paths.get(args.length > 1 ? args[1] : "../python/data/processed_movies.bin");
+
+        long start = System.nanoTime();
+        MovieCatalog catalog = JsonMovieCatalog.load(jsonPath);
+        write(catalog, binaryPath);
+
+        System.out.println("[CATALOG] Converted " + catalog.size() + " movies to " +
+                           binaryPath.toAbsolutePath() + " in " +
+                           (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Write the catalog in binary form.
+     * The file is written next to the target and moved into place, so a reader never
+     * maps a half-written file.
+     *
+     * @param catalog catalog to write
+     * @param binaryPath target file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(MovieCatalog catalog, Path binaryPath) throws IOException {
+        int count = catalog.size();
+
+        byte[][] titles = new byte[count][];
+        long heapLength = 0;
+        for (int i = 0; i < count; i++) {
+            titles[i] = catalog.getTitle(i).getBytes(StandardCharsets.UTF_8);
+            heapLength += titles[i].length;
+        }
+        if (heapLength > Integer.MAX_VALUE) {
+            throw new IOException("Catalog titles do not fit in the binary format");
+        }
+
+        // each column starts where the previous one ends, ints are padded to 8 bytes
+        long[] offsets = new long[BinaryCatalogFormat.END + 1];
+        offsets[BinaryCatalogFormat.IDS] = BinaryCatalogFormat.align(BinaryCatalogFormat.HEADER_SIZE);
+        offsets[BinaryCatalogFormat.VOTE_AVERAGES] =
+            BinaryCatalogFormat.align(offsets[BinaryCatalogFormat.IDS] + 4L * count);
+        offsets[BinaryCatalogFormat.VOTE_COUNTS] = offsets[BinaryCatalogFormat.VOTE_AVERAGES] + 8L * count;
+        offsets[BinaryCatalogFormat.POPULARITIES] = offsets[BinaryCatalogFormat.VOTE_COUNTS] + 8L * count;
+        offsets[BinaryCatalogFormat.GENRE_MASKS] = offsets[BinaryCatalogFormat.POPULARITIES] + 8L * count;
+        offsets[BinaryCatalogFormat.TITLE_STARTS] =
+            BinaryCatalogFormat.align(offsets[BinaryCatalogFormat.GENRE_MASKS] + 4L * count);
+        offsets[BinaryCatalogFormat.TITLE_HEAP] =
+            BinaryCatalogFormat.align(offsets[BinaryCatalogFormat.TITLE_STARTS] + 4L * (count + 1));
+        offsets[BinaryCatalogFormat.END] = offsets[BinaryCatalogFormat.TITLE_HEAP] + heapLength;
+
+        if (offsets[BinaryCatalogFormat.END] > Integer.MAX_VALUE) {
+            throw new IOException("Catalog is too large for the binary format");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) offsets[BinaryCatalogFormat.END]).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(BinaryCatalogFormat.MAGIC);
+        buffer.putInt(BinaryCatalogFormat.VERSION);
+        buffer.putInt(count);
+        buffer.putInt(BinaryCatalogFormat.genreLayoutHash());
+        for (int c = 0; c <= BinaryCatalogFormat.END; c++) {
+            buffer.putLong(offsets[c]);
+        }
+
+        int titleStart = 0;
+        for (int i = 0; i < count; i++) {
+            buffer.putInt((int) offsets[BinaryCatalogFormat.IDS] + 4 * i, catalog.getId(i));
+            buffer.putDouble((int) offsets[BinaryCatalogFormat.VOTE_AVERAGES] + 8 * i, catalog.getVoteAverage(i));
+            buffer.putDouble((int) offsets[BinaryCatalogFormat.VOTE_COUNTS] + 8 * i, catalog.getVoteCount(i));
+            buffer.putDouble((int) offsets[BinaryCatalogFormat.POPULARITIES] + 8 * i, catalog.getPopularity(i));
+            buffer.putInt((int) offsets[BinaryCatalogFormat.GENRE_MASKS] + 4 * i, catalog.getGenreMask(i));
+            buffer.putInt((int) offsets[BinaryCatalogFormat.TITLE_STARTS] + 4 * i, titleStart);
+            buffer.put((int) offsets[BinaryCatalogFormat.TITLE_HEAP] + titleStart, titles[i]);
+            titleStart += titles[i].length;
+        }
+        buffer.putInt((int) offsets[BinaryCatalogFormat.TITLE_STARTS] + 4 * count, titleStart);
+        buffer.clear();
+
+        Path absolute = binaryPath.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
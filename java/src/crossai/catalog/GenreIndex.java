@@ -0,0 +1,214 @@
+package crossai.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import crossai.model.Genre;
+
+/**
+ * Inverted genre index answering top-K TF-IDF queries without scanning the catalog.
+ *
+ * A movie's score only depends on its genre mask, so movies are grouped by distinct
+ * mask (a few thousand groups even for millions of movies). Each genre has a posting
+ * list of the groups containing it, sorted by ascending norm: along a list, the
+ * genre's contribution weight(g) / (norm(q) * norm(m)) only goes down.
+ *
+ * A query runs Fagin's threshold algorithm over the posting lists of its genres,
+ * reading them round-robin and scoring every new group exactly. The sum of what the
+ * next entry of every list could still contribute bounds the score of every group
+ * not seen yet; once K movies score strictly above that bound, the rest of the lists
+ * can't change the result and the search stops.
+ *
+ * Results are exactly those of a full scan sorted by score, ties in catalog order.
+ */
+
+public class GenreIndex {
+    private static final int GENRE_COUNT = Genre.values().length;
+
+    private final GenreTfIdfModel model;
+    private final int[] groupMasks;
+    private final double[] groupNorms;
+    private final int[][] groupMovies;   // movie indices of each group, in catalog order
+    private final int[][] postings;      // per genre: group ids by ascending norm
+
+    public GenreIndex(MovieCatalog catalog, GenreTfIdfModel model) {
+        this.model = model;
+
+        // group movies by genre mask, keeping catalog order inside each group
+        Map<Integer, Integer> groupOfMask = new HashMap<>();
+        List<int[]> members = new ArrayList<>();
+        int[] memberCounts = new int[16];
+        List<Integer> masks = new ArrayList<>();
+
+        for (int i = 0; i < catalog.size(); i++) {
+            int mask = catalog.getGenreMask(i);
+            if (mask == 0) {
+                continue; // can never match a query
+            }
+            Integer group = groupOfMask.get(mask);
+            if (group == null) {
+                group = masks.size();
+                groupOfMask.put(mask, group);
+                masks.add(mask);
+                members.add(new int[4]);
+                if (group == memberCounts.length) {
+                    memberCounts = Arrays.copyOf(memberCounts, group * 2);
+                }
+            }
+            int[] list = members.get(group);
+            if (memberCounts[group] == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                members.set(group, list);
+            }
+            list[memberCounts[group]++] = i;
+        }
+
+        int groupCount = masks.size();
+        this.groupMasks = new int[groupCount];
+        this.groupNorms = new double[groupCount];
+        this.groupMovies = new int[groupCount][];
+        for (int group = 0; group < groupCount; group++) {
+            groupMasks[group] = masks.get(group);
+            groupNorms[group] = model.norm(groupMasks[group]);
+            groupMovies[group] = Arrays.copyOf(members.get(group), memberCounts[group]);
+        }
+
+        this.postings = new int[GENRE_COUNT][];
+        for (int g = 0; g < GENRE_COUNT; g++) {
+            int bit = 1 << g;
+            postings[g] = IntStream.range(0, groupCount)
+                .filter(group -> (groupMasks[group] & bit) != 0)
+                .boxed()
+                .sorted((a, b) -> Double.compare(groupNorms[a], groupNorms[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+    }
+
+    /**
+     * Best k movies for a genre profile.
+     *
+     * @param queryMask genre bitmask of the query
+     * @param k number of movies wanted
+     * @return catalog indices by descending similarity, ties in catalog order;
+     *         fewer than k if fewer movies share a genre with the query
+     */
+    public int[] topK(int queryMask, int k) {
+        double queryNorm = model.norm(queryMask);
+        if (k <= 0 || queryNorm == 0.0) {
+            return new int[0];
+        }
+
+        // posting lists of the query's genres
+        int listCount = 0;
+        int[][] lists = new int[Integer.bitCount(queryMask)][];
+        double[] listWeights = new double[lists.length];
+        for (Genre genre : Genre.fromMask(queryMask)) {
+            int[] list = postings[genre.ordinal()];
+            if (list.length > 0) {
+                lists[listCount] = list;
+                listWeights[listCount] = model.getGenreWeight(genre);
+                listCount++;
+            }
+        }
+
+        int[] positions = new int[listCount];
+        BitSet seen = new BitSet(groupMasks.length);
+        List<Candidate> candidates = new ArrayList<>();
+
+        while (true) {
+            boolean advanced = false;
+            for (int l = 0; l < listCount; l++) {
+                if (positions[l] == lists[l].length) {
+                    continue;
+                }
+                int group = lists[l][positions[l]++];
+                advanced = true;
+                if (!seen.get(group)) {
+                    seen.set(group);
+                    double score = model.similarity(queryMask, queryNorm, groupMasks[group], groupNorms[group]);
+                    candidates.add(new Candidate(group, score));
+                }
+            }
+            if (!advanced) {
+                break; // every list read to the end
+            }
+
+            // best score any unseen group could still reach
+            double threshold = 0.0;
+            for (int l = 0; l < listCount; l++) {
+                if (positions[l] < lists[l].length) {
+                    threshold += listWeights[l] / (queryNorm * groupNorms[lists[l][positions[l]]]);
+                }
+            }
+
+            long above = 0;
+            for (Candidate candidate : candidates) {
+                if (candidate.score > threshold) {
+                    above += groupMovies[candidate.group].length;
+                }
+            }
+            if (above >= k) {
+                break;
+            }
+        }
+
+        return collect(candidates, k);
+    }
+
+    // movies of the best groups, equal scores merged back into catalog order
+    private int[] collect(List<Candidate> candidates, int k) {
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+
+        int[] result = new int[k];
+        int count = 0;
+        int start = 0;
+        while (start < candidates.size() && count < k) {
+            int end = start + 1;
+            while (end < candidates.size() && candidates.get(end).score == candidates.get(start).score) {
+                end++;
+            }
+
+            int[] run;
+            if (end - start == 1) {
+                run = groupMovies[candidates.get(start).group];
+            } else {
+                int length = 0;
+                for (int c = start; c < end; c++) {
+                    length += groupMovies[candidates.get(c).group].length;
+                }
+                run = new int[length];
+                int offset = 0;
+                for (int c = start; c < end; c++) {
+                    int[] movies = groupMovies[candidates.get(c).group];
+                    System.arraycopy(movies, 0, run, offset, movies.length);
+                    offset += movies.length;
+                }
+                Arrays.sort(run);
+            }
+
+            int take = Math.min(run.length, k - count);
+            System.arraycopy(run, 0, result, count, take);
+            count += take;
+            start = end;
+        }
+        return count == k ? result : Arrays.copyOf(result, count);
+    }
+
+    public int getGroupCount() { return groupMasks.length; }
+
+    private static final class Candidate {
+        final int group;
+        final double score;
+
+        Candidate(int group, double score) {
+            this.group = group;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package crossai.catalog;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import crossai.model.Genre;
+
+/**
+ * Java port of the TF-IDF genre similarity used by the Python MovieRecommender.
+ *
+ * The Python model joins a movie's genres with spaces and feeds them to a default
+ * scikit-learn TfidfVectorizer (lowercase, tokens of 2+ word characters, smooth idf,
+ * l2 norm). Every word of a TMDB genre name only ever appears inside that genre, so
+ * each genre behaves like a fixed group of tokens and the cosine similarity can be
+ * computed straight from genre bitmasks:
+ *
+ *   weight(g) = tokens(g) * idf(g)^2
+ *   sim(q, m) = sum of weight over q AND m / (norm(q) * norm(m))
+ *
+ * Labels outside the TMDB list (a handful of rows in the Kaggle data) are ignored.
+ */
+
+public class GenreTfIdfModel {
+    // same token pattern as scikit-learn's default: (?u)\b\w\w+\b
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("(?U)\\b\\w\\w+\\b");
+
+    private static final int GENRE_COUNT = Genre.values().length;
+
+    private final double[] genreWeights;
+    private final double[] movieNorms;
+
+    public GenreTfIdfModel(MovieCatalog catalog) {
+        int size = catalog.size();
+        int[] documentFrequency = new int[GENRE_COUNT];
+
+        for (int i = 0; i < size; i++) {
+            int mask = catalog.getGenreMask(i);
+            for (int g = 0; g < GENRE_COUNT; g++) {
+                if ((mask & (1 << g)) != 0) {
+                    documentFrequency[g]++;
+                }
+            }
+        }
+
+        this.genreWeights = new double[GENRE_COUNT];
+        for (Genre genre : Genre.values()) {
+            int g = genre.ordinal();
+            // genres missing from the catalog are not in the fitted vocabulary
+            if (documentFrequency[g] == 0) {
+                continue;
+            }
+            double idf = Math.log((1.0 + size) / (1.0 + documentFrequency[g])) + 1.0;
+            genreWeights[g] = countTokens(genre.getDisplayName()) * idf * idf;
+        }
+
+        this.movieNorms = new double[size];
+        for (int i = 0; i < size; i++) {
+            movieNorms[i] = norm(catalog.getGenreMask(i));
+        }
+    }
+
+    private static int countTokens(String text) {
+        Matcher matcher = TOKEN_PATTERN.matcher(text.toLowerCase());
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    // l2 norm of the tf-idf vector for a set of genres
+    public double norm(int genreMask) {
+        double sum = 0.0;
+        for (int g = 0; g < GENRE_COUNT; g++) {
+            if ((genreMask & (1 << g)) != 0) {
+                sum += genreWeights[g];
+            }
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Cosine similarity between a query profile and one catalog movie.
+     *
+     * @param queryMask genre bitmask of the query
+     * @param queryNorm value of norm(queryMask), passed in so it is computed once per query
+     * @param movieIndex catalog position of the movie
+     * @param movieMask genre bitmask of the movie
+     * @return similarity in [0, 1], 0 when nothing matches
+     */
+    public double similarity(int queryMask, double queryNorm, int movieIndex, int movieMask) {
+        return similarity(queryMask, queryNorm, movieMask, movieNorms[movieIndex]);
+    }
+
+    /**
+     * Cosine similarity between a query profile and any genre set.
+     * Movies with the same genre mask always get exactly the same score.
+     *
+     * @param queryMask genre bitmask of the query
+     * @param queryNorm value of norm(queryMask)
+     * @param genreMask genre bitmask of the movie (or group of movies)
+     * @param genreNorm value of norm(genreMask)
+     * @return similarity in [0, 1], 0 when nothing matches
+     */
+    public double similarity(int queryMask, double queryNorm, int genreMask, double genreNorm) {
+        int shared = queryMask & genreMask;
+        if (shared == 0 || queryNorm == 0.0) {
+            return 0.0;
+        }
+        double dot = 0.0;
+        for (int g = 0; g < GENRE_COUNT; g++) {
+            if ((shared & (1 << g)) != 0) {
+                dot += genreWeights[g];
+            }
+        }
+        return dot / (queryNorm * genreNorm);
+    }
+
+    public double getGenreWeight(Genre genre) { return genreWeights[genre.ordinal()]; }
+
+    public double getMovieNorm(int movieIndex) { return movieNorms[movieIndex]; }
+}
@@ -0,0 +1,172 @@
+package crossai.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import crossai.model.Genre;
+
+/**
+ * Movie catalog loaded once from processed_movies.json and kept in memory.
+ * Columns are stored as primitive arrays so the catalog can be scanned
+ * without touching a per-movie object.
+ */
+
+public class JsonMovieCatalog implements MovieCatalog {
+    private final int[] ids;
+    private final String[] titles;
+    private final int[] genreMasks;
+    private final double[] voteAverages;
+    private final double[] voteCounts;
+    private final double[] popularities;
+
+    private JsonMovieCatalog(int[] ids, String[] titles, int[] genreMasks,
+                             double[] voteAverages, double[] voteCounts, double[] popularities) {
+        this.ids = ids;
+        this.titles = titles;
+        this.genreMasks = genreMasks;
+        this.voteAverages = voteAverages;
+        this.voteCounts = voteCounts;
+        this.popularities = popularities;
+    }
+
+    /**
+     * Load the catalog from a JSON array of movies.
+     * The file is read with a streaming parser, so no intermediate tree is built.
+     * Movies without a title cannot be shown and are skipped.
+     *
+     * @param catalogPath path to processed_movies.json
+     * @return the loaded catalog
+     * @throws IOException if the file cannot be read or is not a JSON array
+     */
+    public static JsonMovieCatalog load(Path catalogPath) throws IOException {
+        int capacity = 1024;
+        int size = 0;
+        int[] ids = new int[capacity];
+        String[] titles = new String[capacity];
+        int[] genreMasks = new int[capacity];
+        double[] voteAverages = new double[capacity];
+        double[] voteCounts = new double[capacity];
+        double[] popularities = new double[capacity];
+
+        try (BufferedReader fileReader = Files.newBufferedReader(catalogPath, StandardCharsets.UTF_8);
+             JsonReader reader = new JsonReader(fileReader)) {
+            // pandas writes NaN for missing numbers
+            reader.setLenient(true);
+            reader.beginArray();
+
+            while (reader.hasNext()) {
+                if (size == capacity) {
+                    capacity *= 2;
+                    ids = Arrays.copyOf(ids, capacity);
+                    titles = Arrays.copyOf(titles, capacity);
+                    genreMasks = Arrays.copyOf(genreMasks, capacity);
+                    voteAverages = Arrays.copyOf(voteAverages, capacity);
+                    voteCounts = Arrays.copyOf(voteCounts, capacity);
+                    popularities = Arrays.copyOf(popularities, capacity);
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                        continue;
+                    }
+                    switch (field) {
+                        case "id":
+                            ids[size] = (int) reader.nextDouble();
+                            break;
+                        case "title":
+                            titles[size] = reader.nextString();
+                            break;
+                        case "genres":
+                            genreMasks[size] = readGenreMask(reader);
+                            break;
+                        case "vote_average":
+                            voteAverages[size] = readNumber(reader);
+                            break;
+                        case "vote_count":
+                            voteCounts[size] = readNumber(reader);
+                            break;
+                        case "popularity":
+                            popularities[size] = readNumber(reader);
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                }
+                reader.endObject();
+
+                if (titles[size] == null || titles[size].trim().isEmpty()) {
+                    // the next movie reuses the slot, it must not inherit these columns
+                    ids[size] = 0;
+                    titles[size] = null;
+                    genreMasks[size] = 0;
+                    voteAverages[size] = 0.0;
+                    voteCounts[size] = 0.0;
+                    popularities[size] = 0.0;
+                    continue;
+                }
+                size++;
+            }
+            reader.endArray();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("Invalid catalog file " + catalogPath + ": " + e.getMessage(), e);
+        }
+
+        return new JsonMovieCatalog(
+            Arrays.copyOf(ids, size),
+            Arrays.copyOf(titles, size),
+            Arrays.copyOf(genreMasks, size),
+            Arrays.copyOf(voteAverages, size),
+            Arrays.copyOf(voteCounts, size),
+            Arrays.copyOf(popularities, size));
+    }
+
+    // genres outside the TMDB list are dropped
+    private static int readGenreMask(JsonReader reader) throws IOException {
+        int mask = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Genre genre = Genre.fromString(reader.nextString());
+            if (genre != null) {
+                mask |= genre.mask();
+            }
+        }
+        reader.endArray();
+        return mask;
+    }
+
+    private static double readNumber(JsonReader reader) throws IOException {
+        double value = reader.nextDouble();
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    @Override
+    public int size() { return ids.length; }
+
+    @Override
+    public int getId(int index) { return ids[index]; }
+
+    @Override
+    public String getTitle(int index) { return titles[index]; }
+
+    @Override
+    public int getGenreMask(int index) { return genreMasks[index]; }
+
+    @Override
+    public double getVoteAverage(int index) { return voteAverages[index]; }
+
+    @Override
+    public double getVoteCount(int index) { return voteCounts[index]; }
+
+    @Override
+    public double getPopularity(int index) { return popularities[index]; }
+}
@@ -0,0 +1,121 @@
+package crossai.catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Movie catalog read straight from a memory-mapped binary file (see BinaryCatalogFormat).
+ *
+ * Opening the catalog only maps the file and checks its header: nothing is parsed or
+ * copied onto the heap, columns are read in place, and the pages are shared through
+ * the OS page cache with every other process that maps the same file.
+ * Titles are decoded from UTF-8 when asked for.
+ */
+
+public class MappedMovieCatalog implements MovieCatalog {
+    private final int size;
+    private final IntBuffer ids;
+    private final DoubleBuffer voteAverages;
+    private final DoubleBuffer voteCounts;
+    private final DoubleBuffer popularities;
+    private final IntBuffer genreMasks;
+    private final IntBuffer titleStarts;
+    private final ByteBuffer titleHeap;
+
+    private MappedMovieCatalog(ByteBuffer file, int size, long[] offsets) {
+        this.size = size;
+        this.ids = column(file, offsets, BinaryCatalogFormat.IDS, 4L * size).asIntBuffer();
+        this.voteAverages = column(file, offsets, BinaryCatalogFormat.VOTE_AVERAGES, 8L * size).asDoubleBuffer();
+        this.voteCounts = column(file, offsets, BinaryCatalogFormat.VOTE_COUNTS, 8L * size).asDoubleBuffer();
+        this.popularities = column(file, offsets, BinaryCatalogFormat.POPULARITIES, 8L * size).asDoubleBuffer();
+        this.genreMasks = column(file, offsets, BinaryCatalogFormat.GENRE_MASKS, 4L * size).asIntBuffer();
+        this.titleStarts = column(file, offsets, BinaryCatalogFormat.TITLE_STARTS, 4L * (size + 1)).asIntBuffer();
+        this.titleHeap = column(file, offsets, BinaryCatalogFormat.TITLE_HEAP,
+                                offsets[BinaryCatalogFormat.END] - offsets[BinaryCatalogFormat.TITLE_HEAP]);
+    }
+
+    private static ByteBuffer column(ByteBuffer file, long[] offsets, int column, long length) {
+        return file.slice((int) offsets[column], (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Map a binary catalog file.
+     *
+     * @param binaryPath file written by BinaryCatalogWriter
+     * @return the mapped catalog
+     * @throws IOException if the file cannot be mapped or is not a valid catalog
+     */
+    public static MappedMovieCatalog open(Path binaryPath) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(binaryPath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < BinaryCatalogFormat.HEADER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Invalid catalog file " + binaryPath + ": unexpected size " + fileSize);
+            }
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (file.getInt(0) != BinaryCatalogFormat.MAGIC) {
+            throw new IOException("Invalid catalog file " + binaryPath + ": not a binary catalog");
+        }
+        if (file.getInt(4) != BinaryCatalogFormat.VERSION) {
+            throw new IOException("Invalid catalog file " + binaryPath + ": unsupported version " + file.getInt(4));
+        }
+        int size = file.getInt(8);
+        if (file.getInt(12) != BinaryCatalogFormat.genreLayoutHash()) {
+            throw new IOException("Catalog file " + binaryPath + " was written for a different genre list, " +
+                                  "convert processed_movies.json again");
+        }
+
+        long[] offsets = new long[BinaryCatalogFormat.END + 1];
+        for (int c = 0; c <= BinaryCatalogFormat.END; c++) {
+            offsets[c] = file.getLong(16 + 8 * c);
+        }
+        if (size < 0 || offsets[BinaryCatalogFormat.END] != file.capacity()) {
+            throw new IOException("Invalid catalog file " + binaryPath + ": truncated or corrupt");
+        }
+
+        try {
+            return new MappedMovieCatalog(file, size, offsets);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Invalid catalog file " + binaryPath + ": column out of bounds", e);
+        }
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public int getId(int index) { return ids.get(index); }
+
+    @Override
+    public String getTitle(int index) {
+        int start = titleStarts.get(index);
+        int end = titleStarts.get(index + 1);
+        byte[] bytes = new byte[end - start];
+        titleHeap.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int getGenreMask(int index) { return genreMasks.get(index); }
+
+    @Override
+    public double getVoteAverage(int index) { return voteAverages.get(index); }
+
+    @Override
+    public double getVoteCount(int index) { return voteCounts.get(index); }
+
+    @Override
+    public double getPopularity(int index) { return popularities.get(index); }
+}
@@ -0,0 +1,24 @@
+package crossai.catalog;
+
+/**
+ * Read-only view of the movie catalog produced by python/recommender/preprocess.py.
+ * Movies are addressed by their position in the catalog (0..size-1), which keeps
+ * the scoring code on primitive indices instead of per-movie objects.
+ */
+
+public interface MovieCatalog {
+    int size();
+
+    int getId(int index);
+
+    String getTitle(int index);
+
+    // bitmask over Genre ordinals, genres outside the TMDB list are not included
+    int getGenreMask(int index);
+
+    double getVoteAverage(int index);
+
+    double getVoteCount(int index);
+
+    double getPopularity(int index);
+}
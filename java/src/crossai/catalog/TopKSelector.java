@@ -0,0 +1,210 @@
+package crossai.catalog;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Picks the k best-scoring positions out of 0..size-1 without boxing or sorting everything.
+ *
+ * Each scanned range keeps its own bounded min-heap of (position, score) in primitive
+ * arrays, so memory stays O(k) per range whatever the catalog size. Small inputs are
+ * scanned on the calling thread; from PARALLEL_THRESHOLD positions on, the range is
+ * split across a ForkJoinPool and the per-range heaps are merged as the tasks join.
+ *
+ * Order is highest score first, ties in position order, the same as a stable sort by
+ * descending score. Only positive scores are selected. The scorer must be safe to call
+ * from several threads at once.
+ */
+
+public final class TopKSelector {
+    // below this many positions, splitting costs more than it saves
+    public static final int PARALLEL_THRESHOLD = 32_768;
+    private static final int MIN_LEAF_SIZE = 4_096;
+
+    private TopKSelector() {
+    }
+
+    /**
+     * Best k positions, scanned sequentially or in parallel depending on size.
+     *
+     * @param size number of positions to score
+     * @param k maximum number of positions returned
+     * @param scorer score of a position, positions scoring 0 or less are skipped
+     * @return best positions, best first
+     */
+    public static int[] topK(int size, int k, IntToDoubleFunction scorer) {
+        if (size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            return topKParallel(size, k, scorer, ForkJoinPool.commonPool());
+        }
+        return topKSequential(size, k, scorer);
+    }
+
+    public static int[] topKSequential(int size, int k, IntToDoubleFunction scorer) {
+        checkArguments(size, k, scorer);
+        return scan(0, size, k, scorer).toSortedArray();
+    }
+
+    public static int[] topKParallel(int size, int k, IntToDoubleFunction scorer, ForkJoinPool pool) {
+        checkArguments(size, k, scorer);
+        // a few leaves per worker so a slow one doesn't hold up the rest
+        int leafSize = Math.max(MIN_LEAF_SIZE, size / (pool.getParallelism() * 4));
+        return pool.invoke(new ScanTask(0, size, k, leafSize, scorer)).toSortedArray();
+    }
+
+    private static void checkArguments(int size, int k, IntToDoubleFunction scorer) {
+        if (size < 0 || k < 0) {
+            throw new IllegalArgumentException("Size and k cannot be negative");
+        }
+        if (scorer == null) {
+            throw new IllegalArgumentException("Scorer cannot be null");
+        }
+    }
+
+    private static BoundedHeap scan(int from, int to, int k, IntToDoubleFunction scorer) {
+        BoundedHeap heap = new BoundedHeap(Math.min(k, to - from));
+        for (int i = from; i < to; i++) {
+            double score = scorer.applyAsDouble(i);
+            if (score > 0) {
+                heap.offer(i, score);
+            }
+        }
+        return heap;
+    }
+
+    /**
+     * Scores one range, splitting it in two while it is larger than a leaf.
+     */
+    private static final class ScanTask extends RecursiveTask<BoundedHeap> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int k;
+        private final int leafSize;
+        private final IntToDoubleFunction scorer;
+
+        ScanTask(int from, int to, int k, int leafSize, IntToDoubleFunction scorer) {
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.leafSize = leafSize;
+            this.scorer = scorer;
+        }
+
+        @Override
+        protected BoundedHeap compute() {
+            if (to - from <= leafSize) {
+                return scan(from, to, k, scorer);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(from, middle, k, leafSize, scorer);
+            left.fork();
+            BoundedHeap right = new ScanTask(middle, to, k, leafSize, scorer).compute();
+            return BoundedHeap.merge(left.join(), right, k);
+        }
+    }
+
+    /**
+     * Min-heap of at most capacity entries; the root is the worst entry kept so far.
+     */
+    private static final class BoundedHeap {
+        private final int[] positions;
+        private final double[] scores;
+        private int size;
+
+        BoundedHeap(int capacity) {
+            this.positions = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        void offer(int position, double score) {
+            if (size < positions.length) {
+                positions[size] = position;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (size > 0 && worse(positions[0], scores[0], position, score)) {
+                positions[0] = position;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        // best k entries of both heaps, reusing one of them when it is large enough
+        static BoundedHeap merge(BoundedHeap a, BoundedHeap b, int k) {
+            int capacity = Math.min(k, a.positions.length + b.positions.length);
+            BoundedHeap target;
+            if (a.positions.length >= capacity) {
+                target = a;
+            } else if (b.positions.length >= capacity) {
+                target = b;
+            } else {
+                target = new BoundedHeap(capacity);
+                target.addAll(a);
+            }
+            target.addAll(target == b ? a : b);
+            return target;
+        }
+
+        private void addAll(BoundedHeap other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.positions[i], other.scores[i]);
+            }
+        }
+
+        // empties the heap, worst entry comes out first
+        int[] toSortedArray() {
+            int[] result = new int[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = positions[0];
+                size--;
+                positions[0] = positions[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        // a ranks below b: lower score, or the same score further down the catalog
+        private static boolean worse(int positionA, double scoreA, int positionB, double scoreB) {
+            return scoreA < scoreB || (scoreA == scoreB && positionA > positionB);
+        }
+
+        private void siftUp(int node) {
+            while (node > 0) {
+                int parent = (node - 1) >>> 1;
+                if (!worse(positions[node], scores[node], positions[parent], scores[parent])) {
+                    return;
+                }
+                swap(node, parent);
+                node = parent;
+            }
+        }
+
+        private void siftDown(int node) {
+            while (true) {
+                int child = 2 * node + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && worse(positions[child + 1], scores[child + 1], positions[child], scores[child])) {
+                    child++;
+                }
+                if (!worse(positions[child], scores[child], positions[node], scores[node])) {
+                    return;
+                }
+                swap(node, child);
+                node = child;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int position = positions[a];
+            positions[a] = positions[b];
+            positions[b] = position;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
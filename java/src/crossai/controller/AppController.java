@@ -1,13 +1,25 @@
 package crossai.controller;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import crossai.model.Genre;
 import crossai.model.Item;
 import crossai.model.User;
+import crossai.service.BaseRecommendationService;
+import crossai.service.CatalogRecommendationService;
+import crossai.service.EngineWorker;
 import crossai.service.HybridRecommendationService;
 import crossai.service.MockRecommendationService;
 import crossai.service.RecommendationService;
+import crossai.service.WarmUpProfiles;
+import crossai.util.EventLog;
 
 /**
  * Controller class that coordinates between the UI and recommendation services.
@@ -16,33 +28,115 @@ import crossai.service.RecommendationService;
  * Responsibilities:
  * - Manage current user
  * - Coordinate recommendation requests
- * - Handle service selection (Mock vs Hybrid)
+ * - Handle service selection (Mock, Hybrid or in-JVM Catalog)
  * - Provide simplified API for UI layer
  */
 
 public class AppController {
+    private static final Duration PERSISTENT_CACHE_TTL = Duration.ofDays(7);
+
+    // warm-up of the hybrid service's cache, configured with system properties
+    private static final boolean WARM_UP_ENABLED =
+        Boolean.parseBoolean(System.getProperty("crossai.warmup", "true"));
+    private static final int WARM_UP_PARALLELISM = Integer.getInteger("crossai.warmup.parallelism", 2);
+    private static final int WARM_UP_TOP_PROFILES = Integer.getInteger("crossai.warmup.top", 20);
+    private static final String WARM_UP_PROFILE_FILE =
+        System.getProperty("crossai.warmup.profiles", "../shared/profile_frequencies.tsv");
+
     private User currentUser;
     private RecommendationService service;
-    private boolean useMockService;
+    private ServiceType serviceType;
+    private CatalogRecommendationService catalogService; // kept once loaded, the catalog is expensive to read
 
     public AppController() {
-        this.useMockService = true;
-        this.service = new MockRecommendationService("../shared");
-        this.currentUser = null;
+        this(ServiceType.MOCK);
     }
 
     public AppController(boolean useMockService) {
-        this.useMockService = useMockService;
-        if (useMockService) {
-            this.service = new MockRecommendationService("../shared");
-        } else {
-            this.service = new HybridRecommendationService("../shared");
+        this(useMockService ? ServiceType.MOCK : ServiceType.HYBRID);
+    }
+
+    public AppController(ServiceType serviceType) {
+        if (serviceType == null) {
+            throw new IllegalArgumentException("Service type cannot be null");
+        }
+        this.serviceType = serviceType;
+        this.service = createService(serviceType);
+        this.currentUser = null;
+    }
+
+    private RecommendationService createService(ServiceType type) {
+        switch (type) {
+            case HYBRID:
+                // long-lived ML worker, no process spawn per request
+                HybridRecommendationService hybrid =
+                    new HybridRecommendationService("../shared", EngineWorker.forPythonModel());
+                enablePersistentCache(hybrid);
+                watchDependencies(hybrid);
+                useCatalogFallback(hybrid);
+                startWarmUp(hybrid);
+                return hybrid;
+            case CATALOG:
+                return catalogService();
+            default:
+                return new MockRecommendationService("../shared");
+        }
+    }
+
+    // engine results survive restarts, as long as the catalog they came from is unchanged
+    private static void enablePersistentCache(HybridRecommendationService hybrid) {
+        Path catalogFile = Paths.get(CatalogRecommendationService.DEFAULT_CATALOG_PATH);
+        if (!Files.exists(catalogFile)) {
+            return;
+        }
+        try {
+            hybrid.enablePersistentCache(catalogFile, PERSISTENT_CACHE_TTL);
+        } catch (IOException e) {
+            EventLog.warn("CONTROLLER", "Persistent cache disabled: {}", e.getMessage());
+        }
+    }
+
+    private CatalogRecommendationService catalogService() {
+        if (catalogService == null) {
+            catalogService = new CatalogRecommendationService("../shared");
+        }
+        return catalogService;
+    }
+
+    // with the engine down or too slow, answer from the in-JVM catalog scorer
+    private void useCatalogFallback(HybridRecommendationService hybrid) {
+        if (!Files.exists(Paths.get(CatalogRecommendationService.DEFAULT_CATALOG_PATH))) {
+            return;
+        }
+        try {
+            hybrid.setFallbackService(catalogService());
+        } catch (IllegalStateException e) {
+            EventLog.warn("CONTROLLER", "No catalog fallback for the engine: {}", e.getMessage());
+        }
+    }
+
+    // users arriving right after startup shouldn't pay for a cold engine
+    private static void startWarmUp(BaseRecommendationService service) {
+        if (!WARM_UP_ENABLED) {
+            return;
+        }
+        List<Integer> profiles = WarmUpProfiles.plan(Paths.get(WARM_UP_PROFILE_FILE), WARM_UP_TOP_PROFILES);
+        EventLog.info("CONTROLLER", "Warming up {} genre profiles", profiles.size());
+        service.warmUp(profiles, Math.max(1, WARM_UP_PARALLELISM));
+    }
+
+    // a rebuilt engine or a new catalog invalidates the cached results
+    private static void watchDependencies(HybridRecommendationService hybrid) {
+        try {
+            hybrid.enableFileWatch();
+        } catch (IOException e) {
+            EventLog.warn("CONTROLLER", "Not watching engine and catalog files: {}", e.getMessage());
         }
     }
 
     public User createUser(String name, int age) {
         this.currentUser = new User(name, age);
-        System.out.println("[CONTROLLER] Created user: " + name);
+        EventLog.info("CONTROLLER", "Created user: {}", name);
         return this.currentUser;
     }
 
@@ -51,7 +145,7 @@ public class AppController {
             throw new IllegalArgumentException("User cannot be null");
         }
         this.currentUser = user;
-        System.out.println("[CONTROLLER] Set current user: " + user.getName());
+        EventLog.info("CONTROLLER", "Set current user: {}", user.getName());
     }
 
     public User getCurrentUser() { return currentUser; }
@@ -61,7 +155,7 @@ public class AppController {
             throw new IllegalStateException("No user set. Call createUser() or setCurrentUser() first.");
         }
         currentUser.addGenre(genre);
-        System.out.println("[CONTROLLER] Added genre " + genre.getDisplayName() + " to " + currentUser.getName());
+        EventLog.info("CONTROLLER", "Added genre {} to {}", genre.getDisplayName(), currentUser.getName());
     }
 
     public void addGenresToCurrentUser(List<Genre> genres) {
@@ -69,7 +163,7 @@ public class AppController {
             throw new IllegalStateException("No user set. Call createUser() or setCurrentUser() first.");
         }
         currentUser.addPreferredGenres(genres);
-        System.out.println("[CONTROLLER] Added " + genres.size() + " genres to " + currentUser.getName());
+        EventLog.info("CONTROLLER", "Added {} genres to {}", genres.size(), currentUser.getName());
     }    
 
     // recommendations for currentUser
@@ -79,16 +173,50 @@ public class AppController {
         }
         
         if (currentUser.getPreferredGenres().isEmpty()) {
-            System.err.println("[WARNING] User has no preferred genres. Recommendations may not be personalized.");
+            EventLog.warn("CONTROLLER", "User has no preferred genres. Recommendations may not be personalized.");
         }
         
-        System.out.println("[CONTROLLER] Getting recommendations for: " + currentUser.getName());
+        EventLog.info("CONTROLLER", "Getting recommendations for: {}", currentUser.getName());
         List<Item> recommendations = service.getRecommendations(currentUser);
-        System.out.println("[CONTROLLER] Retrieved " + recommendations.size() + " recommendations");
+        EventLog.info("CONTROLLER", "Retrieved {} recommendations", recommendations.size());
         
         return recommendations;
     }
 
+    /**
+     * Recommendations for currentUser without blocking the caller.
+     * The user is captured now, so later changes to currentUser don't affect this request.
+     * Cancel the returned future to drop a superseded request.
+     *
+     * @param timeout deadline for the whole request
+     */
+    public CompletableFuture<List<Item>> getRecommendationsForCurrentUserAsync(Duration timeout) {
+        if (currentUser == null) {
+            throw new IllegalStateException("No user set. Call createUser() or setCurrentUser() first.");
+        }
+        
+        if (currentUser.getPreferredGenres().isEmpty()) {
+            EventLog.warn("CONTROLLER", "User has no preferred genres. Recommendations may not be personalized.");
+        }
+        
+        EventLog.info("CONTROLLER", "Getting recommendations (async) for: {}", currentUser.getName());
+        return getRecommendationsAsync(currentUser, timeout);
+    }
+
+    public CompletableFuture<List<Item>> getRecommendationsAsync(User user, Duration timeout) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        return service.getRecommendationsAsync(user, timeout);
+    }
+
+    public CompletableFuture<List<Item>> getRecommendationsAsync(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        return service.getRecommendationsAsync(user);
+    }
+
     // recommendatuins for a specific User
     public List<Item> getRecommendations(User user) {
         if (user == null) {
@@ -97,39 +225,98 @@ public class AppController {
         return service.getRecommendations(user);
     }
 
+    // one page of a user's ranking, deeper than the usual result if asked for
+    public List<Item> getRecommendations(User user, int offset, int limit) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        return service.getRecommendations(user, offset, limit);
+    }
+
+    // a user's ranking, fetched pageSize items at a time as the stream is consumed
+    public Stream<Item> streamRecommendations(User user, int pageSize) {
+        if (user == null) {
+            throw new IllegalArgumentException("User cannot be null");
+        }
+        return service.streamRecommendations(user, pageSize);
+    }
+
     public void setUseMockService(boolean useMock) {
-        if (this.useMockService == useMock) {
+        setServiceType(useMock ? ServiceType.MOCK : ServiceType.HYBRID);
+    }
+
+    public void setServiceType(ServiceType type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Service type cannot be null");
+        }
+        if (this.serviceType == type) {
             return; // Already using desired service
         }
-        
-        this.useMockService = useMock;
-        
-        // Close current service if it's hybrid (has resources)
-        if (service instanceof HybridRecommendationService) {
+
+        // Create new service first, so a failed switch keeps the current one
+        RecommendationService newService = createService(type);
+
+        closeService();
+        this.service = newService;
+        this.serviceType = type;
+        EventLog.info("CONTROLLER", "Switched to {} service", type.getDisplayName().toUpperCase());
+    }
+
+    /**
+     * Readiness for the UI or a health check: false while the current service is warming up.
+     */
+    public boolean isReady() {
+        return !(service instanceof BaseRecommendationService) || ((BaseRecommendationService) service).isReady();
+    }
+
+    // completes once the current service is ready
+    public CompletableFuture<Void> whenReady() {
+        if (service instanceof BaseRecommendationService) {
+            return ((BaseRecommendationService) service).whenReady();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Close the current service: the hybrid engine worker, and JMX metrics of every service.
+    // The catalog service stays open, it is kept for switching back and as the engine fallback.
+    private void closeService() {
+        if (service != catalogService) {
+            closeQuietly(service);
+        }
+    }
+
+    private void closeQuietly(RecommendationService closing) {
+        if (closing instanceof BaseRecommendationService) {
             try {
-                ((HybridRecommendationService) service).close();
+                ((BaseRecommendationService) closing).close();
             } catch (Exception e) {
-                System.err.println("[ERROR] Failed to close hybrid service: " + e.getMessage());
+                EventLog.error("CONTROLLER", "Failed to close {}: {}", closing.getClass().getSimpleName(), e.getMessage());
             }
         }
-        
-        // Create new service
-        if (useMock) {
-            this.service = new MockRecommendationService("../shared");
-            System.out.println("[CONTROLLER] Switched to MOCK service");
-        } else {
-            this.service = new HybridRecommendationService("../shared");
-            System.out.println("[CONTROLLER] Switched to HYBRID service");
+    }
+
+    // releases the engine worker and cache files, e.g. when a server shuts down
+    public void close() {
+        closeService();
+        if (catalogService != null) {
+            closeQuietly(catalogService);
+            catalogService = null;
         }
     }
 
+    public RecommendationService getService() { return service; }
+
+    public ServiceType getServiceType() {
+        return serviceType;
+    }
+
     public boolean isUsingMockService() {
-        return useMockService;
+        return serviceType == ServiceType.MOCK;
     }
     
     public void clearCurrentUser() {
         this.currentUser = null;
-        System.out.println("[CONTROLLER] Cleared current user");
+        EventLog.info("CONTROLLER", "Cleared current user");
     }
     
     public boolean hasCurrentUser() {
@@ -137,7 +324,7 @@ public class AppController {
     }
     
     public String getServiceTypeName() {
-        return useMockService ? "Mock" : "Hybrid";
+        return serviceType.getDisplayName();
     }
     
 }
@@ -0,0 +1,24 @@
+package crossai.controller;
+
+/**
+ * Recommendation backends the controller can switch between.
+ */
+
+public enum ServiceType {
+    MOCK("Mock"),
+    HYBRID("Hybrid"),
+    CATALOG("Catalog");
+
+    private final String displayName;
+
+    ServiceType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
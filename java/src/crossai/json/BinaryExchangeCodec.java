@@ -0,0 +1,221 @@
+package crossai.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Compact binary messages for the long-lived engine worker, negotiated instead of
+ * line-delimited JSON when both sides support it.
+ *
+ * Negotiation, in JSON lines, before the first request:
+ *   client: {"hello": {"formats": ["binary/1"], "genres": ["Action", ...]}}
+ *   worker: {"format": "binary/1"}, or anything else to stay on JSON
+ * The genre list gives the bit of each genre in a genre mask, so both sides agree on
+ * masks without sharing code. A worker that doesn't know the hello answers it as a bad
+ * request, which also means JSON.
+ *
+ * After a binary answer every message, both ways, is a frame: u32 length of the rest,
+ * i64 request id, then the body (the framing is EngineWorker's, the bodies are this
+ * codec's). Big-endian, strings are u16 length + UTF-8.
+ *   request:  u8 kind=1 (single), u16 count, i32 genre mask
+ *             u8 kind=2 (batch), u16 profiles, i32 genre mask per profile
+ *   response: u8 kind=1 (items), u16 count, item...
+ *             u8 kind=2 (batch), u16 results, (u16 count, item...) per result
+ *             u8 kind=3 (error), string message
+ *   item:     i32 id, f64 rating, i32 genre mask, string title
+ * Items carry what the worker's JSON carries for the client; descriptions are left out
+ * since the ML output has none.
+ *
+ * Like ExchangeCodec, a response of kind error is reported as an IOException, and the
+ * codec holds no per-request state.
+ */
+
+public final class BinaryExchangeCodec {
+    public static final String FORMAT = "binary/1";
+
+    public static final int KIND_SINGLE = 1;
+    public static final int KIND_BATCH = 2;
+    public static final int KIND_ERROR = 3;
+
+    private static final int MAX_COUNT = 0xFFFF;
+    private static final int MAX_ERROR_LENGTH = 1000; // characters, fits a string in any encoding
+
+    // -- negotiation --
+
+    /** {"hello": {"formats": ["binary/1"], "genres": [...]}}, genres in mask bit order */
+    public void writeHello(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("hello").beginObject();
+        out.name("formats").beginArray().value(FORMAT).endArray();
+        out.name("genres").beginArray();
+        for (Genre genre : Genre.values()) {
+            out.value(genre.getDisplayName());
+        }
+        out.endArray();
+        out.endObject();
+        out.endObject();
+    }
+
+    /**
+     * Format chosen by the worker's answer to the hello.
+     *
+     * @return true for binary, false for anything else (JSON)
+     */
+    public boolean acceptsBinary(String answer) {
+        try {
+            JsonReader in = new JsonReader(new StringReader(answer));
+            in.setLenient(true);
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("format")) {
+                    return FORMAT.equals(in.nextString());
+                }
+                in.skipValue();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // not an answer to the hello
+        }
+        return false;
+    }
+
+    // -- requests --
+
+    public void writeProfileRequest(DataOutputStream out, int genreMask, int count) throws IOException {
+        out.writeByte(KIND_SINGLE);
+        out.writeShort(checkCount(count));
+        out.writeInt(genreMask);
+    }
+
+    public void writeBatchRequest(DataOutputStream out, List<User> users) throws IOException {
+        out.writeByte(KIND_BATCH);
+        out.writeShort(checkCount(users.size()));
+        for (User user : users) {
+            out.writeInt(user.getGenreMask());
+        }
+    }
+
+    // -- responses --
+
+    public void writeItems(DataOutputStream out, List<Item> items) throws IOException {
+        out.writeByte(KIND_SINGLE);
+        writeItemList(out, items);
+    }
+
+    public void writeBatchResults(DataOutputStream out, List<List<Item>> results) throws IOException {
+        out.writeByte(KIND_BATCH);
+        out.writeShort(checkCount(results.size()));
+        for (List<Item> items : results) {
+            writeItemList(out, items);
+        }
+    }
+
+    public void writeError(DataOutputStream out, String message) throws IOException {
+        String text = message == null ? "" : message;
+        out.writeByte(KIND_ERROR);
+        writeString(out, text.length() > MAX_ERROR_LENGTH ? text.substring(0, MAX_ERROR_LENGTH) : text);
+    }
+
+    /**
+     * Decode a response body of kind items.
+     *
+     * @throws IOException if the body is an error or malformed
+     */
+    public List<Item> readRecommendations(byte[] body) throws IOException {
+        DataInputStream in = open(body, KIND_SINGLE);
+        return readItemList(in);
+    }
+
+    /**
+     * Decode a response body of kind batch into one item list per requested profile.
+     *
+     * @throws IOException if the body is an error, malformed or has the wrong number of results
+     */
+    public List<List<Item>> readBatchResults(byte[] body, int expected) throws IOException {
+        DataInputStream in = open(body, KIND_BATCH);
+        int count = in.readUnsignedShort();
+        if (count != expected) {
+            throw new IOException("Expected " + expected + " results but got " + count);
+        }
+        List<List<Item>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(readItemList(in));
+        }
+        return results;
+    }
+
+    // stream over the body after checking its kind, an error body becomes the exception
+    private static DataInputStream open(byte[] body, int expectedKind) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        try {
+            int kind = in.readUnsignedByte();
+            if (kind == KIND_ERROR) {
+                throw new IOException("Engine error: " + readString(in));
+            }
+            if (kind != expectedKind) {
+                throw new IOException("Unexpected response kind " + kind);
+            }
+        } catch (EOFException e) {
+            throw new IOException("Truncated engine response", e);
+        }
+        return in;
+    }
+
+    private static void writeItemList(DataOutputStream out, List<Item> items) throws IOException {
+        out.writeShort(checkCount(items.size()));
+        for (Item item : items) {
+            out.writeInt(item.getId());
+            out.writeDouble(item.getRating());
+            out.writeInt(item.getGenreMask());
+            writeString(out, item.getTitle());
+        }
+    }
+
+    private static List<Item> readItemList(DataInputStream in) throws IOException {
+        try {
+            int count = in.readUnsignedShort();
+            List<Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                double rating = in.readDouble();
+                int genreMask = in.readInt();
+                items.add(new Item(id, readString(in), "", genreMask, rating));
+            }
+            return items;
+        } catch (EOFException e) {
+            throw new IOException("Truncated engine response", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(checkCount(bytes.length));
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checkCount(int count) {
+        if (count > MAX_COUNT) {
+            throw new IllegalArgumentException("At most " + MAX_COUNT + " entries fit in a message, got " + count);
+        }
+        return count;
+    }
+}
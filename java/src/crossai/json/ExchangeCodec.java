@@ -0,0 +1,339 @@
+package crossai.json;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Streaming codec for the documents exchanged with the C++ engine and the Python worker.
+ *
+ * Requests are written compactly with a JsonWriter and responses are decoded with a
+ * JsonReader straight into Items, so no JSON tree or whole-file String is built.
+ * Fields the client does not need are skipped without being materialized.
+ *
+ * A response carrying an "error" field (engine or worker failure) is reported as an
+ * IOException instead of an empty result, so it is never cached.
+ *
+ * The codec holds no per-request state and can be shared between threads.
+ */
+
+public final class ExchangeCodec {
+    public static final String ACTION_SINGLE = "GET_RECOMMENDATIONS";
+    public static final String ACTION_BATCH = "GET_RECOMMENDATIONS_BATCH";
+
+    private final ItemTypeAdapter itemAdapter = new ItemTypeAdapter();
+    private final UserTypeAdapter userAdapter = new UserTypeAdapter();
+
+    /**
+     * Adapter for a whole recommendation list, e.g. to store results outside the JVM.
+     */
+    public TypeAdapter<List<Item>> itemListAdapter() {
+        return new TypeAdapter<List<Item>>() {
+            @Override
+            public void write(JsonWriter out, List<Item> items) throws IOException {
+                writeItems(out, items);
+            }
+
+            @Override
+            public List<Item> read(JsonReader in) throws IOException {
+                return readItems(in);
+            }
+        };
+    }
+
+    // -- requests --
+
+    /** {"user": {...}, "action": "GET_RECOMMENDATIONS"} */
+    public void writeRequest(Writer writer, User user) throws IOException {
+        writeRequest(writer, user, 0);
+    }
+
+    /**
+     * {"user": {...}, "count": n, "action": "GET_RECOMMENDATIONS"}
+     *
+     * @param count number of recommendations wanted, 0 for the engine's default
+     */
+    public void writeRequest(Writer writer, User user, int count) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        out.beginObject();
+        out.name("user");
+        userAdapter.write(out, user);
+        if (count > 0) {
+            out.name("count").value(count);
+        }
+        out.name("action").value(ACTION_SINGLE);
+        out.endObject();
+        out.flush();
+    }
+
+    /** {"users": [{...}, ...], "action": "GET_RECOMMENDATIONS_BATCH"} */
+    public void writeBatchRequest(Writer writer, List<User> users) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        out.beginObject();
+        out.name("users").beginArray();
+        for (User user : users) {
+            userAdapter.write(out, user);
+        }
+        out.endArray();
+        out.name("action").value(ACTION_BATCH);
+        out.endObject();
+        out.flush();
+    }
+
+    /**
+     * Decode the user of a {"user": {...}, ...} request, the format writeRequest produces.
+     *
+     * @throws IOException if the document is malformed or has no user
+     */
+    public User readRequest(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        try {
+            User user = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (in.nextName().equals("user") && in.peek() == JsonToken.BEGIN_OBJECT) {
+                    user = userAdapter.read(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            if (user == null) {
+                throw new IOException("Request has no user");
+            }
+            return user;
+        } catch (IllegalStateException e) {
+            throw new IOException("Malformed request: " + e.getMessage(), e);
+        }
+    }
+
+    public void writeRequest(Path file, User user) throws IOException {
+        writeRequest(file, user, 0);
+    }
+
+    public void writeRequest(Path file, User user, int count) throws IOException {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+            writeRequest(writer, user, count);
+        }
+    }
+
+    public void writeBatchRequest(Path file, List<User> users) throws IOException {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+            writeBatchRequest(writer, users);
+        }
+    }
+
+    /** "preferredGenres": [...], the fields of a worker request for one profile */
+    public void writeProfileFields(JsonWriter out, List<Genre> genres) throws IOException {
+        out.name("preferredGenres");
+        writeGenres(out, genres);
+    }
+
+    /** "preferredGenres": [...], "n": count, a worker request for the top count movies */
+    public void writeProfileFields(JsonWriter out, List<Genre> genres, int count) throws IOException {
+        writeProfileFields(out, genres);
+        out.name("n").value(count);
+    }
+
+    /** "requests": [{"preferredGenres": [...]}, ...], the fields of a worker batch request */
+    public void writeBatchProfileFields(JsonWriter out, List<User> users) throws IOException {
+        out.name("requests").beginArray();
+        for (User user : users) {
+            out.beginObject();
+            writeProfileFields(out, user.getPreferredGenres());
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    static void writeGenres(JsonWriter out, List<Genre> genres) throws IOException {
+        out.beginArray();
+        for (Genre genre : genres) {
+            out.value(genre.getDisplayName());
+        }
+        out.endArray();
+    }
+
+    /** {"recommendations": [...], "status": "success", "message": ...} as written by the engine */
+    public void writeRecommendations(Writer writer, List<Item> items, String message) throws IOException {
+        JsonWriter out = new JsonWriter(writer);
+        out.beginObject();
+        out.name("recommendations");
+        writeItems(out, items);
+        out.name("status").value("success");
+        out.name("message").value(message);
+        out.endObject();
+        out.flush();
+    }
+
+    public void writeRecommendations(Path file, List<Item> items, String message) throws IOException {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8)) {
+            writeRecommendations(writer, items, message);
+        }
+    }
+
+    private void writeItems(JsonWriter out, List<Item> items) throws IOException {
+        out.beginArray();
+        for (Item item : items) {
+            itemAdapter.write(out, item);
+        }
+        out.endArray();
+    }
+
+    // -- responses --
+
+    /**
+     * Decode the item array stored under field of a response object.
+     * A missing or null array yields an empty list.
+     *
+     * @param reader response document
+     * @param field "recommendations" (engine) or "ml_recommendations" (worker)
+     * @return decoded items, in document order
+     * @throws IOException if the document is malformed or reports an error
+     */
+    public List<Item> readRecommendations(Reader reader, String field) throws IOException {
+        JsonReader in = newReader(reader);
+        try {
+            List<Item> items = Collections.emptyList();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals(field) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    items = readItems(in);
+                } else if (name.equals("error")) {
+                    throw engineError(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return items;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw malformed(e);
+        }
+    }
+
+    /**
+     * Decode {"results": [{field: [...]}, ...]} into one item list per requested profile.
+     *
+     * @param reader response document
+     * @param field name of the item array in each result
+     * @param expected number of profiles that were requested
+     * @return item lists, in request order
+     * @throws IOException if the document is malformed, reports an error or has the wrong size
+     */
+    public List<List<Item>> readBatchResults(Reader reader, String field, int expected) throws IOException {
+        JsonReader in = newReader(reader);
+        try {
+            List<List<Item>> results = new ArrayList<>(expected);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("results") && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        results.add(readResult(in, field));
+                    }
+                    in.endArray();
+                } else if (name.equals("error")) {
+                    throw engineError(in);
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            if (results.size() != expected) {
+                throw new IOException("Engine returned " + results.size() +
+                                      " batch results, expected " + expected);
+            }
+            return results;
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw malformed(e);
+        }
+    }
+
+    public List<Item> readRecommendations(Path file, String field) throws IOException {
+        // JsonReader buffers by itself, no BufferedReader needed on top
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return readRecommendations(reader, field);
+        }
+    }
+
+    public List<List<Item>> readBatchResults(Path file, String field, int expected) throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return readBatchResults(reader, field, expected);
+        }
+    }
+
+    public List<Item> readRecommendations(String line, String field) throws IOException {
+        return readRecommendations(new StringReader(line), field);
+    }
+
+    public List<List<Item>> readBatchResults(String line, String field, int expected) throws IOException {
+        return readBatchResults(new StringReader(line), field, expected);
+    }
+
+    private List<Item> readResult(JsonReader in, String field) throws IOException {
+        List<Item> items = Collections.emptyList();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals(field) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                items = readItems(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return items;
+    }
+
+    private List<Item> readItems(JsonReader in) throws IOException {
+        List<Item> items = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            items.add(itemAdapter.read(in));
+        }
+        in.endArray();
+        return items;
+    }
+
+    private static JsonReader newReader(Reader reader) {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true); // pandas and json.dumps write NaN for missing numbers
+        return in;
+    }
+
+    private static IOException engineError(JsonReader in) throws IOException {
+        String message = "unknown error";
+        if (in.peek() == JsonToken.STRING) {
+            message = in.nextString();
+        } else {
+            in.skipValue();
+        }
+        return new IOException("Engine reported an error: " + message);
+    }
+
+    private static IOException malformed(RuntimeException e) {
+        return new IOException("Malformed engine response: " + e.getMessage(), e);
+    }
+}
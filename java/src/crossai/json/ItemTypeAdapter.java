@@ -0,0 +1,94 @@
+package crossai.json;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+
+/**
+ * Streaming Gson adapter for Item.
+ * Reads both the engine format ("rating") and the Python ML format ("vote_average");
+ * fields the client does not use (ml_score, vote_count, ...) are skipped unparsed.
+ * Genre names are resolved to the item's genre mask while reading; unknown names are dropped.
+ */
+
+public class ItemTypeAdapter extends TypeAdapter<Item> {
+
+    @Override
+    public void write(JsonWriter out, Item item) throws IOException {
+        out.beginObject();
+        out.name("id").value(item.getId());
+        out.name("title").value(item.getTitle());
+        if (!item.getDescription().isEmpty()) {
+            out.name("description").value(item.getDescription());
+        }
+        out.name("genres").beginArray();
+        for (Genre genre : Genre.fromMask(item.getGenreMask())) {
+            out.value(genre.getDisplayName());
+        }
+        out.endArray();
+        out.name("rating").value(item.getRating());
+        out.endObject();
+    }
+
+    @Override
+    public Item read(JsonReader in) throws IOException {
+        int id = 0;
+        String title = null;
+        String description = "";
+        int genreMask = 0;
+        double rating = 0.0;
+        boolean hasRating = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    id = (int) in.nextDouble();
+                    break;
+                case "title":
+                    title = in.nextString();
+                    break;
+                case "description":
+                    description = in.nextString();
+                    break;
+                case "genres":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        Genre genre = Genre.fromString(in.nextString());
+                        if (genre != null) {
+                            genreMask |= genre.mask();
+                        }
+                    }
+                    in.endArray();
+                    break;
+                case "rating":
+                    rating = in.nextDouble();
+                    hasRating = true;
+                    break;
+                case "vote_average":
+                    // Python ML returns "vote_average", "rating" wins if both are present
+                    double voteAverage = in.nextDouble();
+                    if (!hasRating) {
+                        rating = voteAverage;
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        return new Item(id, title, description, genreMask, Double.isNaN(rating) ? 0.0 : rating);
+    }
+}
@@ -0,0 +1,72 @@
+package crossai.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.model.Genre;
+import crossai.model.User;
+
+/**
+ * Streaming Gson adapter for User, in the "user" format of input.json.
+ * Genres are written with their display names, which is what C++ and Python expect.
+ */
+
+public class UserTypeAdapter extends TypeAdapter<User> {
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        out.beginObject();
+        out.name("name").value(user.getName());
+        out.name("age").value(user.getAge());
+        out.name("preferredGenres");
+        ExchangeCodec.writeGenres(out, user.getPreferredGenres());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        String name = null;
+        int age = 0;
+        List<Genre> genres = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "age":
+                    age = in.nextInt();
+                    break;
+                case "preferredGenres":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        Genre genre = Genre.fromString(in.nextString());
+                        if (genre != null) {
+                            genres.add(genre);
+                        }
+                    }
+                    in.endArray();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        User user = new User(name, age);
+        user.addPreferredGenres(genres);
+        return user;
+    }
+}
@@ -0,0 +1,347 @@
+package crossai.load;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import crossai.controller.AppController;
+import crossai.metrics.LatencyHistogram;
+import crossai.metrics.ServiceMetrics;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.service.BaseRecommendationService;
+import crossai.service.CatalogRecommendationService;
+import crossai.service.EngineWorker;
+import crossai.service.HybridRecommendationService;
+import crossai.service.MockRecommendationService;
+import crossai.service.RecommendationService;
+import crossai.util.TaskExecutors;
+
+/**
+ * Drives a RecommendationService or an AppController with synthetic users and reports
+ * throughput, latency percentiles and cache hit rate.
+ *
+ * Closed loop: a fixed number of clients, each sending its next request as soon as the
+ * previous one is answered; shows the capacity of the service.
+ * Open loop: requests are sent at a fixed rate whatever the service does, as real
+ * users would; shows the latency at a given load. Requests that would exceed
+ * MAX_IN_FLIGHT outstanding ones are dropped and counted, and requests still unanswered
+ * when the drain timeout ends the run are counted as timed out (and failed).
+ *
+ * A request fails if it throws or returns no recommendations (the services answer
+ * errors with an empty list). Runs with the same seed send the same users in the same
+ * order per client; with StubEngine behind the hybrid service they are deterministic.
+ */
+
+public class LoadGenerator {
+    private static final int MAX_IN_FLIGHT = 10_000;
+    private static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final Function<User, List<Item>> target;
+    private final Supplier<ServiceMetrics> metrics; // null result = no cache metrics
+    private final UserPopulation population;
+    private final long seed;
+    private volatile Duration drainTimeout;
+
+    public LoadGenerator(RecommendationService service, UserPopulation population, long seed) {
+        this(service::getRecommendations, () -> metricsOf(service), population, seed);
+    }
+
+    public LoadGenerator(AppController controller, UserPopulation population, long seed) {
+        this(controller::getRecommendations, () -> metricsOf(controller.getService()), population, seed);
+    }
+
+    private LoadGenerator(Function<User, List<Item>> target, Supplier<ServiceMetrics> metrics,
+                          UserPopulation population, long seed) {
+        if (population == null) {
+            throw new IllegalArgumentException("Population cannot be null");
+        }
+        this.target = target;
+        this.metrics = metrics;
+        this.population = population;
+        this.seed = seed;
+        this.drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    }
+
+    private static ServiceMetrics metricsOf(RecommendationService service) {
+        return service instanceof BaseRecommendationService
+            ? ((BaseRecommendationService) service).getMetrics() : null;
+    }
+
+    /**
+     * Run concurrency clients back to back for the given duration.
+     */
+    public LoadReport runClosedLoop(int concurrency, Duration duration) throws InterruptedException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        checkDuration(duration);
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        CacheCounters cache = new CacheCounters(metrics.get());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        ExecutorService executor = TaskExecutors.newTaskExecutor("load-client");
+        List<Future<?>> clients = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Random random = new Random(seed + i);
+            clients.add(executor.submit(() -> {
+                while (System.nanoTime() - end < 0) {
+                    User user = population.next(random);
+                    call(user, System.nanoTime(), latencies, failures);
+                }
+            }));
+        }
+        try {
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load client failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new LoadReport("closed loop, " + concurrency + " clients", latencies, failures.sum(), 0, 0,
+                              System.nanoTime() - start, cache.hitRate());
+    }
+
+    /**
+     * Send requests at a fixed rate for the given duration, then wait for the last answers.
+     */
+    public LoadReport runOpenLoop(double requestsPerSecond, Duration duration) throws InterruptedException {
+        if (!(requestsPerSecond > 0)) {
+            throw new IllegalArgumentException("Request rate must be positive");
+        }
+        checkDuration(duration);
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        LongAdder failures = new LongAdder();
+        long dropped = 0;
+        CacheCounters cache = new CacheCounters(metrics.get());
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        Random random = new Random(seed);
+        double intervalNanos = 1e9 / requestsPerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        ExecutorService executor = TaskExecutors.newTaskExecutor("load-request");
+        for (long k = 0; ; k++) {
+            long due = start + (long) (k * intervalNanos);
+            if (due - end >= 0) {
+                break;
+            }
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (Thread.interrupted()) {
+                executor.shutdownNow();
+                throw new InterruptedException();
+            }
+
+            User user = population.next(random);
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            executor.execute(() -> {
+                try {
+                    call(user, due, latencies, failures); // timed from when it was due
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        executor.shutdown();
+        long timedOut = 0;
+        if (!executor.awaitTermination(drainTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            // answers arriving after this are not counted
+            timedOut = MAX_IN_FLIGHT - inFlight.availablePermits();
+        }
+        LoadReport report = new LoadReport(String.format("open loop, %.0f req/s", requestsPerSecond), latencies,
+                                           failures.sum(), dropped, timedOut, System.nanoTime() - start,
+                                           cache.hitRate());
+        executor.shutdownNow();
+        return report;
+    }
+
+    /**
+     * How long an open-loop run waits for the last answers once it stopped sending (default 60s).
+     */
+    public void setDrainTimeout(Duration drainTimeout) {
+        checkDuration(drainTimeout);
+        this.drainTimeout = drainTimeout;
+    }
+
+    public Duration getDrainTimeout() { return drainTimeout; }
+
+    private void call(User user, long startNanos, LatencyHistogram latencies, LongAdder failures) {
+        try {
+            List<Item> recommendations = target.apply(user);
+            if (recommendations == null || recommendations.isEmpty()) {
+                failures.increment();
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+        }
+        latencies.record(System.nanoTime() - startNanos);
+    }
+
+    private static void checkDuration(Duration duration) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive");
+        }
+    }
+
+    /**
+     * Cache hits and misses counted during one run.
+     */
+    private static final class CacheCounters {
+        private final ServiceMetrics metrics;
+        private final long hitsBefore;
+        private final long missesBefore;
+
+        CacheCounters(ServiceMetrics metrics) {
+            this.metrics = metrics;
+            this.hitsBefore = metrics == null ? 0 : metrics.getCacheHits();
+            this.missesBefore = metrics == null ? 0 : metrics.getCacheMisses();
+        }
+
+        double hitRate() {
+            if (metrics == null) {
+                return -1;
+            }
+            long hits = metrics.getCacheHits() - hitsBefore;
+            long lookups = hits + metrics.getCacheMisses() - missesBefore;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    // -- command line --
+
+    private static final String USAGE =
+        "Usage: LoadGenerator [--service mock|catalog|hybrid] [--engine stub-worker|stub-process|python]\n" +
+        "                     [--qps N | --concurrency N] [--duration SECONDS] [--seed N]\n" +
+        "                     [--profiles N] [--profile-skew S] [--name-skew S] [--age-skew S]\n" +
+        "                     [--stub-delay-ms N] [--worker-format binary|json]";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String serviceName = "mock";
+        String engine = "stub-worker";
+        double qps = 0;
+        int concurrency = 8;
+        int durationSeconds = 10;
+        long seed = 42;
+        int profiles = 200;
+        double profileSkew = 1.1;
+        double nameSkew = 1.0;
+        double ageSkew = 0.5;
+        long stubDelayMs = 0;
+        String workerFormat = "binary";
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--service": serviceName = value; break;
+                    case "--engine": engine = value; break;
+                    case "--qps": qps = Double.parseDouble(value); break;
+                    case "--concurrency": concurrency = Integer.parseInt(value); break;
+                    case "--duration": durationSeconds = Integer.parseInt(value); break;
+                    case "--seed": seed = Long.parseLong(value); break;
+                    case "--profiles": profiles = Integer.parseInt(value); break;
+                    case "--profile-skew": profileSkew = Double.parseDouble(value); break;
+                    case "--name-skew": nameSkew = Double.parseDouble(value); break;
+                    case "--age-skew": ageSkew = Double.parseDouble(value); break;
+                    case "--stub-delay-ms": stubDelayMs = Long.parseLong(value); break;
+                    case "--worker-format": workerFormat = value; break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        BaseRecommendationService service = createService(serviceName, engine, stubDelayMs, workerFormat);
+        service.setLoggingEnabled(false);
+        UserPopulation population = new UserPopulation(seed, 1000, nameSkew, ageSkew, profiles, profileSkew);
+        LoadGenerator generator = new LoadGenerator(service, population, seed);
+        Duration duration = Duration.ofSeconds(durationSeconds);
+
+        try {
+            LoadReport report = qps > 0 ? generator.runOpenLoop(qps, duration)
+                                        : generator.runClosedLoop(concurrency, duration);
+            System.out.println(service.getClass().getSimpleName() + " " + report);
+        } finally {
+            if (service instanceof HybridRecommendationService) {
+                ((HybridRecommendationService) service).close();
+            }
+        }
+    }
+
+    private static BaseRecommendationService createService(String name, String engine, long stubDelayMs,
+                                                           String workerFormat) {
+        if (!workerFormat.equals("binary") && !workerFormat.equals("json")) {
+            throw new IllegalArgumentException("Unknown worker format " + workerFormat);
+        }
+        switch (name) {
+            case "mock":
+                return new MockRecommendationService("../shared");
+            case "catalog":
+                return new CatalogRecommendationService("../shared");
+            case "hybrid":
+                switch (engine) {
+                    case "stub-worker":
+                        EngineWorker stub = new EngineWorker(stubCommand(stubDelayMs, "--serve"), null);
+                        stub.setBinaryEnabled(workerFormat.equals("binary"));
+                        return new HybridRecommendationService("../shared", stub);
+                    case "stub-process":
+                        HybridRecommendationService hybrid = new HybridRecommendationService("../shared");
+                        hybrid.setEngineCommand(stubCommand(stubDelayMs));
+                        return hybrid;
+                    case "python":
+                        EngineWorker python = EngineWorker.forPythonModel();
+                        python.setBinaryEnabled(workerFormat.equals("binary"));
+                        return new HybridRecommendationService("../shared", python);
+                    default:
+                        throw new IllegalArgumentException("Unknown engine " + engine);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown service " + name);
+        }
+    }
+
+    // StubEngine on this JVM's java and class path
+    static List<String> stubCommand(long delayMs, String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StubEngine.class.getName());
+        command.add("--delay-ms");
+        command.add(Long.toString(delayMs));
+        command.addAll(List.of(arguments));
+        return command;
+    }
+}
@@ -0,0 +1,72 @@
+package crossai.load;
+
+import crossai.metrics.LatencyHistogram;
+
+/**
+ * Outcome of one load run: throughput, latency percentiles and cache hit rate.
+ *
+ * Latencies of an open-loop run are measured from the moment a request was due, not
+ * from when it was actually sent, so a stalled service shows up in the percentiles
+ * instead of silently lowering the request rate. Requests still unanswered when the run
+ * stopped waiting are counted as sent and failed, and as timed out, but have no latency.
+ */
+
+public class LoadReport {
+    private final String mode;
+    private final long requests;
+    private final long failures;
+    private final long dropped;
+    private final long timedOut;
+    private final double elapsedSeconds;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final double cacheHitRate; // -1 = the target has no cache metrics
+
+    LoadReport(String mode, LatencyHistogram latencies, long failures, long dropped, long timedOut,
+               long elapsedNanos, double cacheHitRate) {
+        this.mode = mode;
+        this.requests = latencies.getCount() + timedOut;
+        this.failures = failures + timedOut;
+        this.dropped = dropped;
+        this.timedOut = timedOut;
+        this.elapsedSeconds = elapsedNanos / 1e9;
+        this.meanMillis = latencies.getMeanNanos() / 1e6;
+        this.p50Millis = latencies.getValueAtPercentile(50) / 1e6;
+        this.p95Millis = latencies.getValueAtPercentile(95) / 1e6;
+        this.p99Millis = latencies.getValueAtPercentile(99) / 1e6;
+        this.maxMillis = latencies.getMaxNanos() / 1e6;
+        this.cacheHitRate = cacheHitRate;
+    }
+
+    public String getMode() { return mode; }
+    public long getRequests() { return requests; }
+    public long getFailures() { return failures; }
+    public long getDropped() { return dropped; }
+    public long getTimedOut() { return timedOut; }
+    public double getElapsedSeconds() { return elapsedSeconds; }
+    public double getMeanMillis() { return meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP95Millis() { return p95Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getMaxMillis() { return maxMillis; }
+    public double getCacheHitRate() { return cacheHitRate; }
+
+    // completed requests per second
+    public double getThroughput() {
+        return elapsedSeconds == 0 ? 0.0 : (requests - timedOut) / elapsedSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: %d requests in %.1fs (%.1f req/s), %d failed (%d timed out), %d dropped%n" +
+            "  latency mean=%.3fms p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms%n" +
+            "  cache hit rate %s",
+            mode, requests, elapsedSeconds, getThroughput(), failures, timedOut, dropped,
+            meanMillis, p50Millis, p95Millis, p99Millis, maxMillis,
+            cacheHitRate < 0 ? "n/a" : String.format("%.1f%%", cacheHitRate * 100));
+    }
+}
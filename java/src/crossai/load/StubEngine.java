@@ -0,0 +1,349 @@
+package crossai.load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.json.BinaryExchangeCodec;
+import crossai.json.ExchangeCodec;
+import crossai.model.Genre;
+import crossai.model.Item;
+
+/**
+ * Stand-in for the C++ engine and the Python worker, for deterministic load runs.
+ *
+ * Answers every genre profile with the same RECOMMENDATION_COUNT made-up items (or as
+ * many as a paged request asks for), derived from the profile's genre mask only, after
+ * an optional fixed delay. No catalog, model
+ * or randomness is involved, so runs can be compared with each other.
+ *
+ *   StubEngine [--delay-ms N] [--fail] <input.json> <output.json> [ml_input ml_output]
+ *       one run per request, like the C++ engine (see HybridRecommendationService.setEngineCommand)
+ *   StubEngine [--delay-ms N] [--fail] [--json] --serve
+ *       line-delimited JSON or negotiated binary frames on stdin/stdout, like
+ *       model.py --serve (see EngineWorker); --json declines binary like an older worker
+ *
+ * With --fail every request fails the way a broken engine does: a run exits 0 without
+ * writing its output, and a worker answers with an error response.
+ */
+
+public final class StubEngine {
+    public static final int RECOMMENDATION_COUNT = 10;
+
+    private static final ExchangeCodec CODEC = new ExchangeCodec();
+    private static final BinaryExchangeCodec BINARY = new BinaryExchangeCodec();
+    private static final TypeAdapter<List<Item>> ITEMS = CODEC.itemListAdapter();
+
+    private StubEngine() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long delayMs = 0;
+        boolean jsonOnly = false;
+        boolean failing = false;
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--delay-ms") && i + 1 < args.length) {
+                delayMs = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--json")) {
+                jsonOnly = true;
+            } else if (args[i].equals("--fail")) {
+                failing = true;
+            } else {
+                arguments.add(args[i]);
+            }
+        }
+
+        if (!arguments.isEmpty() && arguments.get(0).equals("--serve")) {
+            serve(delayMs, jsonOnly, failing);
+        } else if (arguments.size() >= 2) {
+            runOnce(Paths.get(arguments.get(0)), Paths.get(arguments.get(1)), delayMs, failing);
+        } else {
+            System.err.println("Usage: StubEngine [--delay-ms N] [--fail] ([--json] --serve | <input.json> <output.json>)");
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Items answered for a genre profile, the same on every call.
+     */
+    public static List<Item> recommendationsFor(int genreMask) {
+        return recommendationsFor(genreMask, RECOMMENDATION_COUNT);
+    }
+
+    // the first count items of the profile's made-up ranking
+    public static List<Item> recommendationsFor(int genreMask, int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = genreMask * RECOMMENDATION_COUNT + i;
+            items.add(new Item(id, "Stub Movie " + id, "", genreMask, 9.0 - i * 0.25));
+        }
+        return items;
+    }
+
+    // -- one run per request --
+
+    private static void runOnce(Path input, Path output, long delayMs, boolean failing)
+            throws IOException, InterruptedException {
+        List<Integer> profiles = new ArrayList<>();
+        int count = RECOMMENDATION_COUNT;
+        boolean batch = false;
+        try (Reader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            JsonReader in = new JsonReader(reader);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("user")) {
+                    profiles.add(readProfile(in));
+                } else if (name.equals("count")) {
+                    count = in.nextInt();
+                } else if (name.equals("users")) {
+                    batch = true;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        profiles.add(readProfile(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+        }
+        sleep(delayMs);
+        if (failing) {
+            return;
+        }
+
+        if (!batch) {
+            int mask = profiles.isEmpty() ? 0 : profiles.get(0);
+            CODEC.writeRecommendations(output, recommendationsFor(mask, count), "Stub engine");
+            return;
+        }
+        try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            JsonWriter out = new JsonWriter(writer);
+            out.beginObject();
+            writeResults(out, profiles, "recommendations");
+            out.name("status").value("success");
+            out.endObject();
+            out.flush();
+        }
+    }
+
+    // -- long-lived worker --
+
+    private static void serve(long delayMs, boolean jsonOnly, boolean failing) throws IOException, InterruptedException {
+        DataInputStream stdin = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream stdout = new DataOutputStream(new BufferedOutputStream(System.out));
+        String line;
+        while ((line = readLine(stdin)) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (isHello(line)) {
+                writeLine(stdout, "{\"format\":\"" + (jsonOnly ? "json" : BinaryExchangeCodec.FORMAT) + "\"}");
+                stdout.flush();
+                if (!jsonOnly) {
+                    serveFrames(stdin, stdout, delayMs, failing);
+                    return;
+                }
+                continue;
+            }
+            sleep(delayMs);
+            writeLine(stdout, respond(line, failing));
+            stdout.flush();
+        }
+    }
+
+    // binary frames after the hello: u32 length, i64 id, body
+    private static void serveFrames(DataInputStream stdin, DataOutputStream stdout, long delayMs, boolean failing)
+            throws IOException, InterruptedException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(1024);
+        DataOutputStream frameOut = new DataOutputStream(frame);
+        while (true) {
+            int length;
+            try {
+                length = stdin.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            long id = stdin.readLong();
+            byte[] body = new byte[length - Long.BYTES];
+            stdin.readFully(body);
+            sleep(delayMs);
+
+            frame.reset();
+            frameOut.writeLong(id);
+            if (failing) {
+                BINARY.writeError(frameOut, "Stub engine failing");
+            } else {
+                respond(new DataInputStream(new ByteArrayInputStream(body)), frameOut);
+            }
+            frameOut.flush();
+            stdout.writeInt(frame.size());
+            frame.writeTo(stdout);
+            stdout.flush();
+        }
+    }
+
+    private static void respond(DataInputStream request, DataOutputStream out) throws IOException {
+        int kind = request.readUnsignedByte();
+        if (kind == BinaryExchangeCodec.KIND_SINGLE) {
+            int count = request.readUnsignedShort();
+            BINARY.writeItems(out, recommendationsFor(request.readInt(), count));
+        } else if (kind == BinaryExchangeCodec.KIND_BATCH) {
+            int profiles = request.readUnsignedShort();
+            List<List<Item>> results = new ArrayList<>(profiles);
+            for (int i = 0; i < profiles; i++) {
+                results.add(recommendationsFor(request.readInt()));
+            }
+            BINARY.writeBatchResults(out, results);
+        } else {
+            BINARY.writeError(out, "Unknown request kind " + kind);
+        }
+    }
+
+    private static String respond(String line, boolean failing) throws IOException {
+        long id = -1;
+        int count = RECOMMENDATION_COUNT;
+        Integer single = null;
+        List<Integer> profiles = null;
+
+        JsonReader in = new JsonReader(new StringReader(line));
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals("id")) {
+                id = in.nextLong();
+            } else if (name.equals("n")) {
+                count = in.nextInt();
+            } else if (name.equals("preferredGenres")) {
+                single = readGenres(in);
+            } else if (name.equals("requests")) {
+                profiles = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    profiles.add(readProfile(in));
+                }
+                in.endArray();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+
+        StringWriter response = new StringWriter();
+        JsonWriter out = new JsonWriter(response);
+        out.beginObject();
+        out.name("id").value(id);
+        if (failing) {
+            out.name("error").value("Stub engine failing");
+        } else if (profiles != null) {
+            writeResults(out, profiles, "ml_recommendations");
+        } else {
+            out.name("ml_recommendations");
+            ITEMS.write(out, recommendationsFor(single == null ? 0 : single, count));
+            out.name("count").value(count);
+        }
+        out.endObject();
+        out.flush();
+        return response.toString();
+    }
+
+    // -- helpers --
+
+    private static boolean isHello(String line) throws IOException {
+        JsonReader in = new JsonReader(new StringReader(line));
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("hello")) {
+                return true;
+            }
+            in.skipValue();
+        }
+        return false;
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void writeLine(DataOutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private static void writeResults(JsonWriter out, List<Integer> profiles, String field) throws IOException {
+        out.name("results").beginArray();
+        for (int mask : profiles) {
+            out.beginObject();
+            out.name(field);
+            ITEMS.write(out, recommendationsFor(mask));
+            out.endObject();
+        }
+        out.endArray();
+    }
+
+    // genre mask of a {"preferredGenres": [...], ...} object
+    private static int readProfile(JsonReader in) throws IOException {
+        int mask = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextName().equals("preferredGenres")) {
+                mask = readGenres(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        return mask;
+    }
+
+    private static int readGenres(JsonReader in) throws IOException {
+        int mask = 0;
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return mask;
+        }
+        in.beginArray();
+        while (in.hasNext()) {
+            Genre genre = Genre.fromString(in.nextString());
+            if (genre != null) {
+                mask |= genre.mask();
+            }
+        }
+        in.endArray();
+        return mask;
+    }
+
+    private static void sleep(long delayMs) throws InterruptedException {
+        if (delayMs > 0) {
+            Thread.sleep(delayMs);
+        }
+    }
+}
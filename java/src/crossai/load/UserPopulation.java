@@ -0,0 +1,113 @@
+package crossai.load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import crossai.model.Genre;
+import crossai.model.User;
+
+/**
+ * Synthetic users for load runs: names, ages and genre profiles drawn from Zipf
+ * distributions, so a few of each are very common and the rest form a long tail.
+ *
+ * The population itself (which name, age and profile has which popularity rank) is
+ * fixed by the seed; draws then depend only on the Random passed to next(). Profiles
+ * combine one to MAX_PROFILE_GENRES genres, the number of genres a cache key sees.
+ */
+
+public class UserPopulation {
+    public static final int MIN_AGE = 13;
+    public static final int MAX_AGE = 80;
+    public static final int MAX_PROFILE_GENRES = 3;
+
+    private final String[] names;
+    private final int[] ages;
+    private final int[] profiles; // genre masks, most popular first
+    private final ZipfDistribution nameDistribution;
+    private final ZipfDistribution ageDistribution;
+    private final ZipfDistribution profileDistribution;
+
+    // 1000 names, 200 profiles, skews typical of user-facing traffic
+    public UserPopulation(long seed) {
+        this(seed, 1000, 1.0, 0.5, 200, 1.1);
+    }
+
+    /**
+     * @param seed fixes which values are popular
+     * @param nameCount number of distinct user names
+     * @param nameSkew Zipf exponent of names
+     * @param ageSkew Zipf exponent of ages between MIN_AGE and MAX_AGE
+     * @param profileCount number of distinct genre profiles
+     * @param profileSkew Zipf exponent of genre profiles
+     */
+    public UserPopulation(long seed, int nameCount, double nameSkew, double ageSkew,
+                          int profileCount, double profileSkew) {
+        if (nameCount < 1 || profileCount < 1) {
+            throw new IllegalArgumentException("Name and profile counts must be at least 1");
+        }
+        int possibleProfiles = countProfiles(Genre.values().length, MAX_PROFILE_GENRES);
+        if (profileCount > possibleProfiles) {
+            throw new IllegalArgumentException("At most " + possibleProfiles + " distinct profiles exist");
+        }
+        Random random = new Random(seed);
+
+        this.names = new String[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            names[i] = "user-" + i;
+        }
+
+        List<Integer> ageOrder = new ArrayList<>();
+        for (int age = MIN_AGE; age <= MAX_AGE; age++) {
+            ageOrder.add(age);
+        }
+        Collections.shuffle(ageOrder, random);
+        this.ages = ageOrder.stream().mapToInt(Integer::intValue).toArray();
+
+        this.profiles = randomProfiles(profileCount, random);
+        this.nameDistribution = new ZipfDistribution(nameCount, nameSkew);
+        this.ageDistribution = new ZipfDistribution(ages.length, ageSkew);
+        this.profileDistribution = new ZipfDistribution(profileCount, profileSkew);
+    }
+
+    // distinct genre masks of 1..MAX_PROFILE_GENRES genres, in random popularity order
+    private static int[] randomProfiles(int count, Random random) {
+        Genre[] genres = Genre.values();
+        Set<Integer> masks = new LinkedHashSet<>();
+        while (masks.size() < count) {
+            int size = 1 + random.nextInt(MAX_PROFILE_GENRES);
+            int mask = 0;
+            while (Integer.bitCount(mask) < size) {
+                mask |= genres[random.nextInt(genres.length)].mask();
+            }
+            masks.add(mask);
+        }
+        return masks.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // sum of C(n, k) for k = 1..maxK
+    private static int countProfiles(int n, int maxK) {
+        int total = 0;
+        long combinations = 1;
+        for (int k = 1; k <= maxK; k++) {
+            combinations = combinations * (n - k + 1) / k;
+            total += (int) combinations;
+        }
+        return total;
+    }
+
+    // a new user drawn from the population
+    public User next(Random random) {
+        User user = new User(names[nameDistribution.sample(random)], ages[ageDistribution.sample(random)]);
+        user.addPreferredGenres(Genre.fromMask(profiles[profileDistribution.sample(random)]));
+        return user;
+    }
+
+    // genre mask of the profile with the given popularity rank
+    public int getProfile(int rank) { return profiles[rank]; }
+    public int getProfileCount() { return profiles.length; }
+    public int getNameCount() { return names.length; }
+}
@@ -0,0 +1,52 @@
+package crossai.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over the ranks 0..size-1: rank r is drawn with probability
+ * proportional to 1 / (r + 1)^exponent.
+ *
+ * An exponent of 0 is uniform; around 1 a few ranks take most of the draws, as with
+ * popular genre profiles. Sampling is a binary search in the precomputed cumulative
+ * weights, O(log size) without allocation.
+ */
+
+public final class ZipfDistribution {
+    private final double[] cumulative;
+    private final double exponent;
+
+    public ZipfDistribution(int size, double exponent) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be at least 1");
+        }
+        if (exponent < 0 || Double.isNaN(exponent)) {
+            throw new IllegalArgumentException("Exponent cannot be negative");
+        }
+        this.exponent = exponent;
+        this.cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+    }
+
+    // a rank between 0 (most likely) and size - 1
+    public int sample(Random random) {
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, target);
+        // not found gives -(insertion point) - 1, the first rank whose cumulative weight exceeds target
+        int rank = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    // probability of drawing a rank
+    public double probability(int rank) {
+        double previous = rank == 0 ? 0 : cumulative[rank - 1];
+        return (cumulative[rank] - previous) / cumulative[cumulative.length - 1];
+    }
+
+    public int size() { return cumulative.length; }
+    public double getExponent() { return exponent; }
+}
@@ -0,0 +1,55 @@
+package crossai.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time summary of a LatencyHistogram, in milliseconds.
+ * Shown as composite data by JMX clients such as JConsole.
+ */
+
+public class LatencySnapshot {
+    private final long count;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double p999Millis;
+    private final double maxMillis;
+
+    @ConstructorProperties({ "count", "meanMillis", "p50Millis", "p90Millis", "p99Millis", "p999Millis", "maxMillis" })
+    public LatencySnapshot(long count, double meanMillis, double p50Millis, double p90Millis,
+                           double p99Millis, double p999Millis, double maxMillis) {
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.p999Millis = p999Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    public static LatencySnapshot of(LatencyHistogram histogram) {
+        return new LatencySnapshot(
+            histogram.getCount(),
+            histogram.getMeanNanos() / 1e6,
+            histogram.getValueAtPercentile(50) / 1e6,
+            histogram.getValueAtPercentile(90) / 1e6,
+            histogram.getValueAtPercentile(99) / 1e6,
+            histogram.getValueAtPercentile(99.9) / 1e6,
+            histogram.getMaxNanos() / 1e6);
+    }
+
+    public long getCount() { return count; }
+    public double getMeanMillis() { return meanMillis; }
+    public double getP50Millis() { return p50Millis; }
+    public double getP90Millis() { return p90Millis; }
+    public double getP99Millis() { return p99Millis; }
+    public double getP999Millis() { return p999Millis; }
+    public double getMaxMillis() { return maxMillis; }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+                             count, meanMillis, p50Millis, p90Millis, p99Millis, p999Millis, maxMillis);
+    }
+}
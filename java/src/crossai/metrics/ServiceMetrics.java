@@ -0,0 +1,264 @@
+package crossai.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import crossai.util.Cache;
+import crossai.util.CircuitBreaker;
+import crossai.util.EventLog;
+
+/**
+ * Latency histograms and counters of one recommendation service.
+ *
+ * Stages are timed with record(stage, startNanos), where startNanos comes from
+ * System.nanoTime() taken before the stage. Cache counters are read from the
+ * service's Cache, engine counters are reported by the service.
+ */
+
+public class ServiceMetrics implements ServiceMetricsMXBean {
+    private static final AtomicInteger NEXT_INSTANCE = new AtomicInteger();
+
+    private final String serviceName;
+    private final int instance; // tells services of the same class apart in JMX
+    private final Cache<?> cache;
+    private final Map<Stage, LatencyHistogram> stages;
+    private final LongAdder engineRuns;
+    private final LongAdder engineFailures;
+    private final LongAdder coalescedRequests;
+    private final LongAdder persistentHits;
+    private final LongAdder invalidations;
+    private final LongAdder engineTimeouts;
+    private final LongAdder fallbacks;
+    private final ConcurrentMap<Integer, LongAdder> exitCodes;
+
+    // cache counters can't be reset, reset() remembers where they were instead
+    private volatile long hitsAtReset;
+    private volatile long missesAtReset;
+    private volatile long evictionsAtReset;
+
+    private ObjectName objectName;
+    private volatile CircuitBreaker engineBreaker; // null if the service has none
+    private volatile BooleanSupplier readiness = () -> true;
+
+    public ServiceMetrics(String serviceName, Cache<?> cache) {
+        this.serviceName = serviceName;
+        this.instance = NEXT_INSTANCE.incrementAndGet();
+        this.cache = cache;
+        this.stages = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+        this.engineRuns = new LongAdder();
+        this.engineFailures = new LongAdder();
+        this.coalescedRequests = new LongAdder();
+        this.persistentHits = new LongAdder();
+        this.invalidations = new LongAdder();
+        this.engineTimeouts = new LongAdder();
+        this.fallbacks = new LongAdder();
+        this.exitCodes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Publish these metrics on the platform MBean server, as
+     * crossai:type=RecommendationService,name=<service>,instance=<n>.
+     * Every instance has a name of its own, so registering or unregistering one
+     * never touches another service's metrics.
+     */
+    public synchronized void register() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("crossai:type=RecommendationService,name=" + serviceName
+                                             + ",instance=" + instance);
+            server.registerMBean(this, name);
+            objectName = name;
+        } catch (JMException e) {
+            EventLog.warn("METRICS", "Could not register metrics for {}: {}", serviceName, e.getMessage());
+        }
+    }
+
+    // name of the registration, null while unregistered
+    public synchronized ObjectName getObjectName() { return objectName; }
+
+    // removes this instance's registration only, which lets the MBean server release it
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // already gone
+        }
+        objectName = null;
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos);
+    }
+
+    // an engine run (process or worker request) finished with this exit code, 0 = success
+    public void recordEngineExit(int exitCode) {
+        engineRuns.increment();
+        exitCodes.computeIfAbsent(exitCode, code -> new LongAdder()).increment();
+        if (exitCode != 0) {
+            engineFailures.increment();
+        }
+    }
+
+    // a worker request succeeded, workers have no exit code per request
+    public void recordEngineSuccess() {
+        engineRuns.increment();
+    }
+
+    // an engine run failed without an exit code (not started, worker error, timeout)
+    public void recordEngineFailure() {
+        engineRuns.increment();
+        engineFailures.increment();
+    }
+
+    // a request waited for an identical request already in flight
+    public void recordCoalesced() {
+        coalescedRequests.increment();
+    }
+
+    // a memory cache miss was answered from the persistent cache
+    public void recordPersistentHit() {
+        persistentHits.increment();
+    }
+
+    // an engine run was killed at its deadline (also counted as a failure)
+    public void recordEngineTimeout() {
+        engineTimeouts.increment();
+    }
+
+    // a request was answered by a fallback instead of the engine
+    public void recordFallback() {
+        fallbacks.increment();
+    }
+
+    public void setEngineCircuitBreaker(CircuitBreaker breaker) {
+        this.engineBreaker = breaker;
+    }
+
+    // false while the service is warming up
+    public void setReadiness(BooleanSupplier readiness) {
+        this.readiness = readiness;
+    }
+
+    // cached results were invalidated because a dependency changed
+    public void recordInvalidation() {
+        invalidations.increment();
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return stages.get(stage);
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getStageLatencies() {
+        Map<String, LatencySnapshot> result = new LinkedHashMap<>();
+        for (Map.Entry<Stage, LatencyHistogram> entry : stages.entrySet()) {
+            result.put(entry.getKey().getDisplayName(), LatencySnapshot.of(entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public long getCacheHits() { return cache.getHitCount() - hitsAtReset; }
+
+    @Override
+    public long getCacheMisses() { return cache.getMissCount() - missesAtReset; }
+
+    @Override
+    public long getCacheEvictions() { return cache.getEvictionCount() - evictionsAtReset; }
+
+    @Override
+    public double getCacheHitRate() {
+        long hits = getCacheHits();
+        long lookups = hits + getCacheMisses();
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public long getCacheSize() { return cache.size(); }
+
+    @Override
+    public long getCacheWeight() { return cache.getWeight(); }
+
+    @Override
+    public long getPersistentCacheHits() { return persistentHits.sum(); }
+
+    @Override
+    public long getCacheInvalidations() { return invalidations.sum(); }
+
+    @Override
+    public long getCoalescedRequests() { return coalescedRequests.sum(); }
+
+    @Override
+    public long getEngineRuns() { return engineRuns.sum(); }
+
+    @Override
+    public long getEngineFailures() { return engineFailures.sum(); }
+
+    @Override
+    public long getEngineTimeouts() { return engineTimeouts.sum(); }
+
+    @Override
+    public long getFallbacks() { return fallbacks.sum(); }
+
+    @Override
+    public boolean isReady() {
+        return readiness.getAsBoolean();
+    }
+
+    @Override
+    public String getEngineCircuitState() {
+        CircuitBreaker breaker = engineBreaker;
+        return breaker == null ? "NONE" : breaker.getState().name();
+    }
+
+    @Override
+    public Map<Integer, Long> getEngineExitCodes() {
+        Map<Integer, Long> result = new TreeMap<>();
+        exitCodes.forEach((code, count) -> result.put(code, count.sum()));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : stages.values()) {
+            histogram.reset();
+        }
+        hitsAtReset = cache.getHitCount();
+        missesAtReset = cache.getMissCount();
+        evictionsAtReset = cache.getEvictionCount();
+        engineRuns.reset();
+        engineFailures.reset();
+        coalescedRequests.reset();
+        persistentHits.reset();
+        invalidations.reset();
+        engineTimeouts.reset();
+        fallbacks.reset();
+        exitCodes.clear();
+    }
+
+    public String getServiceName() { return serviceName; }
+}
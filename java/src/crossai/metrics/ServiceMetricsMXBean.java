@@ -0,0 +1,48 @@
+package crossai.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of one recommendation service, registered as
+ * crossai:type=RecommendationService,name=<service class>,instance=<n>.
+ */
+
+public interface ServiceMetricsMXBean {
+
+    // latency of every stage, keyed by Stage display name
+    Map<String, LatencySnapshot> getStageLatencies();
+
+    long getCacheHits();
+    long getCacheMisses();
+    long getCacheEvictions();
+    double getCacheHitRate();
+    long getCacheSize();
+    long getCacheWeight();
+
+    // memory misses answered from the on-disk cache (they also count as cache misses)
+    long getPersistentCacheHits();
+
+    // times a changed catalog or engine made every cached result stale
+    long getCacheInvalidations();
+
+    // requests that waited for an identical request in flight instead of running the engine
+    long getCoalescedRequests();
+
+    long getEngineRuns();
+    long getEngineFailures();
+    long getEngineTimeouts();
+
+    // requests answered from the last good result or the in-JVM recommender
+    long getFallbacks();
+
+    // false while the service is warming its cache up
+    boolean isReady();
+
+    // CLOSED, OPEN or HALF_OPEN; NONE for services that don't run an engine
+    String getEngineCircuitState();
+
+    // exit code -> number of engine runs that ended with it
+    Map<Integer, Long> getEngineExitCodes();
+
+    void reset();
+}
@@ -0,0 +1,24 @@
+package crossai.metrics;
+
+/**
+ * Steps of a recommendation request that are timed separately.
+ */
+
+public enum Stage {
+    VALIDATE("validate"),
+    CACHE_LOOKUP("cacheLookup"),
+    WRITE_INPUT("writeInput"),   // writing the exchange file
+    ENGINE("engine"),            // engine spawn and run, worker round trip or in-JVM scoring
+    READ_OUTPUT("readOutput"),   // streaming the output file into Items
+    PARSE("parse");              // decoding a worker response line into Items
+
+    private final String displayName;
+
+    Stage(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
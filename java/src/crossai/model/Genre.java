@@ -1,5 +1,12 @@
 package crossai.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Enumeration of movie genres from TMDB (The Movie Database).
  * These genres match the official TMDB genre list used in the Kaggle dataset.
@@ -28,6 +35,27 @@ public enum Genre {
     WAR("War"),
     WESTERN("Western");
     
+    private static final Genre[] VALUES = values();
+    
+    // every accepted spelling, both as written and lower-cased
+    private static final Map<String, Genre> LOOKUP = new HashMap<>();
+    
+    static {
+        for (Genre genre : VALUES) {
+            register(genre.displayName, genre);             // "Science Fiction"
+            register(genre.name(), genre);                  // "SCIENCE_FICTION"
+            register(genre.name().replace('_', ' '), genre); // "SCIENCE FICTION"
+        }
+        // common variations
+        register("Sci-Fi", SCIENCE_FICTION);
+        register("SciFi", SCIENCE_FICTION);
+    }
+    
+    private static void register(String name, Genre genre) {
+        LOOKUP.put(name, genre);
+        LOOKUP.put(name.toLowerCase(Locale.ROOT), genre);
+    }
+    
     private final String displayName;
     
     Genre(String displayName) {
@@ -36,35 +64,54 @@ public enum Genre {
     
     public String getDisplayName() { return displayName; }
     
+    // single bit of this genre in a genre mask (19 genres fit in an int)
+    public int mask() { return 1 << ordinal(); }
+    
+    /**
+     * Build a bitmask with one bit per genre.
+     * The same set of genres always gives the same mask, whatever the order.
+     */
+    public static int maskOf(Collection<Genre> genres) {
+        int mask = 0;
+        for (Genre genre : genres) {
+            mask |= genre.mask();
+        }
+        return mask;
+    }
+    
+    // genres of a bitmask, in enum order
+    public static List<Genre> fromMask(int mask) {
+        List<Genre> genres = new ArrayList<>(Integer.bitCount(mask));
+        for (int g = 0; g < VALUES.length; g++) {
+            if ((mask & (1 << g)) != 0) {
+                genres.add(VALUES[g]);
+            }
+        }
+        return genres;
+    }
+    
     /**
      * Parse a string to a Genre enum. (needed for json later on)
-     * Case-insensitive matching against both enum name and display name.
+     * Case-insensitive matching against display name, enum name and "Sci-Fi"/"SciFi",
+     * through a precomputed table: exact spellings need no allocation at all.
      */
 
     public static Genre fromString(String genreString) {
-        if (genreString == null || genreString.trim().isEmpty()) {
+        if (genreString == null) {
             return null;
         }
         
-        String normalized = genreString.trim();
+        Genre genre = LOOKUP.get(genreString);
+        if (genre != null) {
+            return genre;
+        }
         
-        for (Genre genre : Genre.values()) {
-            // Match against display name (e.g., "Science Fiction")
-            if (genre.displayName.equalsIgnoreCase(normalized)) {
-                return genre;
-            }
-            // Match against enum name (e.g., "SCIENCE_FICTION")
-            if (genre.name().equalsIgnoreCase(normalized)) {
-                return genre;
-            }
-            // Handle common variations
-            if (genre == SCIENCE_FICTION && 
-                (normalized.equalsIgnoreCase("Sci-Fi") || 
-                 normalized.equalsIgnoreCase("SciFi"))) {
-                return genre;
-            }
+        String normalized = genreString.trim();
+        if (normalized.isEmpty()) {
+            return null;
         }
-        return null;
+        genre = LOOKUP.get(normalized);
+        return genre != null ? genre : LOOKUP.get(normalized.toLowerCase(Locale.ROOT));
     }
     
     @Override
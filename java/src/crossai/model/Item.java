@@ -1,24 +1,27 @@
 package crossai.model;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Represents an item (movie) in the recommendation system.
  * This class holds information about a recommendable item including
  * genres and rating from the ML/C++ recommendation engine.
+ *
+ * Genres are kept as a bitmask (see Genre.mask()), so an item stores one int
+ * instead of a list of strings and genre matching is a bitwise AND.
  */
 public class Item {
     private int id;
     private String title;
     private String description;
-    private List<String> genres;
+    private int genreMask;
     private double rating;
 
     // Full constructor
-    public Item(int id, String title, String description, List<String> genres, double rating) {
+    public Item(int id, String title, String description, int genreMask, double rating) {
         if (title == null || title.trim().isEmpty()) {
             throw new IllegalArgumentException("Title cannot be null or empty");
         }
@@ -26,18 +29,23 @@ public class Item {
         this.id = id;
         this.title = title;
         this.description = description != null ? description : "";
-        this.genres = genres != null ? new ArrayList<>(genres) : new ArrayList<>();
+        this.genreMask = genreMask;
         this.rating = rating;
     }
 
+    // Full constructor with a genre collection
+    public Item(int id, String title, String description, Collection<Genre> genres, double rating) {
+        this(id, title, description, genres != null ? Genre.maskOf(genres) : 0, rating);
+    }
+
     // Constructor without genres and rating (for backward compatibility)
     public Item(int id, String title, String description) {
-        this(id, title, description, new ArrayList<>(), 0.0);
+        this(id, title, description, 0, 0.0);
     }
 
     // Constructor with only id and title (for backward compatibility)
     public Item(int id, String title) {
-        this(id, title, "", new ArrayList<>(), 0.0);
+        this(id, title, "", 0, 0.0);
     }
 
     // Getters
@@ -53,8 +61,28 @@ public class Item {
         return description; 
     }
     
-    public List<String> getGenres() { 
-        return Collections.unmodifiableList(genres); 
+    // new set on every call, in enum order
+    public Set<Genre> getGenres() { 
+        EnumSet<Genre> genres = EnumSet.noneOf(Genre.class);
+        for (Genre genre : Genre.values()) {
+            if (hasGenre(genre)) {
+                genres.add(genre);
+            }
+        }
+        return genres;
+    }
+    
+    public int getGenreMask() {
+        return genreMask;
+    }
+    
+    public boolean hasGenre(Genre genre) {
+        return (genreMask & genre.mask()) != 0;
+    }
+    
+    // true if the item has at least one of the genres in the mask
+    public boolean matchesAny(int mask) {
+        return (genreMask & mask) != 0;
     }
     
     public double getRating() { 
@@ -63,10 +91,17 @@ public class Item {
     
     // Helper method to get genres as a formatted string
     public String getGenresAsString() {
-        if (genres.isEmpty()) {
+        if (genreMask == 0) {
             return "Unknown";
         }
-        return String.join(", ", genres);
+        StringBuilder result = new StringBuilder();
+        for (Genre genre : Genre.fromMask(genreMask)) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(genre.getDisplayName());
+        }
+        return result.toString();
     }
 
     @Override
@@ -75,7 +110,7 @@ public class Item {
                 "id=" + id +
                 ", title='" + title + '\'' +
                 ", description='" + description + '\'' +
-                ", genres=" + genres +
+                ", genres=" + getGenres() +
                 ", rating=" + rating +
                 '}';
     }
@@ -92,4 +127,4 @@ public class Item {
     public int hashCode() {
         return Objects.hash(id);
     }
-}
\ No newline at end of file
+}
@@ -11,6 +11,7 @@ public class User {
     private String name;
     private int age;
     private List<Genre> preferredGenres;  // Changed to Genre enum!
+    private int genreMask;                // same genres as a bitmask, see Genre.mask()
 
     /**
      * Constructor to create a new user.
@@ -43,6 +44,10 @@ public class User {
     public List<Genre> getPreferredGenres() { 
         return new ArrayList<>(preferredGenres); 
     }
+    
+    public int getGenreMask() {
+        return genreMask;
+    }
 
     // Managing genres
     public void addGenre(Genre genre) {  
@@ -51,6 +56,7 @@ public class User {
         }
         if (!preferredGenres.contains(genre)) {
             preferredGenres.add(genre);
+            genreMask |= genre.mask();
         }
     }
     
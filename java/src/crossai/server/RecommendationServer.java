@@ -0,0 +1,256 @@
+package crossai.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import crossai.controller.AppController;
+import crossai.json.ExchangeCodec;
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.util.EventLog;
+import crossai.util.TaskExecutors;
+
+/**
+ * Headless HTTP front end of an AppController, on the JDK's built-in HttpServer.
+ *
+ * GET  /recommendations?genres=Action,Comedy&name=Ana&age=30
+ * POST /recommendations with an input.json style body: {"user": {...}}
+ * GET  /health, 200 when ready, 503 while the service is warming up
+ *
+ * Both recommendation forms take optional offset and limit query parameters for a page
+ * of the user's ranking beyond the usual result, e.g. ...&offset=20&limit=20.
+ *
+ * Recommendations are answered in the engine's output.json format. Every request gets
+ * its own User, so clients don't share the controller's currentUser, while results,
+ * caches and the engine worker are shared through the controller's service.
+ *
+ * Each exchange runs on its own thread (virtual threads on Java 21+), so a request
+ * waiting on the engine doesn't hold up the others. Responses are sent with their
+ * length, which keeps HTTP/1.1 connections alive, and gzip-compressed for clients that
+ * accept it once they are large enough to gain from it.
+ */
+
+public class RecommendationServer implements Closeable {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_PAGE_SIZE = 10; // limit of a request that only gives an offset
+    private static final int BACKLOG = 256;
+    private static final int GZIP_MIN_BYTES = 512; // smaller bodies don't shrink enough to pay off
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final AppController controller;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExchangeCodec codec;
+
+    /**
+     * @param controller controller whose service answers the requests
+     * @param port port to listen on, 0 for any free port
+     * @throws IOException if the port can't be bound
+     */
+    public RecommendationServer(AppController controller, int port) throws IOException {
+        if (controller == null) {
+            throw new IllegalArgumentException("Controller cannot be null");
+        }
+        this.controller = controller;
+        this.codec = new ExchangeCodec();
+        this.executor = TaskExecutors.newTaskExecutor("http");
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        server.createContext("/recommendations", this::handleRecommendations);
+        server.createContext("/health", this::handleHealth);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        EventLog.info("SERVER", "Listening on port {}", getPort());
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    @Override
+    public void close() {
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    // -- handlers --
+
+    private void handleRecommendations(HttpExchange exchange) throws IOException {
+        try {
+            User user;
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    user = userFromQuery(exchange.getRequestURI().getRawQuery());
+                    break;
+                case "POST":
+                    try {
+                        // left open, send() reads the body to its end
+                        Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8);
+                        user = codec.readRequest(body);
+                    } catch (IOException | IllegalStateException | JsonParseException e) {
+                        // whatever the streaming reader rejects is the client's body, not our bug
+                        sendError(exchange, 400, e.getMessage());
+                        return;
+                    }
+                    break;
+                default:
+                    exchange.getResponseHeaders().set("Allow", "GET, POST");
+                    sendError(exchange, 405, "Method not allowed");
+                    return;
+            }
+
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            List<Item> recommendations;
+            if (parameters.containsKey("offset") || parameters.containsKey("limit")) {
+                recommendations = controller.getRecommendations(user,
+                    intParameter(parameters, "offset", 0), intParameter(parameters, "limit", DEFAULT_PAGE_SIZE));
+            } else {
+                recommendations = controller.getRecommendations(user);
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+            Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            codec.writeRecommendations(writer, recommendations, "Found " + recommendations.size() + " recommendations");
+            send(exchange, 200, body.toByteArray());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            EventLog.error("SERVER", "Request {} failed", exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal error");
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        boolean ready = controller.isReady();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64);
+        try (JsonWriter out = new JsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+            out.beginObject();
+            out.name("status").value(ready ? "ready" : "warming_up");
+            out.name("service").value(controller.getServiceTypeName());
+            out.endObject();
+        }
+        send(exchange, ready ? 200 : 503, body.toByteArray());
+    }
+
+    /**
+     * User of a GET request: genres (comma separated, required), name and age.
+     *
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    static User userFromQuery(String rawQuery) {
+        Map<String, String> parameters = parseQuery(rawQuery);
+        String genres = parameters.get("genres");
+        if (genres == null || genres.trim().isEmpty()) {
+            throw new IllegalArgumentException("Missing genres parameter");
+        }
+
+        User user = new User(parameters.getOrDefault("name", "anonymous"), intParameter(parameters, "age", 0));
+        for (String name : genres.split(",")) {
+            Genre genre = Genre.fromString(name);
+            if (genre == null) {
+                throw new IllegalArgumentException("Unknown genre: " + name);
+            }
+            user.addGenre(genre);
+        }
+        return user;
+    }
+
+    private static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) {
+                continue;
+            }
+            parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                           URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    // -- responses --
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+        try (JsonWriter out = new JsonWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+            out.beginObject();
+            out.name("status").value("error");
+            out.name("error").value(message);
+            out.endObject();
+        }
+        send(exchange, status, body.toByteArray());
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        // the connection is only reused once the request body was read to the end
+        try (InputStream request = exchange.getRequestBody()) {
+            request.transferTo(OutputStream.nullOutputStream());
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json; charset=utf-8");
+        headers.set("Vary", "Accept-Encoding");
+        if (body.length >= GZIP_MIN_BYTES && acceptsGzip(exchange)) {
+            body = gzip(body);
+            headers.set("Content-Encoding", "gzip");
+        }
+
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream response = exchange.getResponseBody()) {
+            response.write(body);
+        }
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        for (String value : exchange.getRequestHeaders().getOrDefault("Accept-Encoding", List.of())) {
+            if (value.toLowerCase().contains("gzip")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
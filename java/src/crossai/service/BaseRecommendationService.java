@@ -1,69 +1,607 @@
 package crossai.service;
 
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import crossai.json.ExchangeCodec;
+import crossai.metrics.ServiceMetrics;
+import crossai.metrics.Stage;
+import crossai.model.Genre;
 import crossai.model.Item;
 import crossai.model.User;
 import crossai.util.Cache;
+import crossai.util.EventLog;
+import crossai.util.FileWatcher;
+import crossai.util.PersistentCache;
+import crossai.util.TaskExecutors;
 
 
-public abstract class BaseRecommendationService implements RecommendationService {
+public abstract class BaseRecommendationService implements RecommendationService, Closeable {
+    // cache capacity in items, each cached list weighs its size
+    protected static final long DEFAULT_CACHE_CAPACITY = 10_000;
+    // last good result per profile, kept for fallback across invalidations
+    private static final long LAST_RESULTS_CAPACITY = 2_000;
+    // profiles per getRecommendationsBatch call during warm-up
+    private static final int WARM_UP_BATCH_SIZE = 8;
+
     protected String dataDirectory;
     protected Cache<List<Item>> cache;
     protected boolean loggingEnabled;
+    protected final ServiceMetrics metrics; // published over JMX
+    protected volatile PersistentCache<List<Item>> persistentCache; // optional L2, null = memory only
+
+    // results being computed right now, by generation-qualified cache key
+    private final ConcurrentMap<String, CompletableFuture<List<Item>>> inFlight;
+
+    // bumped when a file the results depend on changes; in-memory entries of older
+    // generations are never served again and age out of the LRU cache
+    private final AtomicLong generation;
+    private final Object generationLock = new Object(); // orders L2 writes against invalidation
+    private Path persistentCatalogFile;
+    private Duration persistentTtl;
+    private FileWatcher fileWatcher; // null = not watching
+    private final ConcurrentMap<Path, String> dependencyHashes = new ConcurrentHashMap<>(); // "" = missing
+
+    private final Cache<List<Item>> lastResults;
+    private volatile RecommendationService fallbackService; // null = no in-JVM fallback
+
+    private List<CompletableFuture<Void>> warmUpLanes = Collections.emptyList();
+    private volatile CompletableFuture<Void> warmUp; // null = never warmed up
+    private final AtomicInteger warmedProfiles = new AtomicInteger();
+    private volatile int warmUpTotal;
 
     protected BaseRecommendationService(String dataDirectory) {
         if (dataDirectory == null || dataDirectory.trim().isEmpty()) {
             throw new IllegalArgumentException("Data directory cannot be null or empty");
         }
         this.dataDirectory = dataDirectory;
-        this.cache = new Cache<>();
+        this.cache = new Cache<>(DEFAULT_CACHE_CAPACITY, List::size);
         this.loggingEnabled = true;
+        this.inFlight = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.lastResults = new Cache<>(LAST_RESULTS_CAPACITY, List::size);
+        this.metrics = new ServiceMetrics(getClass().getSimpleName(), cache);
+        metrics.setReadiness(this::isReady);
+        metrics.register();
     }
 
     @Override // to be implemented by subclasses
     public abstract List<Item> getRecommendations(User user);
 
+    /**
+     * Cache key for a recommendation request.
+     * Results only depend on the genre set and the query parameters, not on who asks,
+     * so users with the same genres share one entry.
+     *
+     * @param namespace service-specific prefix
+     * @param genreMask user's genres as a bitmask (User.getGenreMask())
+     * @param count number of recommendations requested
+     */
+    protected static String profileKey(String namespace, int genreMask, int count) {
+        return namespace + ':' + Integer.toHexString(genreMask) + ':' + count;
+    }
+
+    /**
+     * Keep results on disk too, under <dataDirectory>/cache, so they survive restarts.
+     * Stored results are tied to the content of the catalog and of getDependencies():
+     * when one of them changes, the ones computed before are dropped the next time the
+     * cache is opened.
+     *
+     * @param catalogFile catalog the results are computed from
+     * @param ttl how long a stored result stays valid
+     * @throws IOException if the catalog can't be read
+     */
+    public void enablePersistentCache(Path catalogFile, Duration ttl) throws IOException {
+        Path logFile = Paths.get(dataDirectory, "cache", getClass().getSimpleName() + ".log");
+        PersistentCache<List<Item>> previous = persistentCache;
+        persistentCache = new PersistentCache<>(logFile, persistentVersion(catalogFile), ttl,
+                                                new ExchangeCodec().itemListAdapter());
+        persistentCatalogFile = catalogFile;
+        persistentTtl = ttl;
+        if (previous != null) {
+            previous.close();
+        }
+        if (loggingEnabled) {
+            EventLog.info("CACHE", "Persistent cache at {}", logFile.toAbsolutePath());
+        }
+    }
+
+    // the catalog's hash, or with other dependencies one hash over all of them
+    private String persistentVersion(Path catalogFile) throws IOException {
+        List<Path> dependencies = getDependencies();
+        if (dependencies.isEmpty()) {
+            return PersistentCache.contentHash(catalogFile);
+        }
+        if (!Files.isReadable(catalogFile)) {
+            throw new NoSuchFileException(catalogFile.toString());
+        }
+        List<Path> files = new ArrayList<>(dependencies.size() + 1);
+        files.add(catalogFile);
+        files.addAll(dependencies);
+        return PersistentCache.contentHash(files);
+    }
+
+    public void disablePersistentCache() throws IOException {
+        PersistentCache<List<Item>> previous = persistentCache;
+        persistentCache = null;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Files the results of this service are computed from.
+     * When one of them changes, cached results are invalidated (see enableFileWatch).
+     */
+    protected List<Path> getDependencies() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Watch getDependencies() and invalidate cached results when one of them changes.
+     * Files in the data directory that are written by the service itself (exchange
+     * files, the persistent cache log) are not dependencies and don't invalidate anything.
+     * A change is a new content hash, so touching a file or writing it again unchanged
+     * keeps the cache.
+     *
+     * @throws IOException if the watcher can't be started
+     */
+    public synchronized void enableFileWatch() throws IOException {
+        disableFileWatch();
+        FileWatcher watcher = new FileWatcher();
+        for (Path file : getDependencies()) {
+            dependencyHashes.put(file, dependencyHash(file));
+            if (!watcher.watch(file, () -> fileEvent(file)) && loggingEnabled) {
+                EventLog.info("CACHE", "Not watching {}, its directory does not exist", file);
+            }
+        }
+        fileWatcher = watcher;
+    }
+
+    public synchronized void disableFileWatch() throws IOException {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
+        }
+    }
+
+    /**
+     * Stop warming up, watching files and writing the persistent cache, and withdraw
+     * the metrics from JMX so the service can be garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        cancelWarmUp();
+        try {
+            disableFileWatch();
+            disablePersistentCache();
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    // the watcher reports touches and every step of a write, only a new content is a change
+    private void fileEvent(Path file) {
+        String hash = dependencyHash(file);
+        if (!hash.equals(dependencyHashes.put(file, hash))) {
+            dependencyChanged(file);
+        }
+    }
+
+    private static String dependencyHash(Path file) {
+        try {
+            return Files.exists(file) ? PersistentCache.contentHash(file) : "";
+        } catch (IOException e) {
+            return ""; // replaced while reading, the next event sees the new content
+        }
+    }
+
+    // called on the watcher thread, subclasses may reload state before results are invalidated
+    protected void dependencyChanged(Path file) {
+        invalidate(file + " changed");
+    }
+
+    /**
+     * Stop serving every result cached so far, without clearing the cache.
+     * Results computed meanwhile are not stored on disk and are kept in memory under
+     * the old generation only, so nothing computed before this call is served from memory
+     * after it. Results on disk are kept while the files they were computed from are
+     * unchanged (see enablePersistentCache).
+     *
+     * @param reason logged with the new generation
+     */
+    public void invalidate(String reason) {
+        long current;
+        synchronized (generationLock) {
+            current = generation.incrementAndGet();
+            resetPersistentCache();
+        }
+        metrics.recordInvalidation();
+        if (loggingEnabled) {
+            EventLog.info("CACHE", "{}, now serving generation {}", reason, current);
+        }
+    }
+
+    // the on-disk log is versioned by the content hash, reopening under a new one drops old results
+    private void resetPersistentCache() {
+        PersistentCache<List<Item>> disk = persistentCache;
+        if (disk == null || !Files.exists(persistentCatalogFile)) {
+            return;
+        }
+        try {
+            if (!persistentVersion(persistentCatalogFile).equals(disk.getVersion())) {
+                enablePersistentCache(persistentCatalogFile, persistentTtl);
+            }
+        } catch (IOException e) {
+            EventLog.warn("CACHE", "Persistent cache disabled after invalidation: {}", e.getMessage());
+            try {
+                disablePersistentCache();
+            } catch (IOException closeFailure) {
+                // already unusable
+            }
+        }
+    }
+
+    // generation to pass to storeResult, read before computing a result
+    protected long cacheGeneration() {
+        return generation.get();
+    }
+
+    private static String qualifiedKey(long generation, String cacheKey) {
+        return generation + "/" + cacheKey;
+    }
+
+    // cache lookup (memory, then disk), timed as Stage.CACHE_LOOKUP
+    protected Optional<List<Item>> lookupCache(String cacheKey) {
+        long start = System.nanoTime();
+        String memoryKey = qualifiedKey(generation.get(), cacheKey);
+        Optional<List<Item>> cachedResult = cache.get(memoryKey);
+
+        PersistentCache<List<Item>> disk = persistentCache;
+        if (cachedResult.isEmpty() && disk != null) {
+            try {
+                cachedResult = disk.get(cacheKey);
+                if (cachedResult.isPresent()) {
+                    cache.put(memoryKey, cachedResult.get());
+                    metrics.recordPersistentHit();
+                }
+            } catch (IOException e) {
+                EventLog.warn("CACHE", "Persistent cache read failed: {}", e.getMessage());
+            }
+        }
+
+        metrics.record(Stage.CACHE_LOOKUP, start);
+        return cachedResult;
+    }
+
+    /**
+     * Store a computed result in memory and, if enabled, on disk.
+     * A result from an older generation is only kept in memory under that generation,
+     * where nobody looks for it anymore.
+     *
+     * @param generation cacheGeneration() from before the result was computed
+     */
+    protected void storeResult(String cacheKey, List<Item> result, long generation) {
+        cache.put(qualifiedKey(generation, cacheKey), result);
+        lastResults.put(cacheKey, result);
+
+        synchronized (generationLock) {
+            PersistentCache<List<Item>> disk = persistentCache;
+            if (disk == null || generation != this.generation.get()) {
+                return;
+            }
+            try {
+                disk.put(cacheKey, result);
+            } catch (IOException e) {
+                EventLog.warn("CACHE", "Persistent cache write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    // whether the current generation holds the result in memory, not counted as a lookup
+    protected boolean isCached(String cacheKey) {
+        return cache.contains(qualifiedKey(generation.get(), cacheKey));
+    }
+
+    /**
+     * Drop a stored result from memory and disk, e.g. once a larger one covers it.
+     * The last good result stays available for fallback.
+     */
+    protected void removeResult(String cacheKey) {
+        cache.remove(qualifiedKey(generation.get(), cacheKey));
+        PersistentCache<List<Item>> disk = persistentCache;
+        if (disk != null) {
+            try {
+                disk.remove(cacheKey);
+            } catch (IOException e) {
+                EventLog.warn("CACHE", "Persistent cache write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Computes the recommendations for one cache key.
+     */
+    @FunctionalInterface
+    protected interface Loader {
+        List<Item> load() throws Exception;
+    }
+
+    /**
+     * Compute a result once for all concurrent callers and cache it (single flight).
+     *
+     * The first caller for a key runs the loader; callers asking for the same key
+     * meanwhile wait for that run instead of starting their own. A failure is thrown
+     * to every waiting caller and is not cached. If the running caller was interrupted
+     * or cancelled, a waiting caller takes over and runs the loader itself.
+     *
+     * Call after a cache miss (lookupCache); a result cached in the meantime is reused.
+     *
+     * @param cacheKey cache key of the result
+     * @param loader computes the result
+     * @return the result, also stored in the cache
+     * @throws Exception whatever the loader threw, or InterruptedException if this caller
+     *         was interrupted while waiting
+     */
+    protected List<Item> loadOnce(String cacheKey, Loader loader) throws Exception {
+        while (true) {
+            // callers of a newer generation never join a run that started before it
+            long loadGeneration = generation.get();
+            String flightKey = qualifiedKey(loadGeneration, cacheKey);
+            CompletableFuture<List<Item>> flight = new CompletableFuture<>();
+            CompletableFuture<List<Item>> running = inFlight.putIfAbsent(flightKey, flight);
+
+            if (running == null) {
+                try {
+                    // another caller may have finished between our cache miss and now
+                    Optional<List<Item>> cachedResult = cache.peek(flightKey);
+                    if (cachedResult.isPresent()) {
+                        flight.complete(cachedResult.get());
+                        return cachedResult.get();
+                    }
+                    List<Item> result = loader.load();
+                    storeResult(cacheKey, result, loadGeneration);
+                    flight.complete(result);
+                    return result;
+                } catch (Exception | Error e) {
+                    flight.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    inFlight.remove(flightKey, flight);
+                }
+            }
+
+            metrics.recordCoalesced();
+            try {
+                return running.get();
+            } catch (CancellationException e) {
+                continue;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof InterruptedException || cause instanceof CancellationException) {
+                    continue; // the running caller gave up, not the engine: try again
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw (Error) cause;
+            }
+        }
+    }
+
     // logging a recommendation event
     protected void logRecommendation(User user, int count) {
         if (loggingEnabled) {
-            System.out.println("[RECOMMENDATION] Generated " + count +
-                                " recommendations for user: " + user.getName());
+            EventLog.info("RECOMMENDATION", "Generated {} recommendations for user: {}", count, user.getName());
+        }
+    }
+
+    /**
+     * Service asked when this one fails and has no earlier result for the profile,
+     * typically the in-JVM CatalogRecommendationService.
+     */
+    public void setFallbackService(RecommendationService fallbackService) {
+        if (fallbackService == this) {
+            throw new IllegalArgumentException("A service cannot be its own fallback");
+        }
+        this.fallbackService = fallbackService;
+    }
+
+    public RecommendationService getFallbackService() { return fallbackService; }
+
+    /**
+     * Answer a request whose result could not be computed.
+     * The last good result for the profile is preferred, even if the cache was
+     * invalidated since; then the fallback service; otherwise the error is handled
+     * as usual. Fallback results are not cached, so the engine is tried again next time.
+     *
+     * @param cacheKey key the result would have been cached under
+     * @param user user of the request
+     * @param cause why the result could not be computed
+     */
+    protected List<Item> fallbackFor(String cacheKey, User user, Exception cause) {
+        Optional<List<Item>> lastResult = lastResults.get(cacheKey);
+        if (lastResult.isPresent()) {
+            metrics.recordFallback();
+            EventLog.warn("FALLBACK", "Serving last good result for {}: {}", user.getName(), cause.getMessage());
+            return lastResult.get();
+        }
+
+        RecommendationService fallback = fallbackService;
+        if (fallback != null) {
+            metrics.recordFallback();
+            EventLog.warn("FALLBACK", "Serving in-JVM recommendations for {}: {}", user.getName(), cause.getMessage());
+            return fallback.getRecommendations(user);
         }
+        return handleError(cause, user);
     }
 
     // handling errors that occur during recommendation generation
     protected List<Item> handleError(Exception e, User user) {
-        System.err.println("[ERROR] Failed to generate recommendations for " + 
-                            user.getName() + ": " + e.getMessage());
-        e.printStackTrace();
+        EventLog.error("RECOMMENDATION", "Failed to generate recommendations for {}", user.getName(), e);
         return new ArrayList<>();
     }
 
     // validate that user object is valid for generating recommendations
     protected void validateUser(User user) {
+        long start = System.nanoTime();
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
         if (user.getName() == null || user.getName().trim().isEmpty()) {
             throw new IllegalArgumentException("User must have a valid name");
         }
+        metrics.record(Stage.VALIDATE, start);
+    }
+
+    /**
+     * Compute results for the given genre profiles in the background, so the first
+     * users asking for them are answered from the cache.
+     * Profiles go through getRecommendationsBatch in small batches (one engine run per
+     * batch for the hybrid service), at most parallelism batches at a time. Profiles
+     * already cached cost nothing. A warm-up still running is cancelled first.
+     *
+     * @param genreMasks profiles to compute, see WarmUpProfiles
+     * @param parallelism maximum number of batches computed at once
+     * @return completes when every profile was tried; failed batches are logged, not thrown
+     */
+    public synchronized CompletableFuture<Void> warmUp(Collection<Integer> genreMasks, int parallelism) {
+        if (genreMasks == null) {
+            throw new IllegalArgumentException("Genre masks cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        cancelWarmUp();
+
+        List<List<User>> batches = new ArrayList<>();
+        List<User> batch = new ArrayList<>(WARM_UP_BATCH_SIZE);
+        for (int mask : genreMasks) {
+            User profile = new User("warm-up", 0);
+            profile.addPreferredGenres(Genre.fromMask(mask));
+            batch.add(profile);
+            if (batch.size() == WARM_UP_BATCH_SIZE) {
+                batches.add(batch);
+                batch = new ArrayList<>(WARM_UP_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        warmedProfiles.set(0);
+        warmUpTotal = genreMasks.size();
+        long start = System.nanoTime();
+        AtomicInteger nextBatch = new AtomicInteger();
+        List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < Math.min(parallelism, batches.size()); i++) {
+            lanes.add(TaskExecutors.supplyAsync(() -> {
+                warmUpLane(batches, nextBatch);
+                return null;
+            }, TaskExecutors.shared()));
+        }
+        warmUpLanes = lanes;
+
+        CompletableFuture<Void> done = CompletableFuture.allOf(lanes.toArray(new CompletableFuture<?>[0]));
+        warmUp = done;
+        done.whenComplete((ignored, error) -> {
+            if (error == null) {
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                EventLog.info("WARM-UP", "{} profiles warmed up in {} ms", warmedProfiles.get(), Long.valueOf(elapsedMs));
+            } else {
+                EventLog.info("WARM-UP", "Warm-up stopped after {} profiles", warmedProfiles.get());
+            }
+        });
+        return done;
+    }
+
+    private void warmUpLane(List<List<User>> batches, AtomicInteger nextBatch) {
+        int next;
+        while ((next = nextBatch.getAndIncrement()) < batches.size()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            List<User> batch = batches.get(next);
+            try {
+                getRecommendationsBatch(batch);
+            } catch (RuntimeException e) {
+                EventLog.warn("WARM-UP", "Batch of {} profiles failed: {}", batch.size(), e.getMessage());
+            }
+            warmedProfiles.addAndGet(batch.size());
+        }
     }
 
+    // stops a running warm-up, the service is ready right away
+    public synchronized void cancelWarmUp() {
+        for (CompletableFuture<Void> lane : warmUpLanes) {
+            lane.cancel(true);
+        }
+        warmUpLanes = Collections.emptyList();
+    }
+
+    /**
+     * Readiness for health checks: false while a warm-up is running.
+     * A service that was never warmed up is ready.
+     */
+    public boolean isReady() {
+        CompletableFuture<Void> current = warmUp;
+        return current == null || current.isDone();
+    }
+
+    // completes (normally) once the service is ready
+    public CompletableFuture<Void> whenReady() {
+        CompletableFuture<Void> current = warmUp;
+        if (current == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return current.handle((ignored, error) -> null);
+    }
+
+    public int getWarmedProfiles() { return warmedProfiles.get(); }
+    public int getWarmUpTotal() { return warmUpTotal; }
+
     // logging enable/disable
     public void setLoggingEnabled(boolean enabled) {
         this.loggingEnabled = enabled;
     }
 
     public String getDataDirectory() { return dataDirectory; }
+    public ServiceMetrics getMetrics() { return metrics; }
+    public long getCacheGeneration() { return generation.get(); }
+    public synchronized boolean isWatchingFiles() { return fileWatcher != null; }
 
     // cache clearing
     public void clearCache() {
         cache.clear();
+        lastResults.clear();
+        PersistentCache<List<Item>> disk = persistentCache;
+        if (disk != null) {
+            try {
+                disk.clear();
+            } catch (IOException e) {
+                EventLog.warn("CACHE", "Could not clear persistent cache: {}", e.getMessage());
+            }
+        }
         if (loggingEnabled) {
-            System.out.println("[CACHE] Cache cleared");
+            EventLog.info("CACHE", "Cache cleared");
         }
     }
 }
@@ -0,0 +1,261 @@
+package crossai.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import crossai.catalog.GenreIndex;
+import crossai.catalog.GenreTfIdfModel;
+import crossai.catalog.JsonMovieCatalog;
+import crossai.catalog.MappedMovieCatalog;
+import crossai.catalog.MovieCatalog;
+import crossai.catalog.TopKSelector;
+import crossai.metrics.Stage;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.util.Cache;
+import crossai.util.EventLog;
+
+/**
+ * Recommendation service that runs the ML recommender inside the JVM.
+ * The catalog is loaded once when the service is created and stays resident,
+ * so a request is a scan over primitive arrays instead of a C++ + Python run.
+ *
+ * Results follow python/recommender/model.py (MovieRecommender.recommend):
+ * - movies are ranked by TF-IDF cosine similarity of their genres to the user's genres
+ * - the best n*5 candidates are taken, then filtered by min rating and min vote count
+ * - the first n survivors are returned in similarity order
+ *
+ * Candidates come from a GenreIndex by default, so a query only touches the genre
+ * groups it needs instead of every movie; the full scan is kept as the reference
+ * path (setUseIndex(false)) and gives the same results; on large catalogs it is
+ * spread over the ForkJoin common pool (see TopKSelector).
+ *
+ * The Python popularity boost only rescales ml_score after ranking. It never changes
+ * the order, and Item does not carry the score, so it has no visible effect here.
+ * The C++ RuleBasedRecommender is not part of the hybrid output (the engine only copies
+ * the ML results), so it is not reproduced.
+ */
+
+public class CatalogRecommendationService extends BaseRecommendationService {
+    // relative to java/ directory, same as the C++ engine path
+    public static final String DEFAULT_CATALOG_PATH = "../python/data/processed_movies.json";
+    // written by crossai.catalog.BinaryCatalogWriter, used instead of the JSON when present
+    public static final String DEFAULT_BINARY_CATALOG_PATH = "../python/data/processed_movies.bin";
+
+    // defaults of MovieRecommender.recommend
+    private static final int DEFAULT_RECOMMENDATION_COUNT = 10;
+    private static final double DEFAULT_MIN_RATING = 6.0;
+    private static final double DEFAULT_MIN_VOTES = 100;
+    private static final int CANDIDATE_MULTIPLIER = 5;
+    // candidates of every paged ranking, so a shallow ranking is a prefix of a deeper one
+    private static final int PAGING_CANDIDATES = Paging.MAX_RANKING_DEPTH * CANDIDATE_MULTIPLIER;
+    // rankings kept for paging, in catalog positions (4 bytes each) rather than Items
+    private static final long RANKING_CACHE_CAPACITY = 500_000;
+
+    private final MovieCatalog catalog;
+    private final GenreTfIdfModel model;
+    private final GenreIndex index;
+    private final Cache<int[]> rankings; // by generation-qualified profile key and depth
+    private boolean useIndex;
+    private int recommendationCount;
+    private double minRating;
+    private double minVotes;
+
+    public CatalogRecommendationService(String dataDirectory) {
+        this(dataDirectory, Files.exists(Paths.get(DEFAULT_BINARY_CATALOG_PATH)) ? DEFAULT_BINARY_CATALOG_PATH
+                                                                               : DEFAULT_CATALOG_PATH);
+    }
+
+    // a .bin catalog is memory-mapped, anything else is parsed as JSON
+    public CatalogRecommendationService(String dataDirectory, String catalogPath) {
+        this(dataDirectory, loadCatalog(Paths.get(catalogPath)));
+    }
+
+    public CatalogRecommendationService(String dataDirectory, MovieCatalog catalog) {
+        super(dataDirectory);
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        this.catalog = catalog;
+        this.model = new GenreTfIdfModel(catalog);
+        this.index = new GenreIndex(catalog, model);
+        this.rankings = new Cache<>(RANKING_CACHE_CAPACITY, ranking -> Math.max(1, ranking.length));
+        this.useIndex = true;
+        this.recommendationCount = DEFAULT_RECOMMENDATION_COUNT;
+        this.minRating = DEFAULT_MIN_RATING;
+        this.minVotes = DEFAULT_MIN_VOTES;
+
+        if (loggingEnabled) {
+            EventLog.info("CATALOG", "Loaded {} movies", catalog.size());
+        }
+    }
+
+    private static MovieCatalog loadCatalog(Path catalogPath) {
+        try {
+            if (catalogPath.getFileName().toString().endsWith(".bin")) {
+                return MappedMovieCatalog.open(catalogPath);
+            }
+            return JsonMovieCatalog.load(catalogPath);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not load movie catalog from " +
+                                            catalogPath.toAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<Item> getRecommendations(User user) {
+        validateUser(user);
+
+        String cacheKey = profileKey("catalog", user.getGenreMask(), recommendationCount);
+        var cachedResult = lookupCache(cacheKey);
+
+        if (cachedResult.isPresent()) {
+            logRecommendation(user, cachedResult.get().size());
+            if (loggingEnabled) {
+                EventLog.info("CACHE", "Returning cached catalog recommendations");
+            }
+            return cachedResult.get();
+        }
+
+        List<Item> recommendations;
+        try {
+            recommendations = loadOnce(cacheKey, () -> {
+                long start = System.nanoTime();
+                List<Item> result = recommend(user.getGenreMask());
+                metrics.record(Stage.ENGINE, start);
+                return result;
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return handleError(e, user);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            return handleError(e, user); // recommend() throws no checked exceptions
+        }
+
+        logRecommendation(user, recommendations.size());
+        return recommendations;
+    }
+
+    /**
+     * A page of the ranking, with only the page's movies turned into Items.
+     * The ranking is computed as deep as the page needs (see Paging.rankingDepth) and
+     * kept as catalog positions, so the following pages are served from it.
+     * Every depth filters the same PAGING_CANDIDATES, so a page holds the same movies
+     * whichever ranking serves it, and a short page is the end of the ranking.
+     */
+    @Override
+    public List<Item> getRecommendations(User user, int offset, int limit) {
+        validateUser(user);
+        Paging.checkPage(offset, limit);
+
+        int depth = Paging.rankingDepth(offset, limit, recommendationCount);
+        int[] ranking = cachedRanking(user.getGenreMask(), depth);
+        if (ranking == null) {
+            long start = System.nanoTime();
+            ranking = rank(user.getGenreMask(), depth, PAGING_CANDIDATES);
+            metrics.record(Stage.ENGINE, start);
+            rankings.put(rankingKey(user.getGenreMask(), depth), ranking);
+        }
+
+        List<Item> page = new ArrayList<>(Math.max(0, Math.min(limit, ranking.length - offset)));
+        for (int i = offset; i < ranking.length && i - offset < limit; i++) {
+            page.add(toItem(ranking[i]));
+        }
+        logRecommendation(user, page.size());
+        return page;
+    }
+
+    // a ranking at least depth deep, a deeper one serves shallower pages too;
+    // depths double up to MAX_RANKING_DEPTH, which is itself a depth (see Paging.rankingDepth)
+    private int[] cachedRanking(int queryMask, int depth) {
+        for (int d = depth; ; d = Math.min(d * 2, Paging.MAX_RANKING_DEPTH)) {
+            var ranking = rankings.get(rankingKey(queryMask, d));
+            if (ranking.isPresent()) {
+                return ranking.get();
+            }
+            if (d >= Paging.MAX_RANKING_DEPTH) {
+                return null;
+            }
+        }
+    }
+
+    private String rankingKey(int queryMask, int depth) {
+        return cacheGeneration() + "/" + profileKey("catalog-ranking", queryMask, depth);
+    }
+
+    private List<Item> recommend(int queryMask) {
+        int[] ranking = rank(queryMask, recommendationCount, recommendationCount * CANDIDATE_MULTIPLIER);
+        List<Item> recommendations = new ArrayList<>(ranking.length);
+        for (int movie : ranking) {
+            recommendations.add(toItem(movie));
+        }
+        return recommendations;
+    }
+
+    // catalog positions of the first depth of the best candidates passing the quality filters
+    private int[] rank(int queryMask, int depth, int candidateCount) {
+        int[] candidates = useIndex ? index.topK(queryMask, candidateCount)
+                                    : scanTopK(queryMask, candidateCount);
+
+        int[] ranking = new int[Math.min(depth, candidates.length)];
+        int size = 0;
+        for (int c = 0; c < candidates.length && size < ranking.length; c++) {
+            int movie = candidates[c];
+            if (catalog.getVoteAverage(movie) >= minRating && catalog.getVoteCount(movie) >= minVotes) {
+                ranking[size++] = movie;
+            }
+        }
+        return size == ranking.length ? ranking : Arrays.copyOf(ranking, size);
+    }
+
+    // reference path: score every movie, highest similarity first, ties keep catalog (popularity) order
+    private int[] scanTopK(int queryMask, int k) {
+        double queryNorm = model.norm(queryMask);
+        return TopKSelector.topK(catalog.size(), k,
+            i -> model.similarity(queryMask, queryNorm, i, catalog.getGenreMask(i)));
+    }
+
+    private Item toItem(int index) {
+        return new Item(catalog.getId(index), catalog.getTitle(index), "",
+                        catalog.getGenreMask(index), catalog.getVoteAverage(index));
+    }
+
+    public void setRecommendationCount(int recommendationCount) {
+        if (recommendationCount <= 0) {
+            throw new IllegalArgumentException("Recommendation count must be positive");
+        }
+        this.recommendationCount = recommendationCount;
+    }
+
+    public void setQualityFilters(double minRating, double minVotes) {
+        this.minRating = minRating;
+        this.minVotes = minVotes;
+        cache.clear();
+        rankings.clear();
+    }
+
+    @Override
+    public void clearCache() {
+        rankings.clear();
+        super.clearCache();
+    }
+
+    // index and scan give the same results, the switch is for comparing them
+    public void setUseIndex(boolean useIndex) {
+        this.useIndex = useIndex;
+    }
+
+    public MovieCatalog getCatalog() { return catalog; }
+    public GenreIndex getIndex() { return index; }
+    public boolean isUsingIndex() { return useIndex; }
+    public int getRecommendationCount() { return recommendationCount; }
+    public double getMinRating() { return minRating; }
+    public double getMinVotes() { return minVotes; }
+}
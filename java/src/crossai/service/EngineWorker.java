@@ -0,0 +1,548 @@
+package crossai.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import crossai.json.BinaryExchangeCodec;
+import crossai.util.EventLog;
+
+/**
+ * Supervised long-lived engine process speaking line-delimited JSON or binary frames.
+ *
+ * Requests are written to the worker's stdin and responses are read from its stdout,
+ * one JSON object per line. Every request gets an "id" that the worker echoes back,
+ * so many callers can share the process and each one gets its own response.
+ * Callers write their request fields straight into the line and get the raw response
+ * line back, which they decode with a streaming reader (see crossai.json.ExchangeCodec).
+ *
+ * Unless binary messages are disabled, a new process is first offered the compact
+ * binary format (see crossai.json.BinaryExchangeCodec). If it accepts, requests and
+ * responses are length-prefixed frames carrying the id and a binary body instead;
+ * callers give both encodings of a request and decode whichever the response carries.
+ *
+ * If the worker dies, requests in flight fail with an IOException and the process is
+ * started again on the next request. A worker that keeps crashing is not started
+ * more than MAX_RESTARTS times per RESTART_WINDOW_MS.
+ */
+
+public class EngineWorker {
+    // relative to java/ directory, like the C++ engine path
+    public static final String DEFAULT_MODEL_SCRIPT = "../python/recommender/model.py";
+
+    private static final int MAX_RESTARTS = 5;
+    private static final long RESTART_WINDOW_MS = 60_000;
+    // the worker answers the hello once its model is loaded
+    private static final long HANDSHAKE_TIMEOUT_MS = 60_000;
+    private static final int MAX_FRAME_BYTES = 64 << 20;
+
+    private final List<String> command;
+    private final File workingDirectory;
+    private final BinaryExchangeCodec binaryCodec;
+    private final StringWriter lineBuffer; // reused for every request, guarded by lock
+    private final ByteArrayOutputStream frameBuffer; // same for binary requests
+    private final DataOutputStream frameOut;
+    private final AtomicLong nextRequestId;
+    private final Deque<Long> recentStarts;
+    private final Object lock = new Object();
+
+    private Connection connection;
+    private volatile boolean closed;
+    private volatile boolean binaryEnabled;
+    private boolean loggingEnabled;
+
+    public EngineWorker(List<String> command, File workingDirectory) {
+        if (command == null || command.isEmpty()) {
+            throw new IllegalArgumentException("Worker command cannot be empty");
+        }
+        this.command = new ArrayList<>(command);
+        this.workingDirectory = workingDirectory;
+        this.binaryCodec = new BinaryExchangeCodec();
+        this.lineBuffer = new StringWriter(256);
+        this.frameBuffer = new ByteArrayOutputStream(256);
+        this.frameOut = new DataOutputStream(frameBuffer);
+        this.nextRequestId = new AtomicLong();
+        this.recentStarts = new ArrayDeque<>();
+        this.binaryEnabled = true;
+        this.loggingEnabled = true;
+    }
+
+    /**
+     * Worker running the Python ML model in --serve mode.
+     * The model loads processed_movies.json and fits TF-IDF once per process.
+     */
+    public static EngineWorker forPythonModel() {
+        return new EngineWorker(Arrays.asList("python", DEFAULT_MODEL_SCRIPT, "--serve"), null);
+    }
+
+    /**
+     * Fields of one request object, written by the caller.
+     */
+    @FunctionalInterface
+    public interface RequestBody {
+        void writeFields(JsonWriter out) throws IOException;
+    }
+
+    /**
+     * Body of one binary request frame, written by the caller.
+     */
+    @FunctionalInterface
+    public interface BinaryRequestBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Response to one request: a JSON line, or a binary body after the frame's id.
+     */
+    public static final class Response {
+        private final String line;
+        private final byte[] body;
+
+        private Response(String line, byte[] body) {
+            this.line = line;
+            this.body = body;
+        }
+
+        public boolean isBinary() { return body != null; }
+        public String getLine() { return line; }
+        public byte[] getBody() { return body; }
+    }
+
+    /**
+     * Send a request to the worker, in the format the running process negotiated.
+     * The worker adds the id, which must not be written by the caller.
+     *
+     * A process that is still starting is waited for outside the lock and at most until
+     * the caller's deadline, so a slow start doesn't hold up callers with an earlier one
+     * and isn't killed because of them; it keeps starting for later requests.
+     *
+     * @param json writes the other fields of a JSON request
+     * @param binary writes the body of a binary request
+     * @param deadlineNanos System.nanoTime() by which the caller gives up
+     * @return future completed with the worker's response
+     * @throws IOException if the worker cannot be started or written to
+     * @throws TimeoutException if the worker was not ready by the deadline
+     */
+    public CompletableFuture<Response> send(RequestBody json, BinaryRequestBody binary, long deadlineNanos)
+            throws IOException, TimeoutException {
+        long id = nextRequestId.incrementAndGet();
+        CompletableFuture<Response> response = new CompletableFuture<>();
+
+        Connection current;
+        synchronized (lock) {
+            current = ensureRunning();
+        }
+        awaitNegotiation(current, deadlineNanos);
+
+        synchronized (lock) {
+            if (connection != current) {
+                throw new IOException("Engine worker stopped before the request was sent");
+            }
+            if (current.binary) {
+                frameBuffer.reset();
+                frameOut.writeLong(id);
+                binary.write(frameOut);
+                frameOut.flush();
+            } else {
+                // compact output, one request per line
+                lineBuffer.getBuffer().setLength(0);
+                JsonWriter out = new JsonWriter(lineBuffer);
+                out.beginObject();
+                out.name("id").value(id);
+                json.writeFields(out);
+                out.endObject();
+            }
+
+            current.pending.put(id, response);
+            try {
+                if (current.binary) {
+                    current.stdin.writeInt(frameBuffer.size());
+                    frameBuffer.writeTo(current.stdin);
+                } else {
+                    writeLine(current.stdin, lineBuffer.toString());
+                }
+                current.stdin.flush();
+            } catch (IOException e) {
+                current.pending.remove(id);
+                current.process.destroyForcibly();
+                throw new IOException("Could not send request to engine worker: " + e.getMessage(), e);
+            }
+        }
+        return response;
+    }
+
+    private Connection ensureRunning() throws IOException {
+        if (closed) {
+            throw new IOException("Engine worker is closed");
+        }
+        if (connection != null && connection.process.isAlive()) {
+            return connection;
+        }
+
+        long now = System.currentTimeMillis();
+        while (!recentStarts.isEmpty() && now - recentStarts.peekFirst() > RESTART_WINDOW_MS) {
+            recentStarts.pollFirst();
+        }
+        if (recentStarts.size() >= MAX_RESTARTS) {
+            throw new IOException("Engine worker was started " + MAX_RESTARTS +
+                                  " times in the last minute, not restarting yet");
+        }
+        recentStarts.addLast(now);
+
+        if (loggingEnabled) {
+            EventLog.info("ENGINE WORKER", "Starting: {}", String.join(" ", command));
+        }
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT); // worker diagnostics
+        if (workingDirectory != null) {
+            processBuilder.directory(workingDirectory);
+        }
+        Process process = processBuilder.start();
+
+        Connection current = new Connection(process);
+        connection = current;
+        if (loggingEnabled && binaryEnabled) {
+            current.negotiated.thenAccept(binary ->
+                EventLog.info("ENGINE WORKER", "Using {} messages", binary ? "binary" : "JSON"));
+        }
+        if (binaryEnabled) {
+            StringWriter hello = new StringWriter(256);
+            binaryCodec.writeHello(new JsonWriter(hello));
+            writeLine(current.stdin, hello.toString());
+            current.stdin.flush();
+        } else {
+            current.negotiated.complete(false);
+        }
+        Thread reader = new Thread(() -> readResponses(current), "engine-worker-reader-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+        return current;
+    }
+
+    // the answer to the hello decides the format of everything after it;
+    // only a process that misses HANDSHAKE_TIMEOUT_MS is given up on
+    private void awaitNegotiation(Connection current, long deadlineNanos) throws IOException, TimeoutException {
+        long handshakeDeadline = current.startNanos + TimeUnit.MILLISECONDS.toNanos(HANDSHAKE_TIMEOUT_MS);
+        boolean callerFirst = deadlineNanos - handshakeDeadline < 0;
+        long wait = (callerFirst ? deadlineNanos : handshakeDeadline) - System.nanoTime();
+        try {
+            current.negotiated.get(Math.max(0, wait), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new IOException("Engine worker exited before it was ready", e.getCause());
+        } catch (TimeoutException e) {
+            if (callerFirst) {
+                throw new TimeoutException("Engine worker is still starting");
+            }
+            synchronized (lock) {
+                if (connection == current) {
+                    connection = null;
+                }
+            }
+            current.process.destroyForcibly();
+            throw new IOException("Engine worker did not answer within " + HANDSHAKE_TIMEOUT_MS + " ms of starting");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while the engine worker was starting");
+        }
+    }
+
+    // runs on the reader thread of one worker process until its stdout closes
+    private void readResponses(Connection current) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(current.process.getInputStream()))) {
+            ByteArrayOutputStream lineBytes = new ByteArrayOutputStream(256);
+            if (negotiate(current, in, lineBytes)) {
+                if (current.binary) {
+                    readFrames(current, in);
+                } else {
+                    String line;
+                    while ((line = readLine(in, lineBytes)) != null) {
+                        dispatch(current, line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // stream closed, handled below like a normal exit
+        }
+
+        IOException failure = new IOException("Engine worker exited" + exitCodeOf(current.process));
+        current.negotiated.completeExceptionally(failure);
+        synchronized (lock) {
+            if (connection == current) {
+                connection = null;
+            }
+        }
+
+        for (CompletableFuture<Response> response : current.pending.values()) {
+            response.completeExceptionally(failure);
+        }
+        current.pending.clear();
+
+        if (loggingEnabled && !closed) {
+            EventLog.warn("ENGINE WORKER", "{}, restarting on next request", failure.getMessage());
+        }
+    }
+
+    /**
+     * Read up to the worker's answer to the hello, skipping its ready line.
+     *
+     * @return false if the worker exited first
+     */
+    private boolean negotiate(Connection current, DataInputStream in, ByteArrayOutputStream lineBytes)
+            throws IOException {
+        if (current.negotiated.isDone()) {
+            return true; // no hello was sent
+        }
+        String line;
+        while ((line = readLine(in, lineBytes)) != null) {
+            if (!hasField(line, "ready")) {
+                current.binary = binaryCodec.acceptsBinary(line);
+                current.negotiated.complete(current.binary);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void readFrames(Connection current, DataInputStream in) throws IOException {
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (length < Long.BYTES || length > MAX_FRAME_BYTES) {
+                // out of step with the worker, nothing after this can be trusted
+                EventLog.warn("ENGINE WORKER", "Invalid frame length {}, stopping the worker", length);
+                current.process.destroyForcibly();
+                return;
+            }
+            long id = in.readLong();
+            byte[] body = new byte[length - Long.BYTES];
+            in.readFully(body);
+            CompletableFuture<Response> response = current.pending.remove(id);
+            if (response != null) {
+                response.complete(new Response(null, body));
+            }
+        }
+    }
+
+    // one UTF-8 line without its terminator, null at the end of the stream
+    private static String readLine(DataInputStream in, ByteArrayOutputStream lineBytes) throws IOException {
+        lineBytes.reset();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            lineBytes.write(b);
+        }
+        if (b == -1 && lineBytes.size() == 0) {
+            return null;
+        }
+        String line = lineBytes.toString(StandardCharsets.UTF_8);
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    private static void writeLine(DataOutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private void dispatch(Connection current, String line) {
+        long id;
+        try {
+            id = readId(line);
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            EventLog.warn("ENGINE WORKER", "Ignoring malformed line: {}", line);
+            return;
+        }
+
+        // lines without an id (e.g. the ready message) are not responses
+        if (id < 0) {
+            return;
+        }
+        CompletableFuture<Response> response = current.pending.remove(id);
+        if (response != null) {
+            response.complete(new Response(line, null));
+        }
+    }
+
+    private static boolean hasField(String line, String field) {
+        try {
+            JsonReader reader = new JsonReader(new StringReader(line));
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return false;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(field)) {
+                    return true;
+                }
+                reader.skipValue();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // not a JSON object
+        }
+        return false;
+    }
+
+    // the worker writes "id" first, so this usually stops after the first field
+    private static long readId(String line) throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(line));
+        reader.setLenient(true);
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return -1;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("id") && reader.peek() == JsonToken.NUMBER) {
+                return reader.nextLong();
+            }
+            reader.skipValue();
+        }
+        return -1;
+    }
+
+    private static String exitCodeOf(Process process) {
+        try {
+            return " with code " + process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        }
+    }
+
+    /**
+     * Replace the worker process, e.g. after its model or data changed.
+     * The running process answers the requests it already has and exits;
+     * the next request starts a new one.
+     */
+    public void restart() {
+        Connection current;
+        synchronized (lock) {
+            current = connection;
+            connection = null;
+        }
+        if (current != null) {
+            try {
+                current.stdin.close(); // lets the worker finish and leave its read loop
+            } catch (IOException e) {
+                current.process.destroy();
+            }
+            if (loggingEnabled) {
+                EventLog.info("ENGINE WORKER", "Restarting on next request");
+            }
+        }
+    }
+
+    /**
+     * Kill a worker that stopped answering, with any processes it started.
+     * Requests in flight fail; the next request starts a new process.
+     */
+    public void kill() {
+        Connection current;
+        synchronized (lock) {
+            current = connection;
+            connection = null;
+        }
+        if (current != null) {
+            current.process.descendants().forEach(ProcessHandle::destroyForcibly);
+            current.process.destroyForcibly();
+            EventLog.warn("ENGINE WORKER", "Killed worker process {}", current.process.pid());
+        }
+    }
+
+    public boolean isRunning() {
+        synchronized (lock) {
+            return connection != null && connection.process.isAlive();
+        }
+    }
+
+    public void setLoggingEnabled(boolean enabled) {
+        this.loggingEnabled = enabled;
+    }
+
+    /**
+     * Offer binary messages to worker processes started from now on (default true).
+     * With false, or if the worker declines, requests stay line-delimited JSON.
+     */
+    public void setBinaryEnabled(boolean enabled) {
+        this.binaryEnabled = enabled;
+    }
+
+    public boolean isBinaryEnabled() { return binaryEnabled; }
+
+    // format of the running process, false while none is running
+    public boolean isUsingBinary() {
+        synchronized (lock) {
+            return connection != null && connection.binary;
+        }
+    }
+
+    // stop the worker process, requests in flight fail
+    public void close() {
+        Connection current;
+        synchronized (lock) {
+            closed = true;
+            current = connection;
+            connection = null;
+        }
+        if (current != null) {
+            try {
+                current.stdin.close(); // lets the worker leave its read loop
+            } catch (IOException e) {
+                // process is killed below anyway
+            }
+            current.process.destroy();
+        }
+    }
+
+    public List<String> getCommand() { return new ArrayList<>(command); }
+
+    /**
+     * One running worker process, its message format and the requests waiting for
+     * their responses.
+     */
+    private static final class Connection {
+        final Process process;
+        final DataOutputStream stdin;
+        final Map<Long, CompletableFuture<Response>> pending;
+        final CompletableFuture<Boolean> negotiated; // true = binary
+        final long startNanos;
+        volatile boolean binary; // set by the reader before negotiated completes
+
+        Connection(Process process) {
+            this.process = process;
+            this.startNanos = System.nanoTime();
+            this.stdin = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+            this.pending = new ConcurrentHashMap<>();
+            this.negotiated = new CompletableFuture<>();
+        }
+    }
+}
@@ -1,50 +1,154 @@
 package crossai.service;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-
-import crossai.model.Genre;
+import crossai.json.BinaryExchangeCodec;
+import crossai.json.ExchangeCodec;
+import crossai.metrics.Stage;
 import crossai.model.Item;
 import crossai.model.User;
+import crossai.util.Cache;
+import crossai.util.CircuitBreaker;
+import crossai.util.EventLog;
 
 /**
  * Hybrid recommendation service that combines rule-based filtering with ML.
  * Communicates with C++ engine via JSON files for cross-language integration.
  * 
- * This service writes user preferences to input.json and reads recommendations
- * from output.json, enabling communication with the C++ and Python layers.
+ * Every request gets its own set of exchange files under <dataDirectory>/requests,
+ * named after a request ID, and passes their paths to the engine. Nothing about a
+ * request is kept in fields, so overlapping requests never share files or streams
+ * and can run in parallel.
+ *
+ * With an EngineWorker the service skips the files and the per-request process:
+ * requests go to a long-lived worker over stdin/stdout, as compact binary frames if
+ * the worker accepts them (BinaryExchangeCodec) and as line-delimited JSON otherwise.
+ *
+ * Exchange documents are written and read with the streaming ExchangeCodec,
+ * so results are decoded straight into Items without building a JSON tree.
+ *
+ * getRecommendationsBatch sends every uncached genre profile of a batch in one
+ * input document, so the engine and the Python model run once per batch.
+ *
+ * Every engine run has a deadline (setEngineTimeout); a run that exceeds it is killed
+ * together with the Python process it started. A worker that is still starting when the
+ * deadline passes is left to start, the request just doesn't wait for it. Failures and timeouts feed a circuit
+ * breaker, and while it is open no engine is started at all. A request that gets no
+ * engine result is answered with the last good result for its profile, or by the
+ * fallback service (see BaseRecommendationService.fallbackFor).
  */
 
 public class HybridRecommendationService extends BaseRecommendationService {
-    private Gson gson;
-    private String inputFilePath;
-    private String outputFilePath;
-    private BufferedWriter currentWriter;
-    private BufferedReader currentReader;
+    // model.py returns its default n=10 recommendations
+    private static final int RECOMMENDATION_COUNT = 10;
+
+    // C++ engine builds in the order they are tried (relative to java/ directory)
+    private static final List<String> ENGINE_PATHS = List.of(
+        "../cpp/build/Debug/crossai-engine.exe",
+        "../cpp/build/Release/crossai-engine.exe",
+        "../cpp/build/crossai-engine"); // Linux/Mac (no Debug/Release folder)
+
+    private static final Duration DEFAULT_ENGINE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int BREAKER_FAILURE_THRESHOLD = 5;
+    private static final Duration BREAKER_OPEN_DURATION = Duration.ofSeconds(30);
+    // engine output still arriving after exit (e.g. from a killed child) is not waited for longer
+    private static final long OUTPUT_DRAIN_MS = 1_000;
+    private static final int RANKING_DEPTH_CAPACITY = 10_000; // profiles
+
+    private final ExchangeCodec codec;
+    private final BinaryExchangeCodec binaryCodec;
+    private final Path exchangeDirectory;
+    private final EngineWorker worker; // null = spawn the C++ engine per request
+    private final CircuitBreaker engineBreaker;
+    // depth of the one deep ranking kept per profile, by generation-qualified genre mask
+    private final Cache<Integer> rankingDepths;
+    private volatile Duration engineTimeout;
+    private volatile List<String> engineCommand; // null = the C++ engine build found under ENGINE_PATHS
 
     public HybridRecommendationService(String dataDirectory) {
+        this(dataDirectory, null);
+    }
+
+    public HybridRecommendationService(String dataDirectory, EngineWorker worker) {
         super(dataDirectory);
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.inputFilePath = dataDirectory + "/input.json";
-        this.outputFilePath = dataDirectory + "/output.json";
-        this.currentWriter = null;
-        this.currentReader = null;
+        this.codec = new ExchangeCodec();
+        this.binaryCodec = new BinaryExchangeCodec();
+        this.exchangeDirectory = Paths.get(dataDirectory, "requests");
+        this.worker = worker;
+        this.engineBreaker = new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION);
+        this.rankingDepths = new Cache<>(RANKING_DEPTH_CAPACITY);
+        this.engineTimeout = DEFAULT_ENGINE_TIMEOUT;
+        metrics.setEngineCircuitBreaker(engineBreaker);
+    }
+
+    /**
+     * Results depend on the movie catalog, the ML model script and the C++ engine.
+     * The exchange files under requests/ are written per request and are not dependencies.
+     */
+    @Override
+    protected List<Path> getDependencies() {
+        List<Path> dependencies = new ArrayList<>();
+        dependencies.add(Paths.get(CatalogRecommendationService.DEFAULT_CATALOG_PATH));
+        dependencies.add(Paths.get(EngineWorker.DEFAULT_MODEL_SCRIPT));
+        for (String enginePath : ENGINE_PATHS) {
+            dependencies.add(Paths.get(enginePath));
+        }
+        return dependencies;
+    }
+
+    // a worker keeps the old catalog and model in memory, replace it before invalidating
+    @Override
+    protected void dependencyChanged(Path file) {
+        if (worker != null) {
+            worker.restart();
+        }
+        super.dependencyChanged(file);
+    }
+
+    /**
+     * Paths of the files exchanged between Java, C++ and Python for one request.
+     */
+    private static final class ExchangeFiles {
+        final Path input;
+        final Path output;
+        final Path mlInput;
+        final Path mlOutput;
+
+        ExchangeFiles(Path directory, String requestId) {
+            this.input = directory.resolve(requestId + "-input.json").toAbsolutePath();
+            this.output = directory.resolve(requestId + "-output.json").toAbsolutePath();
+            this.mlInput = directory.resolve(requestId + "-ml_input.json").toAbsolutePath();
+            this.mlOutput = directory.resolve(requestId + "-ml_output.json").toAbsolutePath();
+        }
+
+        void delete() {
+            for (Path path : new Path[] { input, output, mlInput, mlOutput }) {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    EventLog.warn("FILE I/O", "Could not delete exchange file {}: {}", path, e.getMessage());
+                }
+            }
+        }
     }
 
     @Override
@@ -53,270 +157,547 @@ public class HybridRecommendationService extends BaseRecommendationService {
     validateUser(user);
     
     // check cache first
-    String cacheKey = "user_" + user.getName() + "_" + user.getAge();
-    Optional<List<Item>> cachedResult = cache.get(cacheKey);
+    String cacheKey = profileKey("hybrid", user.getGenreMask(), RECOMMENDATION_COUNT);
+    Optional<List<Item>> cachedResult = lookupCache(cacheKey);
     
     if (cachedResult.isPresent()) {
         logRecommendation(user, cachedResult.get().size());
         if (loggingEnabled) {
-            System.out.println("[CACHE] Returning cached recommendations");
+            EventLog.info("CACHE", "Returning cached recommendations");
         }
         return cachedResult.get();
     }
     
     try {
-        // Step 1: Write user data to input.json
-        writeUserToJson(user);
-        
-        // Step 2: Call C++ engine
-        callCppEngine();
-        
-        // Step 3: Read recommendations from output.json
-        List<Item> recommendations = readRecommendationsFromJson();
-        
-        // Step 4: Cache the results
-        cache.put(cacheKey, recommendations);
+        // Steps 1-4: run the engine (worker or one-off process), read its results and cache them;
+        // concurrent requests for the same profile share one engine run
+        List<Item> recommendations = loadOnce(cacheKey,
+            () -> worker != null ? requestFromWorker(user) : requestFromEngine(user));
         
         // Step 5: Log the recommendation event
         logRecommendation(user, recommendations.size());
         
         return recommendations;
         
-    } catch (IOException e) {
-        return handleError(e, user);
     } catch (InterruptedException e) {
-        System.err.println("[ERROR] C++ engine was interrupted: " + e.getMessage());
+        EventLog.error("C++ ENGINE", "Engine was interrupted: {}", e.getMessage());
+        Thread.currentThread().interrupt();
         return handleError(new IOException("C++ engine interrupted"), user);
-    } finally {
+    } catch (Exception e) {
+        // engine failed, timed out or its circuit is open
+        return fallbackFor(cacheKey, user, e);
+    }
+    }
+
+    /**
+     * A page of the user's ranking. The first RECOMMENDATION_COUNT items are the usual
+     * result; deeper pages ask the engine for a deeper ranking (see Paging.rankingDepth).
+     * Only the deepest ranking per profile is cached, it serves every page above its depth
+     * and replaces the shallower one when it is computed.
+     */
+    @Override
+    public List<Item> getRecommendations(User user, int offset, int limit) {
+        Paging.checkPage(offset, limit);
+        int depth = Paging.rankingDepth(offset, limit, RECOMMENDATION_COUNT);
+        if (depth == RECOMMENDATION_COUNT) {
+            return Paging.page(getRecommendations(user), offset, limit);
+        }
+        validateUser(user);
+
+        int mask = user.getGenreMask();
+        Optional<List<Item>> cachedRanking = lookupRanking(mask, depth);
+        if (cachedRanking.isPresent()) {
+            return Paging.page(cachedRanking.get(), offset, limit);
+        }
+
+        String cacheKey = profileKey("hybrid", mask, depth);
+        List<Item> ranking;
+        try {
+            ranking = loadOnce(cacheKey,
+                () -> worker != null ? requestFromWorker(user, depth) : requestFromEngine(user, depth));
+            keepDeepestRanking(mask, depth);
+        } catch (InterruptedException e) {
+            EventLog.error("C++ ENGINE", "Engine was interrupted: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+            return handleError(new IOException("C++ engine interrupted"), user);
+        } catch (Exception e) {
+            ranking = fallbackFor(cacheKey, user, e);
+        }
+        logRecommendation(user, Math.max(0, Math.min(limit, ranking.size() - offset)));
+        return Paging.page(ranking, offset, limit);
+    }
+
+    // the deepest ranking of the profile first, then one of exactly the depth (e.g. from disk)
+    private Optional<List<Item>> lookupRanking(int mask, int depth) {
+        Optional<Integer> deepest = rankingDepths.get(rankingDepthKey(mask));
+        if (deepest.isPresent() && deepest.get() > depth) {
+            Optional<List<Item>> ranking = lookupCache(profileKey("hybrid", mask, deepest.get()));
+            if (ranking.isPresent()) {
+                return ranking;
+            }
+        }
+        return lookupCache(profileKey("hybrid", mask, depth));
+    }
+
+    // a new deepest ranking replaces the shallower one in memory and on disk,
+    // once it is in the cache (not if it was evicted or belongs to an older generation)
+    private void keepDeepestRanking(int mask, int depth) {
+        String depthKey = rankingDepthKey(mask);
+        int replaced;
+        synchronized (rankingDepths) {
+            if (!isCached(profileKey("hybrid", mask, depth))) {
+                return;
+            }
+            replaced = rankingDepths.peek(depthKey).orElse(0);
+            if (replaced >= depth) {
+                return;
+            }
+            rankingDepths.put(depthKey, depth);
+        }
+        if (replaced > 0) {
+            removeResult(profileKey("hybrid", mask, replaced));
+        }
+    }
+
+    private String rankingDepthKey(int mask) {
+        return cacheGeneration() + "/" + mask;
+    }
+
+    private List<Item> requestFromEngine(User user) throws IOException, InterruptedException {
+        return requestFromEngine(user, 0);
+    }
+
+    // one engine process per request, exchanging data through this request's files
+    private List<Item> requestFromEngine(User user, int count) throws IOException, InterruptedException {
+        ExchangeFiles files = new ExchangeFiles(exchangeDirectory, UUID.randomUUID().toString());
+        try {
+            Files.createDirectories(exchangeDirectory);
+
+            // Step 1: Write user data to this request's input file
+            writeUserToJson(user, count, files.input);
+
+            // Steps 2-3: Call C++ engine and read recommendations from this request's output file
+            return callCppEngine(files, () -> readRecommendationsFromJson(files.output));
+        } finally {
+            files.delete();
+        }
+    }
+
+    private List<Item> requestFromWorker(User user) throws IOException, InterruptedException {
+        return requestFromWorker(user, RECOMMENDATION_COUNT);
+    }
+
+    // one round trip to the long-lived worker, in the format it negotiated
+    private List<Item> requestFromWorker(User user, int count) throws IOException, InterruptedException {
+        List<Item> recommendations = callWorker(
+            out -> codec.writeProfileFields(out, user.getPreferredGenres(), count),
+            out -> binaryCodec.writeProfileRequest(out, user.getGenreMask(), count),
+            response -> response.isBinary()
+                ? binaryCodec.readRecommendations(response.getBody())
+                : codec.readRecommendations(response.getLine(), "ml_recommendations"));
+        if (loggingEnabled) {
+            EventLog.debug("ENGINE WORKER", "Received {} recommendations", recommendations.size());
+        }
+        return recommendations;
+    }
+
+    // an "error" response or one that doesn't decode is an engine failure, not a parse problem
+    private <T> T callWorker(EngineWorker.RequestBody json, EngineWorker.BinaryRequestBody binary,
+                             ResponseDecoder<T> decoder) throws IOException, InterruptedException {
+        acquireEngine();
+        long start = System.nanoTime();
+        long deadline = start + engineTimeout.toNanos();
         try {
-            close();
+            CompletableFuture<EngineWorker.Response> pending;
+            try {
+                pending = worker.send(json, binary, deadline);
+            } catch (TimeoutException e) {
+                // still loading its model, not stuck: it keeps starting for the next request
+                metrics.recordEngineTimeout();
+                throw new WorkerNotReadyException("Engine worker was not ready within " + engineTimeout.toMillis() + " ms");
+            }
+            EngineWorker.Response response = pending.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            metrics.record(Stage.ENGINE, start);
+
+            long parseStart = System.nanoTime();
+            T result = decoder.decode(response);
+            metrics.record(Stage.PARSE, parseStart);
+            metrics.recordEngineSuccess();
+            engineBreaker.recordSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            // the worker answers in order, so everything behind this request is stuck too
+            worker.kill();
+            metrics.recordEngineTimeout();
+            metrics.recordEngineFailure();
+            engineBreaker.recordFailure();
+            throw new IOException("Engine worker did not answer within " + engineTimeout.toMillis() + " ms");
+        } catch (WorkerNotReadyException e) {
+            engineBreaker.release(); // a slow start says nothing about the engine's answers
+            throw e;
         } catch (IOException e) {
-            System.err.println("[ERROR] Failed to close resources: " + e.getMessage());
+            metrics.recordEngineFailure();
+            engineBreaker.recordFailure();
+            throw e;
+        } catch (ExecutionException e) {
+            metrics.recordEngineFailure();
+            engineBreaker.recordFailure();
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        } catch (InterruptedException | RuntimeException e) {
+            engineBreaker.release(); // given up by the caller, says nothing about the engine
+            throw e;
         }
     }
+
+    // refuse quickly while the engine keeps failing
+    /**
+     * The worker was still starting when the request's deadline ran out.
+     * Callers fall back as for any IOException, but it is no engine failure.
+     */
+    private static final class WorkerNotReadyException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        WorkerNotReadyException(String message) {
+            super(message);
+        }
     }
 
-    private void writeUserToJson(User user) throws IOException {
-        // JSON structure
-        JsonObject root = new JsonObject();
-        JsonObject userObj = new JsonObject();
+    private void acquireEngine() throws IOException {
+        if (!engineBreaker.allowRequest()) {
+            throw new IOException("Engine circuit is open after repeated failures, not calling the engine");
+        }
+    }
 
-        userObj.addProperty("name", user.getName());
-        userObj.addProperty("age", user.getAge());
+    private interface ResponseDecoder<T> {
+        T decode(EngineWorker.Response response) throws IOException;
+    }
 
-        // convert Genre enum list to String array for json
-        JsonArray genresArray = new JsonArray();
-        for (Genre genre : user.getPreferredGenres()) {
-            genresArray.add(genre.getDisplayName());
+    private interface OutputReader<T> {
+        T read() throws IOException;
+    }
+
+    /**
+     * Recommendations for many users with a single engine run.
+     * Users are grouped by genre profile; cached profiles are answered from the cache
+     * and all other profiles go to the engine together. Results are returned in the
+     * order of the given users.
+     */
+    @Override
+    public List<List<Item>> getRecommendationsBatch(List<User> users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Users cannot be null");
+        }
+        for (User user : users) {
+            validateUser(user);
         }
-        userObj.add("preferredGenres", genresArray);
 
-        root.add("user", userObj);
-        root.addProperty("action", "GET_RECOMMENDATIONS");
+        // results computed from before a dependency change are not stored as current
+        long generation = cacheGeneration();
 
-        // write to file
-        currentWriter = new BufferedWriter(new FileWriter(inputFilePath));
-        currentWriter.write(gson.toJson(root));
-        currentWriter.flush();
+        // one entry per genre profile, one representative user per uncached profile
+        Map<Integer, List<Item>> resultsByProfile = new HashMap<>();
+        List<User> uncachedProfiles = new ArrayList<>();
+
+        for (User user : users) {
+            int mask = user.getGenreMask();
+            if (resultsByProfile.containsKey(mask)) {
+                continue;
+            }
+            Optional<List<Item>> cachedResult = lookupCache(profileKey("hybrid", mask, RECOMMENDATION_COUNT));
+            resultsByProfile.put(mask, cachedResult.orElse(null));
+            if (cachedResult.isEmpty()) {
+                uncachedProfiles.add(user);
+            }
+        }
 
         if (loggingEnabled) {
-            System.out.println("[FILE I/O] Wrote user data to: " + inputFilePath);
+            EventLog.info("BATCH", "{} users, {} profiles, {} sent to engine",
+                          users.size(), resultsByProfile.size(), uncachedProfiles.size());
         }
 
+        if (!uncachedProfiles.isEmpty()) {
+            try {
+                List<List<Item>> fetched = worker != null ? batchFromWorker(uncachedProfiles)
+                                                          : batchFromEngine(uncachedProfiles);
+                for (int i = 0; i < uncachedProfiles.size(); i++) {
+                    int mask = uncachedProfiles.get(i).getGenreMask();
+                    storeResult(profileKey("hybrid", mask, RECOMMENDATION_COUNT), fetched.get(i), generation);
+                    resultsByProfile.put(mask, fetched.get(i));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                EventLog.error("BATCH", "Batch of {} profiles was interrupted", uncachedProfiles.size(), e);
+            } catch (IOException e) {
+                EventLog.warn("BATCH", "Batch of {} profiles failed: {}", uncachedProfiles.size(), e.getMessage());
+                for (User user : uncachedProfiles) {
+                    String cacheKey = profileKey("hybrid", user.getGenreMask(), RECOMMENDATION_COUNT);
+                    resultsByProfile.put(user.getGenreMask(), fallbackFor(cacheKey, user, e));
+                }
+            }
+        }
+
+        List<List<Item>> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            List<Item> recommendations = resultsByProfile.get(user.getGenreMask());
+            results.add(recommendations != null ? recommendations : new ArrayList<>());
+        }
+        return results;
+    }
+
+    private List<List<Item>> batchFromEngine(List<User> users) throws IOException, InterruptedException {
+        ExchangeFiles files = new ExchangeFiles(exchangeDirectory, UUID.randomUUID().toString());
+        try {
+            Files.createDirectories(exchangeDirectory);
+
+            long writeStart = System.nanoTime();
+            codec.writeBatchRequest(files.input, users);
+            metrics.record(Stage.WRITE_INPUT, writeStart);
+            logFileWritten(files.input);
+
+            return callCppEngine(files, () -> {
+                if (!Files.exists(files.output)) {
+                    throw new IOException("Engine did not write batch output: " + files.output);
+                }
+                long readStart = System.nanoTime();
+                List<List<Item>> results = codec.readBatchResults(files.output, "recommendations", users.size());
+                metrics.record(Stage.READ_OUTPUT, readStart);
+                logFileRead(files.output);
+                return results;
+            });
+        } finally {
+            files.delete();
+        }
+    }
+
+    private List<List<Item>> batchFromWorker(List<User> users) throws IOException, InterruptedException {
+        return callWorker(
+            out -> codec.writeBatchProfileFields(out, users),
+            out -> binaryCodec.writeBatchRequest(out, users),
+            response -> response.isBinary()
+                ? binaryCodec.readBatchResults(response.getBody(), users.size())
+                : codec.readBatchResults(response.getLine(), "ml_recommendations", users.size()));
+    }
+
+    private void writeUserToJson(User user, int count, Path inputFile) throws IOException {
+        long start = System.nanoTime();
+        codec.writeRequest(inputFile, user, count);
+        metrics.record(Stage.WRITE_INPUT, start);
+        logFileWritten(inputFile);
+    }
+
+    private void logFileWritten(Path file) {
+        if (loggingEnabled) {
+            EventLog.debug("FILE I/O", "Wrote user data to: {}", file);
+        }
+    }
+
+    private void logFileRead(Path file) {
+        if (loggingEnabled) {
+            EventLog.debug("FILE I/O", "Read recommendations from: {}", file);
+        }
     }
 
     /**
      * Call the C++ recommendation engine.
-     * Executes the C++ executable and waits for it to complete.
+     * Executes the C++ executable and waits for it to complete, at most engineTimeout.
+     * The request's exchange file paths are passed as arguments:
+     * input, output, ML input, ML output.
+     * The run only counts as a success for the circuit breaker once its output is read.
      * 
-     * @throws IOException if engine execution fails
+     * @param files exchange files of the current request
+     * @param readOutput reads the results from the output file
+     * @throws IOException if engine execution fails, times out, its output is missing or
+     *                     unreadable, or its circuit is open
      * @throws InterruptedException if engine is interrupted
      */
 
-    private void callCppEngine() throws IOException, InterruptedException {
+    private <T> T callCppEngine(ExchangeFiles files, OutputReader<T> readOutput)
+            throws IOException, InterruptedException {
+        acquireEngine();
+        try {
+            runCppEngine(files);
+            T result = readOutput.read();
+            engineBreaker.recordSuccess();
+            return result;
+        } catch (IOException e) {
+            engineBreaker.recordFailure();
+            throw e;
+        } catch (InterruptedException | RuntimeException e) {
+            engineBreaker.release();
+            throw e;
+        }
+    }
+
+    private void runCppEngine(ExchangeFiles files) throws IOException, InterruptedException {
         if (loggingEnabled) {
-            System.out.println("[C++ ENGINE] Calling C++ recommendation engine...");
+            EventLog.info("C++ ENGINE", "Calling C++ recommendation engine...");
         }
         
-        // Path to C++ executable (relative to java/ directory)
-        String cppEnginePath = "../cpp/build/Debug/crossai-engine.exe";
-        
-        // Check if file exists
-        File engineFile = new File(cppEnginePath);
-        if (!engineFile.exists()) {
-            // Try Release build
-            cppEnginePath = "../cpp/build/Release/crossai-engine.exe";
-            engineFile = new File(cppEnginePath);
-            
-            if (!engineFile.exists()) {
-                // Try Linux/Mac path (no Debug/Release folder)
-                cppEnginePath = "../cpp/build/crossai-engine";
-                engineFile = new File(cppEnginePath);
-                
-                if (!engineFile.exists()) {
-                    throw new IOException("C++ engine not found. Build it first with: cd cpp/build && cmake --build .");
+        List<String> command = new ArrayList<>();
+        List<String> customCommand = engineCommand;
+        if (customCommand != null) {
+            command.addAll(customCommand);
+        } else {
+            // first C++ executable that exists
+            File engineFile = null;
+            for (String enginePath : ENGINE_PATHS) {
+                File candidate = new File(enginePath);
+                if (candidate.exists()) {
+                    engineFile = candidate;
+                    break;
                 }
             }
+            if (engineFile == null) {
+                metrics.recordEngineFailure();
+                throw new IOException("C++ engine not found. Build it first with: cd cpp/build && cmake --build .");
+            }
+            command.add(engineFile.getAbsolutePath());
         }
         
         if (loggingEnabled) {
-            System.out.println("[C++ ENGINE] Using engine: " + engineFile.getAbsolutePath());
+            EventLog.debug("C++ ENGINE", "Using engine: {}", command.get(0));
         }
         
         // Execute the C++ engine
-        ProcessBuilder processBuilder = new ProcessBuilder(engineFile.getAbsolutePath());
+        command.add(files.input.toString());
+        command.add(files.output.toString());
+        command.add(files.mlInput.toString());
+        command.add(files.mlOutput.toString());
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
         processBuilder.redirectErrorStream(true); // Combine stdout and stderr
         
         // CRITICAL: Set working directory to cpp/build/ so relative paths work
-        File cppBuildDir = new File("../cpp/build");
-        processBuilder.directory(cppBuildDir.getAbsoluteFile());
+        if (customCommand == null) {
+            File cppBuildDir = new File("../cpp/build");
+            processBuilder.directory(cppBuildDir.getAbsoluteFile());
+            
+            if (loggingEnabled) {
+                EventLog.debug("C++ ENGINE", "Working directory: {}", cppBuildDir);
+            }
+        }
         
-        if (loggingEnabled) {
-            System.out.println("[C++ ENGINE] Working directory: " + cppBuildDir.getAbsolutePath());
+        long start = System.nanoTime();
+        Process process;
+        try {
+            process = processBuilder.start();
+        } catch (IOException e) {
+            metrics.recordEngineFailure();
+            throw e;
         }
         
-        Process process = processBuilder.start();
+        // Capture output for logging on a separate thread, so waiting stays interruptible
+        Thread outputReader = new Thread(() -> logEngineOutput(process), "engine-output-" + process.pid());
+        outputReader.setDaemon(true);
+        outputReader.start();
         
-        // Capture output for logging
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (loggingEnabled) {
-                    System.out.println("[C++ ENGINE] " + line);
-                }
+        // Wait for process to complete, a cancelled or overdue request kills the engine and Python
+        int exitCode;
+        try {
+            if (!process.waitFor(engineTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                destroyProcessTree(process);
+                metrics.recordEngineTimeout();
+                metrics.recordEngineFailure();
+                throw new IOException("C++ engine did not finish within " + engineTimeout.toMillis() + " ms");
             }
+            exitCode = process.exitValue();
+            outputReader.join(OUTPUT_DRAIN_MS);
+        } catch (InterruptedException e) {
+            destroyProcessTree(process);
+            metrics.recordEngineFailure();
+            throw e;
         }
-        
-        // Wait for process to complete
-        int exitCode = process.waitFor();
+        metrics.record(Stage.ENGINE, start);
+        metrics.recordEngineExit(exitCode);
         
         if (exitCode != 0) {
             throw new IOException("C++ engine failed with exit code: " + exitCode);
         }
         
         if (loggingEnabled) {
-            System.out.println("[C++ ENGINE] Engine completed successfully");
+            EventLog.info("C++ ENGINE", "Engine completed successfully");
         }
 }
 
+    // the pipe is always drained so the engine never blocks on a full buffer,
+    // but lines are only decoded when someone will see them
+    private void logEngineOutput(Process process) {
+        if (!loggingEnabled || !EventLog.isEnabled(EventLog.Level.DEBUG)) {
+            try (InputStream output = process.getInputStream()) {
+                output.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                // stream closed because the engine was killed
+            }
+            return;
+        }
 
-
-    private List<Item> readRecommendationsFromJson() throws IOException {
-    // Check if output file exists
-    if (!Files.exists(Paths.get(outputFilePath))) {
-        System.err.println("[WARNING] Output file not found: " + outputFilePath);
-        System.err.println("[INFO] Creating sample output file for testing...");
-        createSampleOutputFile();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                EventLog.debug("C++ ENGINE", "{}", line);
+            }
+        } catch (IOException e) {
+            // stream closed because the engine was killed
+        }
     }
-    
-    // Read the file
-    currentReader = new BufferedReader(new FileReader(outputFilePath));
-    StringBuilder jsonContent = new StringBuilder();
-    String line;
-    
-    while ((line = currentReader.readLine()) != null) {
-        jsonContent.append(line);
+
+    // the engine starts Python through system(), so kill its children too
+    private static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
     }
-    
-    if (loggingEnabled) {
-        System.out.println("[FILE I/O] Read recommendations from: " + outputFilePath);
+
+
+
+    private List<Item> readRecommendationsFromJson(Path outputFile) throws IOException {
+        // an engine that exits 0 without output failed all the same
+        if (!Files.exists(outputFile)) {
+            throw new IOException("Engine did not write output: " + outputFile);
+        }
+
+        long start = System.nanoTime();
+        List<Item> recommendations = codec.readRecommendations(outputFile, "recommendations");
+        metrics.record(Stage.READ_OUTPUT, start);
+        logFileRead(outputFile);
+        return recommendations;
     }
-    
-    // Parse JSON
-    JsonObject root = gson.fromJson(jsonContent.toString(), JsonObject.class);
-    JsonArray recommendationsArray = root.getAsJsonArray("recommendations");
-    
-    List<Item> items = new ArrayList<>();
-    
-    if (recommendationsArray != null) {
-        for (JsonElement element : recommendationsArray) {
-            JsonObject itemObj = element.getAsJsonObject();
-            
-            int id = itemObj.get("id").getAsInt();
-            String title = itemObj.get("title").getAsString();
-            String description = itemObj.has("description") ? 
-                                itemObj.get("description").getAsString() : "";
-            
-            // Parse genres array
-            List<String> genres = new ArrayList<>();
-            if (itemObj.has("genres")) {
-                JsonArray genresArray = itemObj.getAsJsonArray("genres");
-                for (JsonElement genreElement : genresArray) {
-                    genres.add(genreElement.getAsString());
-                }
-            }
-            
-            // Parse rating
-            double rating = 0.0;
-            if (itemObj.has("rating")) {
-                rating = itemObj.get("rating").getAsDouble();
-            } else if (itemObj.has("vote_average")) {
-                // Python ML returns "vote_average"
-                rating = itemObj.get("vote_average").getAsDouble();
-            }
-            
-            items.add(new Item(id, title, description, genres, rating));
+
+    // every request closes its own files, only the worker (if any) outlives a request
+    @Override
+    public void close() throws IOException {
+        cancelWarmUp();
+        if (worker != null) {
+            worker.close();
         }
+        super.close();
     }
-    
-    return items;
-}
 
     /**
-     * Create a sample output file for testing before C++ engine is ready.
-     * This is a temporary helper method.
-     * 
-     * @throws IOException if file creation fails
+     * Deadline of one engine run (process or worker round trip).
      */
-
-    private void createSampleOutputFile() throws IOException {
-        JsonObject root = new JsonObject();
-        JsonArray recommendations = new JsonArray();
-        
-        // Sample movies
-        JsonObject movie1 = new JsonObject();
-        movie1.addProperty("id", 1);
-        movie1.addProperty("title", "Inception");
-        movie1.addProperty("description", "A mind-bending thriller about dreams within dreams");
-        recommendations.add(movie1);
-        
-        JsonObject movie2 = new JsonObject();
-        movie2.addProperty("id", 2);
-        movie2.addProperty("title", "The Matrix");
-        movie2.addProperty("description", "A hacker discovers the reality is a simulation");
-        recommendations.add(movie2);
-        
-        JsonObject movie3 = new JsonObject();
-        movie3.addProperty("id", 3);
-        movie3.addProperty("title", "Interstellar");
-        movie3.addProperty("description", "A team of explorers travel through a wormhole in space");
-        recommendations.add(movie3);
-        
-        root.add("recommendations", recommendations);
-        root.addProperty("status", "success");
-        root.addProperty("message", "Sample recommendations generated");
-        
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFilePath))) {
-            writer.write(gson.toJson(root));
-            writer.flush();
+    public void setEngineTimeout(Duration engineTimeout) {
+        if (engineTimeout == null || engineTimeout.isNegative() || engineTimeout.isZero()) {
+            throw new IllegalArgumentException("Engine timeout must be positive");
         }
-        
-        System.out.println("[INFO] Sample output file created at: " + outputFilePath);
+        this.engineTimeout = engineTimeout;
     }
 
-    // close any open file resources - destructor pattern
-    public void close() throws IOException {
-        if (currentWriter != null) {
-            currentWriter.close();
-            currentWriter = null;
-        }
-        if (currentReader != null) {
-            currentReader.close();
-            currentReader = null;
+    /**
+     * Run another executable instead of the C++ engine build, e.g. crossai.load.StubEngine.
+     * It gets the same four exchange file arguments and runs in the current directory.
+     *
+     * @param command executable and its leading arguments, null for the C++ engine
+     */
+    public void setEngineCommand(List<String> command) {
+        if (command != null && command.isEmpty()) {
+            throw new IllegalArgumentException("Engine command cannot be empty");
         }
+        this.engineCommand = command == null ? null : List.copyOf(command);
     }
 
-    public String getInputFilePath() { return inputFilePath; }
-    public String getOutputFilePath() { return outputFilePath; }
+    public Duration getEngineTimeout() { return engineTimeout; }
+    public CircuitBreaker getEngineBreaker() { return engineBreaker; }
+    public Path getExchangeDirectory() { return exchangeDirectory; }
+    public boolean isUsingWorker() { return worker != null; }
 }
@@ -1,10 +1,14 @@
 package crossai.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import crossai.catalog.TopKSelector;
+import crossai.model.Genre;
 import crossai.model.Item;
 import crossai.model.User;
+import crossai.util.EventLog;
 
 /**
  * Mock implementation of recommendation service for testing.
@@ -14,43 +18,71 @@ import crossai.model.User;
  * - Unit testing other components
  * - Development when C++ engine is not ready
  * - Quick demos and prototyping
+ *
+ * Items are ranked by how many genres they share with the user, ties (and users
+ * without genres) in database order. Scoring runs over a primitive array of genre
+ * masks with TopKSelector, so a large mock database is scanned in parallel.
  */
 public class MockRecommendationService extends BaseRecommendationService {
+    private static final int RECOMMENDATION_COUNT = 5;
     
-    private List<Item> mockDatabase;
+    // replaced as a whole when an item is added, so a request sees one consistent database
+    private volatile MockDatabase mockDatabase;
 
     public MockRecommendationService(String dataDirectory) {
         super(dataDirectory);
         initializeMockDatabase();
     }
     
+    /**
+     * Items and their genre masks, in the same order. Never changed once published.
+     */
+    private static final class MockDatabase {
+        final List<Item> items;
+        final int[] genreMasks;
+
+        MockDatabase(List<Item> items) {
+            this.items = List.copyOf(items);
+            this.genreMasks = new int[items.size()];
+            for (int i = 0; i < genreMasks.length; i++) {
+                genreMasks[i] = this.items.get(i).getGenreMask();
+            }
+        }
+    }
+
     /**
      * Initialize mock movie database with sample data.
      */
     private void initializeMockDatabase() {
-        mockDatabase = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
         
         // Action movies
-        mockDatabase.add(new Item(1, "The Dark Knight", "Batman fights Joker in Gotham"));
-        mockDatabase.add(new Item(2, "Mad Max: Fury Road", "Post-apocalyptic chase"));
-        mockDatabase.add(new Item(3, "John Wick", "Assassin seeks revenge"));
+        items.add(mockItem(1, "The Dark Knight", "Batman fights Joker in Gotham", Genre.ACTION, Genre.CRIME, Genre.DRAMA));
+        items.add(mockItem(2, "Mad Max: Fury Road", "Post-apocalyptic chase", Genre.ACTION, Genre.ADVENTURE));
+        items.add(mockItem(3, "John Wick", "Assassin seeks revenge", Genre.ACTION, Genre.THRILLER));
         
         // Sci-Fi movies
-        mockDatabase.add(new Item(4, "Inception", "Dreams within dreams"));
-        mockDatabase.add(new Item(5, "The Matrix", "Reality is simulation"));
-        mockDatabase.add(new Item(6, "Interstellar", "Space exploration"));
+        items.add(mockItem(4, "Inception", "Dreams within dreams", Genre.SCIENCE_FICTION, Genre.ACTION));
+        items.add(mockItem(5, "The Matrix", "Reality is simulation", Genre.SCIENCE_FICTION, Genre.ACTION));
+        items.add(mockItem(6, "Interstellar", "Space exploration", Genre.SCIENCE_FICTION, Genre.DRAMA));
         
         // Comedy movies
-        mockDatabase.add(new Item(7, "The Grand Budapest Hotel", "Quirky hotel adventure"));
-        mockDatabase.add(new Item(8, "Superbad", "Teenage party comedy"));
+        items.add(mockItem(7, "The Grand Budapest Hotel", "Quirky hotel adventure", Genre.COMEDY, Genre.ADVENTURE));
+        items.add(mockItem(8, "Superbad", "Teenage party comedy", Genre.COMEDY));
         
         // Drama movies
-        mockDatabase.add(new Item(9, "The Shawshank Redemption", "Prison drama"));
-        mockDatabase.add(new Item(10, "Forrest Gump", "Life story of simple man"));
+        items.add(mockItem(9, "The Shawshank Redemption", "Prison drama", Genre.DRAMA, Genre.CRIME));
+        items.add(mockItem(10, "Forrest Gump", "Life story of simple man", Genre.DRAMA, Genre.ROMANCE));
         
         // Horror movies
-        mockDatabase.add(new Item(11, "The Shining", "Haunted hotel horror"));
-        mockDatabase.add(new Item(12, "Get Out", "Psychological horror"));
+        items.add(mockItem(11, "The Shining", "Haunted hotel horror", Genre.HORROR));
+        items.add(mockItem(12, "Get Out", "Psychological horror", Genre.HORROR, Genre.THRILLER));
+
+        mockDatabase = new MockDatabase(items);
+    }
+
+    private static Item mockItem(int id, String title, String description, Genre... genres) {
+        return new Item(id, title, description, Arrays.asList(genres), 0.0);
     }
     
     @Override
@@ -58,44 +90,66 @@ public class MockRecommendationService extends BaseRecommendationService {
         validateUser(user);
         
         // Check cache first
-        String cacheKey = "mock_" + user.getName();
-        var cachedResult = cache.get(cacheKey);
+        String cacheKey = profileKey("mock", user.getGenreMask(), RECOMMENDATION_COUNT);
+        var cachedResult = lookupCache(cacheKey);
         
         if (cachedResult.isPresent()) {
             logRecommendation(user, cachedResult.get().size());
             if (loggingEnabled) {
-                System.out.println("[CACHE] Returning cached mock recommendations");
+                EventLog.info("CACHE", "Returning cached mock recommendations");
             }
             return cachedResult.get();
         }
         
-        // For mock: just return first 5 items
-        // In real implementation, would filter by user's preferred genres
-        List<Item> recommendations = new ArrayList<>();
-        int count = Math.min(5, mockDatabase.size());
-        
-        for (int i = 0; i < count; i++) {
-            recommendations.add(mockDatabase.get(i));
+        // Compute and cache once, even if the same profile is asked for concurrently
+        List<Item> recommendations;
+        try {
+            recommendations = loadOnce(cacheKey, () -> selectMockItems(user.getGenreMask()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return handleError(e, user);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            return handleError(e, user);
         }
         
-        // Cache the results
-        cache.put(cacheKey, recommendations);
-        
         // Log using base class method
         logRecommendation(user, recommendations.size());
         
         if (loggingEnabled) {
-            System.out.println("[MOCK] Returned mock data (no file I/O)");
+            EventLog.info("MOCK", "Returned mock data (no file I/O)");
         }
         
         return recommendations;
     }
     
-    public List<Item> getAllMockItems() { return new ArrayList<>(mockDatabase); }
+    // every item scores 1 plus its shared genres, so there are always 5 results
+    private List<Item> selectMockItems(int userGenreMask) {
+        MockDatabase database = mockDatabase;
+        int[] masks = database.genreMasks;
+        int[] best = TopKSelector.topK(masks.length, RECOMMENDATION_COUNT,
+            i -> 1 + Integer.bitCount(masks[i] & userGenreMask));
+
+        List<Item> recommendations = new ArrayList<>(best.length);
+        for (int i : best) {
+            recommendations.add(database.items.get(i));
+        }
+        return recommendations;
+    }
+    
+    public List<Item> getAllMockItems() { return new ArrayList<>(mockDatabase.items); }
     
-    public void addMockItem(Item item) {
+    /**
+     * Add an item to the database. Requests running meanwhile keep ranking the old one;
+     * cached results are dropped, as they may now be missing the item.
+     */
+    public synchronized void addMockItem(Item item) {
         if (item != null) {
-            mockDatabase.add(item);
+            List<Item> items = new ArrayList<>(mockDatabase.items);
+            items.add(item);
+            mockDatabase = new MockDatabase(items);
+            clearCache();
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package crossai.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import crossai.model.Item;
+
+/**
+ * Helpers for offset/limit pages of a ranking and for streaming a ranking page by page.
+ */
+
+public final class Paging {
+    // deepest ranking a service computes; pages beyond it are empty
+    public static final int MAX_RANKING_DEPTH = 1_000;
+
+    private Paging() {
+    }
+
+    public static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+    }
+
+    // items offset .. offset+limit-1 of a ranking, copied so the page doesn't keep the ranking alive
+    public static List<Item> page(List<Item> ranking, int offset, int limit) {
+        if (offset >= ranking.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(ranking.subList(offset, (int) Math.min(ranking.size(), (long) offset + limit)));
+    }
+
+    /**
+     * Ranking depth to compute for a page: the next power of two from minimum that
+     * covers the page, so later pages mostly fall into a ranking computed already.
+     *
+     * @param offset first item of the page
+     * @param limit items on the page
+     * @param minimum depth of the service's default result
+     * @return depth, at most MAX_RANKING_DEPTH
+     */
+    public static int rankingDepth(int offset, int limit, int minimum) {
+        long needed = (long) offset + limit;
+        long depth = minimum;
+        while (depth < needed && depth < MAX_RANKING_DEPTH) {
+            depth *= 2;
+        }
+        return (int) Math.min(depth, MAX_RANKING_DEPTH);
+    }
+
+    /**
+     * Lazy stream over a ranking. Pages are fetched when the stream reaches them, so
+     * a stream cut short with limit() or findFirst() never asks for the rest.
+     * The stream ends after the first page shorter than pageSize.
+     *
+     * @param pageAt page starting at the given offset
+     * @param pageSize items asked for per page
+     */
+    public static Stream<Item> stream(IntFunction<List<Item>> pageAt, int pageSize) {
+        checkPage(0, pageSize);
+        Spliterator<Item> pages = new Spliterators.AbstractSpliterator<Item>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int offset;
+            private Iterator<Item> current = Collections.emptyIterator();
+            private boolean lastPage;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Item> action) {
+                while (!current.hasNext()) {
+                    if (lastPage) {
+                        return false;
+                    }
+                    List<Item> page = pageAt.apply(offset);
+                    offset += page.size();
+                    lastPage = page.size() < pageSize;
+                    current = page.iterator();
+                }
+                action.accept(current.next());
+                return true;
+            }
+        };
+        return StreamSupport.stream(pages, false);
+    }
+}
@@ -1,9 +1,15 @@
 package crossai.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import crossai.model.Item;
 import crossai.model.User;
+import crossai.util.TaskExecutors;
 
 /**
  * Interface for recommendation services.
@@ -15,4 +21,59 @@ import crossai.model.User;
 
 public interface RecommendationService {
     List<Item> getRecommendations(User user);
+
+    /**
+     * One page of the user's ranking: items offset .. offset+limit-1, fewer (or none)
+     * past its end. The default slices getRecommendations; services that can rank
+     * deeper override it and compute only as deep as the page needs.
+     */
+    default List<Item> getRecommendations(User user, int offset, int limit) {
+        Paging.checkPage(offset, limit);
+        return Paging.page(getRecommendations(user), offset, limit);
+    }
+
+    /**
+     * The user's ranking as a lazy stream, fetched pageSize items at a time as it is
+     * consumed, e.g. streamRecommendations(user, 50).skip(200).limit(50).
+     */
+    default Stream<Item> streamRecommendations(User user, int pageSize) {
+        return Paging.stream(offset -> getRecommendations(user, offset, pageSize), pageSize);
+    }
+
+    /**
+     * Recommendations for many users at once, in the same order as the users.
+     * The default asks for each user separately; services with a per-call cost
+     * (process spawn, model load) should override it to do the work once.
+     */
+    default List<List<Item>> getRecommendationsBatch(List<User> users) {
+        if (users == null) {
+            throw new IllegalArgumentException("Users cannot be null");
+        }
+        List<List<Item>> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            results.add(getRecommendations(user));
+        }
+        return results;
+    }
+
+    /**
+     * Non-blocking variant of getRecommendations.
+     * Runs on the shared task executor (virtual threads on Java 21+).
+     * Cancelling the returned future interrupts the request, which stops the engine run.
+     */
+    default CompletableFuture<List<Item>> getRecommendationsAsync(User user) {
+        return TaskExecutors.supplyAsync(() -> getRecommendations(user), TaskExecutors.shared());
+    }
+
+    /**
+     * Non-blocking variant with a deadline.
+     * If no result is ready in time the future fails with a TimeoutException
+     * and the request is cancelled.
+     */
+    default CompletableFuture<List<Item>> getRecommendationsAsync(User user, Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        return getRecommendationsAsync(user).orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
 }
@@ -0,0 +1,130 @@
+package crossai.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import crossai.model.Genre;
+import crossai.util.EventLog;
+
+/**
+ * Genre profiles worth computing before the first user asks for them.
+ *
+ * Every single-genre profile, followed by the most common combinations listed in a
+ * profile-frequency file. The file has one profile per line, a request count and the
+ * profile's genres separated by commas:
+ *
+ *   1520    Action,Sci-Fi
+ *   980     Comedy,Romance
+ *
+ * Blank lines and lines starting with # are skipped, as are lines naming an unknown genre.
+ * A profile listed twice has its counts added up.
+ */
+
+public final class WarmUpProfiles {
+
+    private WarmUpProfiles() {
+    }
+
+    // one profile per genre, in enum order
+    public static List<Integer> singleGenres() {
+        List<Integer> masks = new ArrayList<>();
+        for (Genre genre : Genre.values()) {
+            masks.add(genre.mask());
+        }
+        return masks;
+    }
+
+    /**
+     * Most frequent profiles of a profile-frequency file.
+     *
+     * @param file profile-frequency file
+     * @param limit maximum number of profiles returned
+     * @return genre masks, most frequent first
+     * @throws IOException if the file can't be read
+     */
+    public static List<Integer> mostFrequent(Path file, int limit) throws IOException {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        Map<Integer, Long> counts = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int mask = parseLine(line, counts);
+                if (mask == 0) {
+                    EventLog.warn("WARM-UP", "Skipping line {} of the profile file: {}", lineNumber, line);
+                }
+            }
+        }
+
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                         .thenComparing(Map.Entry.comparingByKey()));
+        List<Integer> masks = new ArrayList<>(Math.min(limit, entries.size()));
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            masks.add(entries.get(i).getKey());
+        }
+        return masks;
+    }
+
+    // adds the line's count to its profile, returns the profile's mask or 0 if the line is invalid
+    private static int parseLine(String line, Map<Integer, Long> counts) {
+        String[] fields = line.split("\\s+", 2);
+        if (fields.length < 2) {
+            return 0;
+        }
+        long count;
+        try {
+            count = Long.parseLong(fields[0]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+
+        int mask = 0;
+        for (String name : fields[1].split(",")) {
+            Genre genre = Genre.fromString(name);
+            if (genre == null) {
+                return 0;
+            }
+            mask |= genre.mask();
+        }
+        if (count > 0) {
+            counts.merge(mask, count, Long::sum);
+        }
+        return mask;
+    }
+
+    /**
+     * Single genres first, then the top combinations of the frequency file.
+     * A missing or unreadable file leaves just the single genres.
+     *
+     * @param frequencyFile profile-frequency file, may be null
+     * @param topCombinations how many profiles to take from the file
+     */
+    public static List<Integer> plan(Path frequencyFile, int topCombinations) {
+        Set<Integer> masks = new LinkedHashSet<>(singleGenres());
+        if (frequencyFile != null && Files.exists(frequencyFile)) {
+            try {
+                masks.addAll(mostFrequent(frequencyFile, topCombinations));
+            } catch (IOException e) {
+                EventLog.warn("WARM-UP", "Could not read profile file {}: {}", frequencyFile, e.getMessage());
+            }
+        }
+        return new ArrayList<>(masks);
+    }
+}
@@ -0,0 +1,69 @@
+package crossai.ui;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Font;
+import java.util.Locale;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JList;
+import javax.swing.JPanel;
+import javax.swing.ListCellRenderer;
+
+import crossai.model.Item;
+
+/**
+ * Paints one recommendation as two lines: rank and title, then ID, genres and rating.
+ * The description, when there is a real one, is the row's tooltip.
+ *
+ * A single component is reused for every row, and the JList only asks for the rows
+ * in view, so painting costs the same for ten results or a thousand.
+ */
+
+public class RecommendationCellRenderer extends JPanel implements ListCellRenderer<Item> {
+    private static final long serialVersionUID = 1L;
+    private static final String PLACEHOLDER_DESCRIPTION = "A great movie";
+
+    private final JLabel titleLabel = new JLabel();
+    private final JLabel detailsLabel = new JLabel();
+
+    public RecommendationCellRenderer() {
+        super(new BorderLayout(0, 2));
+        setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD));
+        detailsLabel.setFont(detailsLabel.getFont().deriveFont(Font.PLAIN, 11f));
+        add(titleLabel, BorderLayout.NORTH);
+        add(detailsLabel, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Item> list, Item item, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        titleLabel.setText((index + 1) + ". " + item.getTitle());
+        detailsLabel.setText(details(item));
+
+        String description = item.getDescription();
+        setToolTipText(description == null || description.isEmpty()
+                       || description.equals(PLACEHOLDER_DESCRIPTION) ? null : description);
+
+        setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
+        titleLabel.setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+        detailsLabel.setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
+        setEnabled(list.isEnabled());
+        return this;
+    }
+
+    // "🎬 ID: 550  🎭 Drama  ⭐ 8.4/10", leaving out unknown genres and missing ratings
+    static String details(Item item) {
+        StringBuilder details = new StringBuilder("🎬 ID: ").append(item.getId());
+        String genres = item.getGenresAsString();
+        if (!genres.equals("Unknown")) {
+            details.append("  🎭 ").append(genres);
+        }
+        if (item.getRating() > 0) {
+            details.append(String.format(Locale.ROOT, "  ⭐ %.1f/10", item.getRating()));
+        }
+        return details.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package crossai.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractListModel;
+
+import crossai.model.Item;
+
+/**
+ * List model of the recommendations shown in the GUI.
+ *
+ * Rows are appended page by page as results arrive; each append only announces the
+ * new rows, so the JList lays out and repaints what changed instead of the whole list.
+ * Like every Swing model it must be used on the event dispatch thread.
+ */
+
+public class RecommendationListModel extends AbstractListModel<Item> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Item> items = new ArrayList<>();
+
+    @Override
+    public int getSize() { return items.size(); }
+
+    @Override
+    public Item getElementAt(int index) { return items.get(index); }
+
+    public void append(List<Item> page) {
+        if (page.isEmpty()) {
+            return;
+        }
+        int first = items.size();
+        items.addAll(page);
+        fireIntervalAdded(this, first, items.size() - 1);
+    }
+
+    public void clear() {
+        if (items.isEmpty()) {
+            return;
+        }
+        int last = items.size() - 1;
+        items.clear();
+        fireIntervalRemoved(this, 0, last);
+    }
+}
@@ -1,19 +1,44 @@
 package crossai.util;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
 
 /**
- * Generic cache implementation for storing and retrieving objects.
- * Uses a HashMap internally for fast lookups. (basically a HashMap wrapper :D)
- * 
+ * Generic thread-safe cache for storing and retrieving objects.
+ *
+ * Entries live in a ConcurrentHashMap, so get() never blocks. Recency is tracked
+ * per segment in an LRU list guarded by the segment's lock; a read only moves its
+ * entry to the tail if the lock is free, so under heavy contention a few reorders
+ * are skipped instead of making readers wait. The weight of all segments is counted
+ * together; when it goes over the capacity, the least recently used entry of one
+ * segment after the other is evicted, starting with the segment just written to.
+ * So any entry up to the whole capacity is kept, however the keys are striped.
+ *
+ * Capacity is counted in weight units. By default every entry weighs 1, so the
+ * capacity is an entry count; a weigher can size entries by content instead
+ * (e.g. the length of a result list).
+ *
  * @param <T> The type of objects to cache
  */
 
 public class Cache<T> {
-    private final Map<String, T> cache;
-    private final int maxSize;
+    // below this capacity a single segment keeps the LRU order exact
+    private static final long MIN_WEIGHT_FOR_STRIPING = 1024;
+    private static final int SEGMENT_COUNT = 16;
+
+    private final ConcurrentHashMap<String, Node<T>> map;
+    private final Segment<T>[] segments;
+    private final ToIntFunction<? super T> weigher;
+    private final long maxWeight;
+    private final AtomicLong weight = new AtomicLong(); // of all segments
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     // unlimited size cache
     public Cache() {
@@ -22,39 +47,248 @@ public class Cache<T> {
 
     // limited size cache :)
     public Cache(int maxSize) {
-        this.cache = new HashMap<>();
-        this.maxSize = maxSize;
+        this(maxSize, value -> 1);
+    }
+
+    /**
+     * Cache bounded by total weight instead of entry count.
+     *
+     * @param maxWeight maximum sum of entry weights
+     * @param weigher weight of a single value, values weigh at least 1
+     */
+    public Cache(long maxWeight, ToIntFunction<? super T> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        if (weigher == null) {
+            throw new IllegalArgumentException("Weigher cannot be null");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.map = new ConcurrentHashMap<>();
+
+        int segmentCount = maxWeight < MIN_WEIGHT_FOR_STRIPING ? 1 : SEGMENT_COUNT;
+        this.segments = newSegments(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(weight);
+        }
+    }
+
+    @SuppressWarnings("unchecked") // arrays can't be created generic, every element is a Segment<T>
+    private static <T> Segment<T>[] newSegments(int count) {
+        return (Segment<T>[]) new Segment<?>[count];
     }
 
     public void put(String key, T value) {
         if (value == null) {
             throw new IllegalArgumentException("Cannot cache null value");
         }
-        if (cache.size() >= maxSize) {
-            cache.clear();
+        int valueWeight = Math.max(1, weigher.applyAsInt(value));
+        int index = segmentIndex(key);
+        Segment<T> segment = segments[index];
+
+        Node<T> node = new Node<>(key, value, valueWeight);
+        segment.lock.lock();
+        try {
+            Node<T> old = map.remove(key);
+            if (old != null) {
+                segment.unlink(old);
+            }
+            // a value bigger than the whole cache would only flush everything else
+            if (valueWeight > maxWeight) {
+                return;
+            }
+            map.put(key, node);
+            segment.linkLast(node);
+        } finally {
+            segment.lock.unlock();
         }
+        evictOverCapacity(index, node);
+    }
 
-        cache.put(key, value);
+    // one segment lock at a time, so writers of different segments never wait for each other
+    private void evictOverCapacity(int first, Node<T> added) {
+        int index = first;
+        int emptyInARow = 0;
+        while (weight.get() > maxWeight && emptyInARow < segments.length) {
+            Segment<T> segment = segments[index];
+            boolean evicted = false;
+            segment.lock.lock();
+            try {
+                Node<T> eldest = segment.head;
+                if (eldest == added) {
+                    eldest = eldest.next; // the entry just written goes last
+                }
+                if (eldest != null) {
+                    segment.unlink(eldest);
+                    map.remove(eldest.key);
+                    evictions.increment();
+                    evicted = true;
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+            emptyInARow = evicted ? 0 : emptyInARow + 1;
+            index = (index + 1) % segments.length;
+        }
     }
 
     public Optional<T> get(String key) {
-        return Optional.ofNullable(cache.get(key));
+        Node<T> node = map.get(key);
+        if (node == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+
+        Segment<T> segment = segments[segmentIndex(key)];
+        if (segment.lock.tryLock()) {
+            try {
+                // the node may have been removed between the lookup and the lock
+                if (node.linked) {
+                    segment.moveToLast(node);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return Optional.of(node.value);
+    }
+
+    // value without counting a hit or miss and without touching the LRU order
+    public Optional<T> peek(String key) {
+        Node<T> node = map.get(key);
+        return node == null ? Optional.empty() : Optional.of(node.value);
     }
 
     public boolean contains(String key) {
-        return cache.containsKey(key);
+        return map.containsKey(key);
     }
 
     public void remove(String key) {
-        cache.remove(key);
+        Segment<T> segment = segments[segmentIndex(key)];
+        segment.lock.lock();
+        try {
+            Node<T> node = map.remove(key);
+            if (node != null) {
+                segment.unlink(node);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
     }
 
     public void clear() {
-        cache.clear();
+        for (Segment<T> segment : segments) {
+            segment.lock.lock();
+            try {
+                for (Node<T> node = segment.head; node != null; node = node.next) {
+                    map.remove(node.key);
+                    node.linked = false;
+                }
+                segment.head = null;
+                segment.tail = null;
+                weight.addAndGet(-segment.weight);
+                segment.weight = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
     }
 
     public int size() {
-        return cache.size();
+        return map.size();
+    }
+
+    // statistics, counted since the cache was created
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getMaxWeight() { return maxWeight; }
+
+    public long getWeight() {
+        return weight.get();
+    }
+
+    private int segmentIndex(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & (segments.length - 1);
     }
 
+    private static final class Node<T> {
+        final String key;
+        final T value;
+        final int weight;
+        Node<T> prev;
+        Node<T> next;
+        volatile boolean linked;
+
+        Node(String key, T value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    // LRU list of one stripe, head is the least recently used entry
+    private static final class Segment<T> {
+        final ReentrantLock lock = new ReentrantLock();
+        final AtomicLong cacheWeight; // shared by all segments
+        Node<T> head;
+        Node<T> tail;
+        long weight;
+
+        Segment(AtomicLong cacheWeight) {
+            this.cacheWeight = cacheWeight;
+        }
+
+        void linkLast(Node<T> node) {
+            attachLast(node);
+            weight += node.weight;
+            cacheWeight.addAndGet(node.weight);
+        }
+
+        void unlink(Node<T> node) {
+            detach(node);
+            weight -= node.weight;
+            cacheWeight.addAndGet(-node.weight);
+        }
+
+        // reordering keeps the weights, reads don't touch the shared counter
+        void moveToLast(Node<T> node) {
+            if (node != tail) {
+                detach(node);
+                attachLast(node);
+            }
+        }
+
+        private void attachLast(Node<T> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            node.linked = true;
+        }
+
+        private void detach(Node<T> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.linked = false;
+        }
+    }
 }
@@ -0,0 +1,102 @@
+package crossai.util;
+
+import java.time.Duration;
+
+/**
+ * Stops calling a failing dependency for a while instead of waiting on it every time.
+ *
+ * CLOSED: calls go through; failureThreshold failures in a row open the circuit.
+ * OPEN: calls are refused until openDuration has passed.
+ * HALF_OPEN: one trial call goes through; success closes the circuit, failure opens it again.
+ *
+ * Callers ask allowRequest() before the call and report the outcome with
+ * recordSuccess() or recordFailure(). A call that was given up by the caller
+ * (interrupted, cancelled) should report neither, and release() its trial instead.
+ */
+
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long rejectedCount;
+    private long openCount;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1");
+        }
+        if (openDuration == null || openDuration.isNegative()) {
+            throw new IllegalArgumentException("Open duration cannot be negative");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.state = State.CLOSED;
+    }
+
+    /**
+     * @return true if the call may go ahead; its outcome must then be reported
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAt < openNanos) {
+                    rejectedCount++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            default: // HALF_OPEN, only the one trial call
+                if (trialInFlight) {
+                    rejectedCount++;
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                openCount++;
+            }
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+        trialInFlight = false;
+    }
+
+    // the allowed call ended without telling anything about the dependency
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        // an expired OPEN is reported as it will behave on the next call
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() { return consecutiveFailures; }
+    public synchronized long getRejectedCount() { return rejectedCount; }
+    public synchronized long getOpenCount() { return openCount; }
+}
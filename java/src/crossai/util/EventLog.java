@@ -0,0 +1,353 @@
+package crossai.util;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous event log, used instead of printing to the console on request paths.
+ *
+ * An event is a level, a tag (the part printed in brackets, like "CACHE") and a message
+ * template with {} placeholders. Callers only copy references and numbers into a slot of
+ * a preallocated ring buffer; formatting and console I/O happen on one background writer
+ * thread, so request threads never wait on the System.out lock. When the buffer is full,
+ * events are dropped and counted rather than blocking the caller. The writer parks while
+ * the buffer is empty and is unparked by the event that ends it.
+ *
+ * Events below the level (crossai.log.level, INFO by default) return after one field
+ * read. DEBUG and INFO events can also be sampled: with a rate of n, one event in n is kept.
+ * Pass values as arguments instead of concatenating them into the message, so nothing
+ * is built for an event that is filtered out.
+ */
+
+public final class EventLog {
+
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    /**
+     * Destination of formatted events, called on the writer thread only.
+     * The event object is reused afterwards and must not be kept.
+     */
+    public interface Sink {
+        void write(Event event);
+
+        // called when the writer has caught up
+        default void flush() {
+        }
+    }
+
+    private static final int CAPACITY = 8192; // power of two
+
+    private static final Event[] RING = new Event[CAPACITY];
+    private static final AtomicLong TAIL = new AtomicLong(); // next sequence to claim
+    private static volatile long head;                       // next sequence to write, writer only
+    private static volatile long flushedThrough;             // sequences below this reached the sink
+    private static final LongAdder DROPPED = new LongAdder();
+
+    private static volatile int threshold;
+    private static volatile int[] sampleRates = new int[Level.values().length];
+    private static volatile Sink sink = new ConsoleSink();
+    private static final Thread WRITER;
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            RING[i] = new Event();
+        }
+        threshold = levelFromProperty().ordinal();
+
+        WRITER = new Thread(EventLog::writeLoop, "event-log-writer");
+        WRITER.setDaemon(true);
+        WRITER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(Duration.ofSeconds(1)), "event-log-flush"));
+    }
+
+    private EventLog() {
+    }
+
+    private static Level levelFromProperty() {
+        String value = System.getProperty("crossai.log.level", "INFO");
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public static void setLevel(Level level) {
+        if (level == null) {
+            throw new IllegalArgumentException("Level cannot be null");
+        }
+        threshold = level.ordinal();
+    }
+
+    public static Level getLevel() {
+        return Level.values()[threshold];
+    }
+
+    /**
+     * Keep one event in oneIn for a level; 1 keeps all of them.
+     * Warnings and errors are never sampled.
+     */
+    public static void setSampleRate(Level level, int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        if (level == Level.WARN || level == Level.ERROR) {
+            throw new IllegalArgumentException("Warnings and errors are not sampled");
+        }
+        int[] rates = sampleRates.clone();
+        rates[level.ordinal()] = oneIn;
+        sampleRates = rates;
+    }
+
+    public static void setSink(Sink newSink) {
+        if (newSink == null) {
+            throw new IllegalArgumentException("Sink cannot be null");
+        }
+        sink = newSink;
+    }
+
+    public static Sink getSink() { return sink; }
+
+    // events lost because the buffer was full
+    public static long getDroppedCount() { return DROPPED.sum(); }
+
+    /**
+     * Wait until every event logged so far has reached the sink.
+     *
+     * @return false if the timeout passed first
+     */
+    public static boolean flush(Duration timeout) {
+        long target = TAIL.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (flushedThrough < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(WRITER);
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    // -- logging --
+
+    public static void debug(String tag, String message) { log(Level.DEBUG, tag, message, null, null, 0, -1, null); }
+    public static void debug(String tag, String message, Object arg) { log(Level.DEBUG, tag, message, arg, null, 0, -1, null); }
+    public static void debug(String tag, String message, Object arg0, Object arg1) { log(Level.DEBUG, tag, message, arg0, arg1, 0, -1, null); }
+    public static void debug(String tag, String message, long number) { log(Level.DEBUG, tag, message, null, null, number, 0, null); }
+    public static void debug(String tag, String message, long number, Object arg) { log(Level.DEBUG, tag, message, arg, null, number, 0, null); }
+    public static void debug(String tag, String message, long number, Object arg0, Object arg1) { log(Level.DEBUG, tag, message, arg0, arg1, number, 0, null); }
+
+    public static void info(String tag, String message) { log(Level.INFO, tag, message, null, null, 0, -1, null); }
+    public static void info(String tag, String message, Object arg) { log(Level.INFO, tag, message, arg, null, 0, -1, null); }
+    public static void info(String tag, String message, Object arg0, Object arg1) { log(Level.INFO, tag, message, arg0, arg1, 0, -1, null); }
+    public static void info(String tag, String message, long number) { log(Level.INFO, tag, message, null, null, number, 0, null); }
+    public static void info(String tag, String message, long number, Object arg) { log(Level.INFO, tag, message, arg, null, number, 0, null); }
+    public static void info(String tag, String message, long number, Object arg0, Object arg1) { log(Level.INFO, tag, message, arg0, arg1, number, 0, null); }
+
+    public static void warn(String tag, String message) { log(Level.WARN, tag, message, null, null, 0, -1, null); }
+    public static void warn(String tag, String message, Object arg) { log(Level.WARN, tag, message, arg, null, 0, -1, null); }
+    public static void warn(String tag, String message, Object arg0, Object arg1) { log(Level.WARN, tag, message, arg0, arg1, 0, -1, null); }
+
+    public static void error(String tag, String message, Object arg) { log(Level.ERROR, tag, message, arg, null, 0, -1, null); }
+    public static void error(String tag, String message, Object arg0, Object arg1) { log(Level.ERROR, tag, message, arg0, arg1, 0, -1, null); }
+    public static void error(String tag, String message, Object arg, Throwable thrown) { log(Level.ERROR, tag, message, arg, null, 0, -1, thrown); }
+
+    private static void log(Level level, String tag, String template, Object arg0, Object arg1,
+                            long number, int numberIndex, Throwable thrown) {
+        if (level.ordinal() < threshold) {
+            return;
+        }
+        int rate = sampleRates[level.ordinal()];
+        if (rate > 1 && ThreadLocalRandom.current().nextInt(rate) != 0) {
+            return;
+        }
+
+        long sequence;
+        do {
+            sequence = TAIL.get();
+            if (sequence - head >= CAPACITY) {
+                DROPPED.increment();
+                return;
+            }
+        } while (!TAIL.compareAndSet(sequence, sequence + 1));
+
+        Event event = RING[(int) sequence & (CAPACITY - 1)];
+        event.level = level;
+        event.timestamp = System.currentTimeMillis();
+        event.thread = Thread.currentThread().getName();
+        event.tag = tag;
+        event.template = template;
+        event.arg0 = arg0;
+        event.arg1 = arg1;
+        event.number = number;
+        event.numberIndex = numberIndex;
+        event.thrown = thrown;
+        event.published = sequence + 1; // volatile write, makes the fields above visible to the writer
+        if (sequence == head) {
+            LockSupport.unpark(WRITER); // the ring was empty, the writer may be parked
+        }
+    }
+
+    // -- writer thread --
+
+    private static void writeLoop() {
+        long reportedDrops = 0;
+        boolean unflushed = false;
+        Event dropNotice = new Event();
+
+        while (true) {
+            long next = head;
+            Event event = RING[(int) next & (CAPACITY - 1)];
+
+            if (event.published != next + 1) {
+                long drops = DROPPED.sum();
+                if (drops > reportedDrops) {
+                    dropNotice.set(Level.WARN, "LOG", "{} events dropped, the log buffer was full", drops - reportedDrops);
+                    write(dropNotice);
+                    reportedDrops = drops;
+                    unflushed = true;
+                }
+                if (unflushed) {
+                    try {
+                        sink.flush();
+                    } catch (RuntimeException e) {
+                        // a broken sink must not stop the writer
+                    }
+                    unflushed = false;
+                }
+                flushedThrough = next;
+                LockSupport.park(); // until log() publishes into the empty ring or flush() asks
+                continue;
+            }
+
+            write(event);
+            event.clear();
+            head = next + 1;
+            unflushed = true;
+        }
+    }
+
+    private static void write(Event event) {
+        try {
+            sink.write(event);
+        } catch (RuntimeException e) {
+            // a broken sink must not stop the writer
+        }
+    }
+
+    /**
+     * One logged event; a ring buffer slot, reused once written.
+     */
+    public static final class Event {
+        private volatile long published; // sequence + 1 once the slot is filled
+        private Level level;
+        private long timestamp;
+        private String thread;
+        private String tag;
+        private String template;
+        private Object arg0;
+        private Object arg1;
+        private long number;
+        private int numberIndex; // placeholder taking the number, -1 = none
+        private Throwable thrown;
+
+        private Event() {
+        }
+
+        private void set(Level level, String tag, String template, long number) {
+            this.level = level;
+            this.timestamp = System.currentTimeMillis();
+            this.thread = Thread.currentThread().getName();
+            this.tag = tag;
+            this.template = template;
+            this.number = number;
+            this.numberIndex = 0;
+        }
+
+        // drop references so logged objects can be collected
+        private void clear() {
+            thread = null;
+            tag = null;
+            template = null;
+            arg0 = null;
+            arg1 = null;
+            thrown = null;
+        }
+
+        public Level getLevel() { return level; }
+        public long getTimestamp() { return timestamp; }
+        public String getThread() { return thread; }
+        public String getTag() { return tag; }
+        public Throwable getThrown() { return thrown; }
+
+        // message with its placeholders filled in
+        public String getMessage() {
+            StringBuilder message = new StringBuilder(template.length() + 32);
+            appendMessage(message);
+            return message.toString();
+        }
+
+        public void appendMessage(StringBuilder out) {
+            int placeholder = 0;
+            int objectArgs = 0;
+            int from = 0;
+            int at;
+            while ((at = template.indexOf("{}", from)) >= 0) {
+                out.append(template, from, at);
+                if (placeholder == numberIndex) {
+                    out.append(number);
+                } else if (objectArgs == 0) {
+                    out.append(arg0);
+                    objectArgs++;
+                } else if (objectArgs == 1) {
+                    out.append(arg1);
+                    objectArgs++;
+                } else {
+                    out.append("{}");
+                }
+                placeholder++;
+                from = at + 2;
+            }
+            out.append(template, from, template.length());
+        }
+    }
+
+    /**
+     * Prints "[TAG] message" lines; warnings and errors go to System.err with a level prefix.
+     */
+    public static final class ConsoleSink implements Sink {
+        private final StringBuilder line = new StringBuilder(256);
+
+        @Override
+        public void write(Event event) {
+            line.setLength(0);
+            boolean problem = event.getLevel().compareTo(Level.WARN) >= 0;
+            if (problem) {
+                line.append(event.getLevel() == Level.WARN ? "[WARNING] " : "[ERROR] ");
+            }
+            line.append('[').append(event.getTag()).append("] ");
+            event.appendMessage(line);
+
+            PrintStream out = problem ? System.err : System.out;
+            out.println(line);
+            if (event.getThrown() != null) {
+                event.getThrown().printStackTrace(out);
+            }
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+            System.err.flush();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package crossai.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls back when watched files are created, modified or deleted.
+ *
+ * Backed by a WatchService on the files' parent directories, so a file that is
+ * replaced (written to a temporary file and moved over) is noticed too. Other files
+ * in the same directories are ignored. Events are handled on one daemon thread,
+ * once they pause for SETTLE_MILLIS, so a file written in several steps usually gives
+ * one callback after the last write (writes that never pause are reported every
+ * MAX_SETTLE_MILLIS).
+ */
+
+public class FileWatcher implements Closeable {
+    private static final long SETTLE_MILLIS = 50;
+    private static final long MAX_SETTLE_MILLIS = 1000;
+
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories;
+    private final Map<Path, List<Runnable>> listeners; // by absolute file path
+    private final Thread thread;
+
+    public FileWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.directories = new HashMap<>();
+        this.listeners = new HashMap<>();
+        this.thread = new Thread(this::run, "file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Watch a file for changes.
+     * The file itself doesn't have to exist yet, its directory does.
+     *
+     * @param file file to watch
+     * @param onChange called on the watcher thread after every change
+     * @return false if the file's directory doesn't exist, so nothing is watched
+     * @throws IOException if the directory can't be watched
+     */
+    public synchronized boolean watch(Path file, Runnable onChange) throws IOException {
+        if (file == null || onChange == null) {
+            throw new IllegalArgumentException("File and callback cannot be null");
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        Path directory = absolute.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return false;
+        }
+
+        if (!directories.containsValue(directory)) {
+            WatchKey key = directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            directories.put(key, directory);
+        }
+        listeners.computeIfAbsent(absolute, f -> new ArrayList<>()).add(onChange);
+        return true;
+    }
+
+    private void run() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            // several events for one file until they pause give one callback
+            Set<Path> changed = new LinkedHashSet<>();
+            long settleDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_SETTLE_MILLIS);
+            while (key != null) {
+                collect(key, changed);
+                if (System.nanoTime() - settleDeadline >= 0) {
+                    break;
+                }
+                try {
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException | ClosedWatchServiceException e) {
+                    return;
+                }
+            }
+
+            for (Path file : changed) {
+                notifyListeners(file);
+            }
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        synchronized (this) {
+            Path directory = directories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null) {
+                    continue;
+                }
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // events were lost, anything in this directory may have changed
+                    for (Path file : listeners.keySet()) {
+                        if (directory.equals(file.getParent())) {
+                            changed.add(file);
+                        }
+                    }
+                } else {
+                    Path file = directory.resolve((Path) event.context());
+                    if (listeners.containsKey(file)) {
+                        changed.add(file);
+                    }
+                }
+            }
+        }
+        key.reset();
+    }
+
+    private void notifyListeners(Path file) {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            callbacks = new ArrayList<>(listeners.get(file));
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                EventLog.warn("FILE WATCH", "Callback for {} failed: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    public synchronized Set<Path> getWatchedFiles() {
+        return new LinkedHashSet<>(listeners.keySet());
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close(); // ends the watcher thread
+    }
+}
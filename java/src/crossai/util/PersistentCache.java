@@ -0,0 +1,433 @@
+package crossai.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * On-disk second-level cache, kept as an append-only log.
+ *
+ * Every put appends one line "expiresAt TAB key TAB json value" and a remove appends
+ * a line without value. The first line holds a version string (a hash of the catalog
+ * the results were computed from); a log written for another version is discarded,
+ * so results never outlive the data they came from.
+ *
+ * The log is opened on first use: a single pass over the file builds an in-memory
+ * index from key to record position, and values are only read and decoded on get.
+ * Expired entries are ignored and replaced entries leave garbage behind, which is
+ * removed by rewriting the live records once garbage outweighs them (compaction).
+ *
+ * All methods are synchronized; this is the slow tier behind an in-memory Cache.
+ */
+
+public class PersistentCache<T> implements Closeable {
+    private static final String MAGIC = "CROSSAI-CACHE";
+    private static final int FORMAT = 1;
+    private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private final Path file;
+    private final String version;
+    private final long ttlMillis;
+    private final TypeAdapter<T> adapter;
+
+    private FileChannel channel;        // null until first use
+    private Map<String, Record> index;
+    private long liveBytes;
+    private long garbageBytes;
+
+    public PersistentCache(Path file, String version, Duration ttl, TypeAdapter<T> adapter) {
+        if (version == null || version.isEmpty() || version.contains("\t") || version.contains("\n")) {
+            throw new IllegalArgumentException("Version must be a non-empty single token");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("TTL must be positive");
+        }
+        this.file = file;
+        this.version = version;
+        this.ttlMillis = ttl.toMillis();
+        this.adapter = adapter;
+    }
+
+    /**
+     * Hex SHA-256 of a file's content, to use as the cache version.
+     */
+    public static String contentHash(Path path) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, path);
+        return hex(digest);
+    }
+
+    /**
+     * Hex SHA-256 over several files in order, for results computed from all of them.
+     * A missing file is hashed as missing, so creating or deleting it changes the hash.
+     */
+    public static String contentHash(List<Path> paths) throws IOException {
+        MessageDigest digest = sha256();
+        for (Path path : paths) {
+            digest.update(path.toString().getBytes(StandardCharsets.UTF_8));
+            if (Files.exists(path)) {
+                digest.update((byte) 1);
+                update(digest, path);
+            } else {
+                digest.update((byte) 0);
+            }
+        }
+        return hex(digest);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, Path path) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static String hex(MessageDigest digest) {
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public synchronized Optional<T> get(String key) throws IOException {
+        ensureOpen();
+        Record record = index.get(key);
+        if (record == null) {
+            return Optional.empty();
+        }
+        if (record.expiresAt <= System.currentTimeMillis()) {
+            index.remove(key);
+            liveBytes -= record.length;
+            garbageBytes += record.length;
+            return Optional.empty();
+        }
+
+        return Optional.of(decode(readRecord(record), record.valueStart));
+    }
+
+    public synchronized void put(String key, T value) throws IOException {
+        checkKey(key);
+        ensureOpen();
+
+        StringWriter json = new StringWriter();
+        JsonWriter out = new JsonWriter(json);
+        adapter.write(out, value);
+        out.flush();
+
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        String prefix = expiresAt + "\t" + key + "\t";
+        byte[] line = (prefix + json + "\n").getBytes(StandardCharsets.UTF_8);
+        int valueStart = prefix.getBytes(StandardCharsets.UTF_8).length;
+
+        long offset = append(line);
+        forget(index.put(key, new Record(offset, line.length, valueStart, expiresAt)));
+        liveBytes += line.length;
+
+        compactIfNeeded();
+    }
+
+    public synchronized void remove(String key) throws IOException {
+        checkKey(key);
+        ensureOpen();
+        Record removed = index.remove(key);
+        if (removed != null) {
+            forget(removed);
+            byte[] tombstone = ("0\t" + key + "\t\n").getBytes(StandardCharsets.UTF_8);
+            append(tombstone);
+            garbageBytes += tombstone.length;
+        }
+    }
+
+    // drop every entry, the log is started again
+    public synchronized void clear() throws IOException {
+        closeChannel();
+        Files.deleteIfExists(file);
+        ensureOpen();
+    }
+
+    /**
+     * Rewrite the log with only the live, unexpired records.
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        long now = System.currentTimeMillis();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Map<String, Record> compacted = new HashMap<>();
+        long newLive = 0;
+
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = writeFully(out, 0, header());
+            for (Map.Entry<String, Record> entry : index.entrySet()) {
+                Record record = entry.getValue();
+                if (record.expiresAt <= now) {
+                    continue;
+                }
+                writeFully(out, position, readRecord(record));
+                compacted.put(entry.getKey(), new Record(position, record.length, record.valueStart, record.expiresAt));
+                position += record.length;
+                newLive += record.length;
+            }
+            out.force(true);
+        }
+
+        closeChannel();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = compacted;
+        liveBytes = newLive;
+        garbageBytes = 0;
+    }
+
+    public synchronized int size() throws IOException {
+        ensureOpen();
+        return index.size();
+    }
+
+    public synchronized long getFileSize() throws IOException {
+        ensureOpen();
+        return channel.size();
+    }
+
+    public Path getFile() { return file; }
+    public String getVersion() { return version; }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    // -- log handling --
+
+    private void ensureOpen() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = new HashMap<>();
+        liveBytes = 0;
+        garbageBytes = 0;
+
+        if (channel.size() == 0 || !readLog()) {
+            // new file, or written by another format or for another catalog
+            channel.truncate(0);
+            writeFully(channel, 0, header());
+            index.clear();
+            liveBytes = 0;
+            garbageBytes = 0;
+        }
+        compactIfNeeded();
+    }
+
+    // builds the index, false if the header doesn't match this cache
+    private boolean readLog() throws IOException {
+        long now = System.currentTimeMillis();
+        long validEnd = 0;
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            LineBuffer line = new LineBuffer();
+            if (!line.readFrom(in) || !Arrays.equals(header(), line.toArray())) {
+                return false;
+            }
+            long start = line.length;
+            validEnd = start;
+
+            while (line.readFrom(in)) {
+                int length = line.length;
+                int firstTab = line.indexOf((byte) '\t', 0);
+                int secondTab = firstTab < 0 ? -1 : line.indexOf((byte) '\t', firstTab + 1);
+
+                if (secondTab < 0) {
+                    garbageBytes += length; // unreadable line, skipped
+                } else {
+                    long expiresAt = line.parseLong(0, firstTab);
+                    String key = new String(line.bytes, firstTab + 1, secondTab - firstTab - 1, StandardCharsets.UTF_8);
+                    forget(index.remove(key));
+
+                    if (secondTab + 2 == length || expiresAt <= now) {
+                        garbageBytes += length; // tombstone or expired
+                    } else {
+                        index.put(key, new Record(start, length, secondTab + 1, expiresAt));
+                        liveBytes += length;
+                    }
+                }
+                start += length;
+                validEnd = start;
+            }
+        }
+
+        if (validEnd < channel.size()) {
+            // torn write at the end of the log, cut it off
+            channel.truncate(validEnd);
+        }
+        return true;
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (garbageBytes > MIN_COMPACTION_BYTES && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    // an older record of the same key becomes garbage
+    private void forget(Record previous) {
+        if (previous != null) {
+            liveBytes -= previous.length;
+            garbageBytes += previous.length;
+        }
+    }
+
+    private long append(byte[] line) throws IOException {
+        long offset = channel.size();
+        writeFully(channel, offset, line);
+        return offset;
+    }
+
+    private static long writeFully(FileChannel target, long position, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            position += target.write(buffer, position);
+        }
+        return position;
+    }
+
+    private byte[] readRecord(Record record) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(record.length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, record.offset + bytes.position()) < 0) {
+                throw new IOException("Cache log " + file + " ends inside a record");
+            }
+        }
+        return bytes.array();
+    }
+
+    private T decode(byte[] line, int valueStart) throws IOException {
+        try (JsonReader in = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(line, valueStart, line.length - valueStart - 1), StandardCharsets.UTF_8))) {
+            in.setLenient(true);
+            return adapter.read(in);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new IOException("Corrupt record in cache log " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] header() {
+        return (MAGIC + "\t" + FORMAT + "\t" + version + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            index = null;
+        }
+    }
+
+    private static void checkKey(String key) {
+        if (key == null || key.isEmpty() || key.indexOf('\t') >= 0 || key.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Key must be non-empty and contain no tabs or newlines");
+        }
+    }
+
+    /**
+     * Reusable buffer holding one log line, newline included.
+     */
+    private static final class LineBuffer {
+        byte[] bytes = new byte[1024];
+        int length;
+
+        // false at the end of the stream or on a line without its newline
+        boolean readFrom(InputStream in) throws IOException {
+            length = 0;
+            int b;
+            while ((b = in.read()) >= 0) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                bytes[length++] = (byte) b;
+                if (b == '\n') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int indexOf(byte value, int from) {
+            for (int i = from; i < length; i++) {
+                if (bytes[i] == value) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        long parseLong(int from, int to) {
+            long value = 0;
+            for (int i = from; i < to; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return 0; // treated as expired
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        byte[] toArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Position of one live record in the log.
+     */
+    private static final class Record {
+        final long offset;
+        final int length;      // whole line, newline included
+        final int valueStart;  // offset of the JSON value inside the line
+        final long expiresAt;
+
+        Record(long offset, int length, int valueStart, long expiresAt) {
+            this.offset = offset;
+            this.length = length;
+            this.valueStart = valueStart;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package crossai.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for blocking recommendation work.
+ *
+ * On Java 21+ tasks run on virtual threads (one cheap thread per task, so thousands
+ * of requests can wait on the engine at once). The project still targets Java 17,
+ * so the factory is looked up reflectively; on older runtimes a cached pool of
+ * daemon platform threads is used instead.
+ */
+
+public final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    // shared executor, created on first use
+    private static final class SharedHolder {
+        static final ExecutorService INSTANCE = newTaskExecutor("crossai-task");
+    }
+
+    public static ExecutorService shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /**
+     * New executor running one thread per task.
+     *
+     * @param namePrefix thread name prefix, used for platform threads only
+     */
+    public static ExecutorService newTaskExecutor(String namePrefix) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Run a task and expose it as a CompletableFuture that really cancels.
+     * Unlike CompletableFuture.supplyAsync, cancel(true) or a timeout set with
+     * orTimeout() interrupts the thread running the task.
+     *
+     * @param task work to run
+     * @param executor executor to run it on
+     * @return future of the task's result
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Callable<T> task, ExecutorService executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+
+        result.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof CancellationException || cause instanceof TimeoutException) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+}
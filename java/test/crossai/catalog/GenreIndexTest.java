@@ -0,0 +1,119 @@
+package crossai.catalog;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import crossai.model.Genre;
+
+/**
+ * Unit tests for the GenreIndex class.
+ * Compares top-K queries against a full scan sorted by similarity.
+ */
+
+public class GenreIndexTest {
+
+    // in-memory catalog with random genres, many movies share a genre set
+    private static MovieCatalog randomCatalog(int size, long seed) {
+        Random random = new Random(seed);
+        int[] masks = new int[size];
+        int genreCount = Genre.values().length;
+        for (int i = 0; i < size; i++) {
+            int genres = random.nextInt(4); // 0..3 genres, some movies have none
+            for (int g = 0; g < genres; g++) {
+                masks[i] |= 1 << random.nextInt(genreCount - 2); // last genres stay unused
+            }
+        }
+        return new MovieCatalog() {
+            public int size() { return size; }
+            public int getId(int index) { return index; }
+            public String getTitle(int index) { return "Movie " + index; }
+            public int getGenreMask(int index) { return masks[index]; }
+            public double getVoteAverage(int index) { return 7.0; }
+            public double getVoteCount(int index) { return 1000.0; }
+            public double getPopularity(int index) { return 1.0; }
+        };
+    }
+
+    // reference: score every movie, stable sort by descending score
+    private static int[] scan(MovieCatalog catalog, GenreTfIdfModel model, int queryMask, int k) {
+        double queryNorm = model.norm(queryMask);
+        double[] scores = new double[catalog.size()];
+        Integer[] movies = new Integer[catalog.size()];
+        int count = 0;
+        for (int i = 0; i < catalog.size(); i++) {
+            double score = model.similarity(queryMask, queryNorm, i, catalog.getGenreMask(i));
+            if (score > 0) {
+                scores[i] = score;
+                movies[count++] = i;
+            }
+        }
+        Arrays.sort(movies, 0, count, (a, b) -> Double.compare(scores[b], scores[a]));
+        return Arrays.stream(movies, 0, Math.min(count, k)).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Test 1: Index and scan agree on random queries and result sizes
+     */
+    @Test
+    public void testMatchesScan() {
+        MovieCatalog catalog = randomCatalog(5000, 42);
+        GenreTfIdfModel model = new GenreTfIdfModel(catalog);
+        GenreIndex index = new GenreIndex(catalog, model);
+        Random random = new Random(7);
+
+        for (int query = 0; query < 300; query++) {
+            int queryMask = 0;
+            int genres = 1 + random.nextInt(4);
+            for (int g = 0; g < genres; g++) {
+                queryMask |= 1 << random.nextInt(Genre.values().length);
+            }
+            int k = 1 + random.nextInt(200);
+
+            assertArrayEquals(scan(catalog, model, queryMask, k), index.topK(queryMask, k),
+                              "query " + Integer.toHexString(queryMask) + ", k " + k);
+        }
+    }
+
+    /**
+     * Test 2: Movies are grouped by genre set
+     */
+    @Test
+    public void testGroups() {
+        MovieCatalog catalog = randomCatalog(5000, 1);
+        GenreIndex index = new GenreIndex(catalog, new GenreTfIdfModel(catalog));
+
+        assertTrue(index.getGroupCount() < 1500);
+    }
+
+    /**
+     * Test 3: Queries without matching genres return nothing
+     */
+    @Test
+    public void testNoMatches() {
+        MovieCatalog catalog = randomCatalog(1000, 3);
+        GenreIndex index = new GenreIndex(catalog, new GenreTfIdfModel(catalog));
+        int unusedGenre = 1 << (Genre.values().length - 1);
+
+        assertEquals(0, index.topK(0, 10).length);
+        assertEquals(0, index.topK(unusedGenre, 10).length);
+        assertEquals(0, index.topK(Genre.DRAMA.mask(), 0).length);
+    }
+
+    /**
+     * Test 4: Asking for more movies than match returns every matching movie
+     */
+    @Test
+    public void testSmallResult() {
+        MovieCatalog catalog = randomCatalog(300, 5);
+        GenreTfIdfModel model = new GenreTfIdfModel(catalog);
+        GenreIndex index = new GenreIndex(catalog, model);
+        int queryMask = Genre.ACTION.mask() | Genre.DRAMA.mask();
+
+        assertArrayEquals(scan(catalog, model, queryMask, 10_000), index.topK(queryMask, 10_000));
+    }
+}
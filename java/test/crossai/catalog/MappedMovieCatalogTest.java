@@ -0,0 +1,93 @@
+package crossai.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import crossai.model.Genre;
+
+/**
+ * Unit tests for the binary catalog format.
+ * Tests conversion from JSON, reading through the mapped file and header checks.
+ */
+
+public class MappedMovieCatalogTest {
+    private static final String CATALOG_JSON = "[\n"
+        + "  {\"id\": 11838, \"title\": \"Ju-on: The Grudge\", \"genres\": [\"Horror\"],"
+        + " \"vote_average\": 6.7, \"vote_count\": 199.0, \"popularity\": 7.614692},\n"
+        + "  {\"id\": 2, \"title\": \"Amélie\", \"genres\": [\"Comedy\", \"Romance\"],"
+        + " \"vote_average\": 7.8, \"vote_count\": 3403.0, \"popularity\": NaN},\n"
+        + "  {\"id\": 3, \"title\": \"千と千尋の神隠し\", \"genres\": [\"Animation\", \"Family\", \"Foreign\"],"
+        + " \"vote_average\": 8.3, \"vote_count\": 3968.0, \"popularity\": 41.0}\n"
+        + "]";
+
+    @TempDir
+    Path tempDir;
+
+    private JsonMovieCatalog jsonCatalog;
+    private Path binaryFile;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path jsonFile = tempDir.resolve("processed_movies.json");
+        Files.writeString(jsonFile, CATALOG_JSON);
+        jsonCatalog = JsonMovieCatalog.load(jsonFile);
+
+        binaryFile = tempDir.resolve("processed_movies.bin");
+        BinaryCatalogWriter.write(jsonCatalog, binaryFile);
+    }
+
+    /**
+     * Test 1: Every column reads back as converted from the JSON
+     */
+    @Test
+    public void testColumnsMatchJson() throws IOException {
+        MappedMovieCatalog catalog = MappedMovieCatalog.open(binaryFile);
+
+        assertEquals(jsonCatalog.size(), catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            assertEquals(jsonCatalog.getId(i), catalog.getId(i));
+            assertEquals(jsonCatalog.getTitle(i), catalog.getTitle(i));
+            assertEquals(jsonCatalog.getGenreMask(i), catalog.getGenreMask(i));
+            assertEquals(jsonCatalog.getVoteAverage(i), catalog.getVoteAverage(i));
+            assertEquals(jsonCatalog.getVoteCount(i), catalog.getVoteCount(i));
+            assertEquals(jsonCatalog.getPopularity(i), catalog.getPopularity(i));
+        }
+        assertEquals("千と千尋の神隠し", catalog.getTitle(2));
+        assertEquals(Genre.ANIMATION.mask() | Genre.FAMILY.mask(), catalog.getGenreMask(2));
+    }
+
+    /**
+     * Test 2: An empty catalog can be written and mapped
+     */
+    @Test
+    public void testEmptyCatalog() throws IOException {
+        Path emptyJson = tempDir.resolve("empty.json");
+        Files.writeString(emptyJson, "[]");
+        Path emptyBinary = tempDir.resolve("empty.bin");
+        BinaryCatalogWriter.write(JsonMovieCatalog.load(emptyJson), emptyBinary);
+
+        assertEquals(0, MappedMovieCatalog.open(emptyBinary).size());
+    }
+
+    /**
+     * Test 3: Files that are not complete binary catalogs are rejected
+     */
+    @Test
+    public void testInvalidFiles() throws IOException {
+        Path jsonFile = tempDir.resolve("processed_movies.json");
+        assertThrows(IOException.class, () -> MappedMovieCatalog.open(jsonFile));
+
+        byte[] bytes = Files.readAllBytes(binaryFile);
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MappedMovieCatalog.open(truncated));
+    }
+}
@@ -0,0 +1,104 @@
+package crossai.catalog;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the TopKSelector class.
+ * Tests ordering against a full sort and sequential against parallel selection.
+ */
+
+public class TopKSelectorTest {
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    // few distinct values, so there are many ties, and some non-positive scores
+    private static double[] randomScores(int size, long seed) {
+        Random random = new Random(seed);
+        double[] scores = new double[size];
+        for (int i = 0; i < size; i++) {
+            scores[i] = random.nextInt(50) / 10.0 - 0.5;
+        }
+        return scores;
+    }
+
+    // reference: stable sort of the positive scores, highest first
+    private static int[] sortedTopK(double[] scores, int k) {
+        return IntStream.range(0, scores.length)
+            .filter(i -> scores[i] > 0)
+            .boxed()
+            .sorted(Comparator.comparingDouble((Integer i) -> scores[i]).reversed())
+            .limit(k)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * Test 1: Sequential selection matches a stable sort by descending score
+     */
+    @Test
+    public void testSequentialMatchesSort() {
+        double[] scores = randomScores(10_000, 1);
+        for (int k : new int[] {1, 10, 50, 500}) {
+            assertArrayEquals(sortedTopK(scores, k), TopKSelector.topKSequential(scores.length, k, i -> scores[i]));
+        }
+    }
+
+    /**
+     * Test 2: Parallel selection gives the same positions as sequential selection
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        double[] scores = randomScores(200_000, 2);
+        for (int k : new int[] {1, 50, 10_000}) {
+            assertArrayEquals(TopKSelector.topKSequential(scores.length, k, i -> scores[i]),
+                              TopKSelector.topKParallel(scores.length, k, i -> scores[i], pool));
+        }
+        assertArrayEquals(sortedTopK(scores, 50), TopKSelector.topK(scores.length, 50, i -> scores[i]));
+    }
+
+    /**
+     * Test 3: Fewer positive scores than k, k of zero and an empty input
+     */
+    @Test
+    public void testEdgeCases() {
+        double[] scores = new double[100_000];
+        scores[70_000] = 0.5;
+        scores[3] = 0.5;
+        scores[99_999] = 1.0;
+
+        assertArrayEquals(new int[] {99_999, 3, 70_000}, TopKSelector.topKParallel(scores.length, 10, i -> scores[i], pool));
+        assertArrayEquals(new int[] {99_999, 3, 70_000}, TopKSelector.topKSequential(scores.length, 10, i -> scores[i]));
+        assertEquals(0, TopKSelector.topK(scores.length, 0, i -> scores[i]).length);
+        assertEquals(0, TopKSelector.topK(0, 10, i -> 1.0).length);
+        assertEquals(0, TopKSelector.topKParallel(scores.length, 5, i -> -scores[i], pool).length);
+    }
+
+    /**
+     * Test 4: All equal scores keep position order
+     */
+    @Test
+    public void testTiesKeepPositionOrder() {
+        int[] expected = IntStream.range(0, 20).toArray();
+        assertArrayEquals(expected, TopKSelector.topKParallel(100_000, 20, i -> 1.0, pool));
+        assertArrayEquals(Arrays.copyOf(expected, 5), TopKSelector.topKSequential(10, 5, i -> 1.0));
+    }
+}
@@ -0,0 +1,88 @@
+package crossai.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.stream.JsonWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+
+/**
+ * Unit tests for the BinaryExchangeCodec class.
+ * Tests the negotiation messages and the binary response bodies.
+ */
+
+public class BinaryExchangeCodecTest {
+    private final BinaryExchangeCodec codec = new BinaryExchangeCodec();
+
+    /**
+     * Test 1: The hello lists genres in mask bit order, only a binary answer accepts it
+     */
+    @Test
+    public void testNegotiation() throws IOException {
+        StringWriter hello = new StringWriter();
+        codec.writeHello(new JsonWriter(hello));
+        assertTrue(hello.toString().startsWith("{\"hello\":{\"formats\":[\"binary/1\"],\"genres\":[\""
+                                               + Genre.values()[0].getDisplayName() + "\""));
+
+        assertTrue(codec.acceptsBinary("{\"format\":\"binary/1\"}"));
+        assertFalse(codec.acceptsBinary("{\"format\":\"json\"}"));
+        assertFalse(codec.acceptsBinary("{\"id\":null,\"ml_recommendations\":[]}"));
+        assertFalse(codec.acceptsBinary("not json"));
+    }
+
+    /**
+     * Test 2: Items and batch results decode to what was written
+     */
+    @Test
+    public void testResponsesRoundTrip() throws IOException {
+        List<Item> items = List.of(
+            new Item(550, "Fight Club", "", Genre.DRAMA.mask(), 8.4),
+            new Item(129, "千と千尋の神隠し", "", Genre.ANIMATION.mask() | Genre.FAMILY.mask(), 8.5));
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        codec.writeItems(new DataOutputStream(single), items);
+        List<Item> decoded = codec.readRecommendations(single.toByteArray());
+        assertEquals(2, decoded.size());
+        assertEquals(129, decoded.get(1).getId());
+        assertEquals("千と千尋の神隠し", decoded.get(1).getTitle());
+        assertEquals(items.get(1).getGenreMask(), decoded.get(1).getGenreMask());
+        assertEquals(8.5, decoded.get(1).getRating(), 1e-9);
+
+        ByteArrayOutputStream batch = new ByteArrayOutputStream();
+        codec.writeBatchResults(new DataOutputStream(batch), List.of(items, List.of()));
+        List<List<Item>> results = codec.readBatchResults(batch.toByteArray(), 2);
+        assertEquals(2, results.get(0).size());
+        assertTrue(results.get(1).isEmpty());
+        assertThrows(IOException.class, () -> codec.readBatchResults(batch.toByteArray(), 3));
+    }
+
+    /**
+     * Test 3: Error bodies, truncated bodies and the wrong kind are IOExceptions
+     */
+    @Test
+    public void testErrorsAreIOExceptions() throws IOException {
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        codec.writeError(new DataOutputStream(error), "Model not loaded");
+        IOException e = assertThrows(IOException.class, () -> codec.readRecommendations(error.toByteArray()));
+        assertTrue(e.getMessage().contains("Model not loaded"));
+
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        codec.writeItems(new DataOutputStream(single), List.of(new Item(1, "Alien", "", 0, 7.5)));
+        byte[] body = single.toByteArray();
+        byte[] truncated = Arrays.copyOf(body, body.length - 3);
+        assertThrows(IOException.class, () -> codec.readRecommendations(truncated));
+        assertThrows(IOException.class, () -> codec.readBatchResults(body, 1));
+    }
+}
@@ -0,0 +1,117 @@
+package crossai.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Unit tests for the ExchangeCodec class.
+ * Tests request writing and streaming decoding of engine and worker responses.
+ */
+
+public class ExchangeCodecTest {
+    private final ExchangeCodec codec = new ExchangeCodec();
+
+    /**
+     * Test 1: Requests are written compactly in the format the engine expects
+     */
+    @Test
+    public void testWriteRequest() throws IOException {
+        User user = new User("Alice", 25);
+        user.addPreferredGenres(Arrays.asList(Genre.ACTION, Genre.SCIENCE_FICTION));
+
+        StringWriter out = new StringWriter();
+        codec.writeRequest(out, user);
+
+        assertEquals("{\"user\":{\"name\":\"Alice\",\"age\":25," +
+                     "\"preferredGenres\":[\"Action\",\"Science Fiction\"]}," +
+                     "\"action\":\"GET_RECOMMENDATIONS\"}",
+                     out.toString());
+        assertFalse(out.toString().contains("\n"));
+    }
+
+    /**
+     * Test 2: Engine and ML item formats are decoded, unknown fields are skipped
+     */
+    @Test
+    public void testReadRecommendations() throws IOException {
+        String json = "{\"status\":\"success\",\"recommendations\":[" +
+                      "{\"id\":1,\"title\":\"Heat\",\"genres\":[\"Action\",\"Crime\"],\"rating\":7.9}," +
+                      "{\"id\":2.0,\"title\":\"Up\",\"vote_average\":7.8,\"vote_count\":NaN," +
+                      "\"ml_score\":{\"nested\":[1,2]}}],\"count\":2}";
+
+        List<Item> items = codec.readRecommendations(json, "recommendations");
+
+        assertEquals(2, items.size());
+        assertEquals("Heat", items.get(0).getTitle());
+        assertEquals(EnumSet.of(Genre.ACTION, Genre.CRIME), items.get(0).getGenres());
+        assertEquals(7.9, items.get(0).getRating(), 1e-9);
+        assertEquals(2, items.get(1).getId());
+        assertEquals(7.8, items.get(1).getRating(), 1e-9);
+        assertTrue(items.get(1).getGenres().isEmpty());
+    }
+
+    /**
+     * Test 3: Written items read back unchanged
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Item> items = Arrays.asList(
+            new Item(10, "Alien", "In space", Arrays.asList(Genre.HORROR, Genre.SCIENCE_FICTION), 8.1),
+            new Item(11, "Fargo", "", Arrays.asList(Genre.CRIME), 7.5));
+
+        StringWriter out = new StringWriter();
+        codec.writeRecommendations(out, items, "ok");
+
+        List<Item> decoded = codec.readRecommendations(out.toString(), "recommendations");
+        assertEquals(items.size(), decoded.size());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getId(), decoded.get(i).getId());
+            assertEquals(items.get(i).getTitle(), decoded.get(i).getTitle());
+            assertEquals(items.get(i).getDescription(), decoded.get(i).getDescription());
+            assertEquals(items.get(i).getGenreMask(), decoded.get(i).getGenreMask());
+            assertEquals(items.get(i).getRating(), decoded.get(i).getRating(), 1e-9);
+        }
+    }
+
+    /**
+     * Test 4: Batch results are split per profile and checked against the request size
+     */
+    @Test
+    public void testReadBatchResults() throws IOException {
+        String json = "{\"id\":3,\"results\":[{\"ml_recommendations\":[{\"id\":1,\"title\":\"Heat\"}]}," +
+                      "{\"ml_recommendations\":[]}]}";
+
+        List<List<Item>> results = codec.readBatchResults(json, "ml_recommendations", 2);
+        assertEquals(2, results.size());
+        assertEquals(1, results.get(0).size());
+        assertTrue(results.get(1).isEmpty());
+
+        assertThrows(IOException.class, () -> codec.readBatchResults(json, "ml_recommendations", 3));
+    }
+
+    /**
+     * Test 5: Error responses and malformed documents fail instead of returning nothing
+     */
+    @Test
+    public void testErrors() {
+        assertThrows(IOException.class,
+            () -> codec.readRecommendations("{\"recommendations\":[],\"error\":\"Python failed\"}", "recommendations"));
+        assertThrows(IOException.class,
+            () -> codec.readRecommendations("{\"recommendations\":[{\"id\":1}]}", "recommendations"));
+        assertThrows(IOException.class,
+            () -> codec.readRecommendations("[1, 2]", "recommendations"));
+    }
+}
@@ -0,0 +1,386 @@
+package crossai.load;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.service.EngineWorker;
+import crossai.service.HybridRecommendationService;
+import crossai.service.MockRecommendationService;
+import crossai.util.CircuitBreaker;
+
+/**
+ * Unit tests for the load generation harness.
+ * Tests the Zipf sampler, the synthetic population, both run modes, and the hybrid
+ * service against the stub engine and failing engines.
+ */
+
+public class LoadGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test 1: Zipf draws favour low ranks, an exponent of 0 is uniform
+     */
+    @Test
+    public void testZipfDistribution() {
+        ZipfDistribution zipf = new ZipfDistribution(100, 1.0);
+        Random random = new Random(1);
+        int[] counts = new int[100];
+        for (int i = 0; i < 100_000; i++) {
+            counts[zipf.sample(random)]++;
+        }
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[99]);
+        assertEquals(zipf.probability(0), counts[0] / 100_000.0, 0.01);
+
+        ZipfDistribution uniform = new ZipfDistribution(4, 0.0);
+        for (int rank = 0; rank < 4; rank++) {
+            assertEquals(0.25, uniform.probability(rank), 1e-9);
+        }
+    }
+
+    /**
+     * Test 2: The same seed gives the same users, profiles have one to three genres
+     */
+    @Test
+    public void testPopulationIsDeterministic() {
+        UserPopulation first = new UserPopulation(7);
+        UserPopulation second = new UserPopulation(7);
+        Random a = new Random(3);
+        Random b = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            User x = first.next(a);
+            User y = second.next(b);
+            assertEquals(x.getName(), y.getName());
+            assertEquals(x.getAge(), y.getAge());
+            assertEquals(x.getGenreMask(), y.getGenreMask());
+            int genres = Integer.bitCount(x.getGenreMask());
+            assertTrue(genres >= 1 && genres <= UserPopulation.MAX_PROFILE_GENRES);
+            assertTrue(x.getAge() >= UserPopulation.MIN_AGE && x.getAge() <= UserPopulation.MAX_AGE);
+        }
+    }
+
+    /**
+     * Test 3: Closed and open loop runs report requests, latencies and cache hits
+     */
+    @Test
+    public void testRunsAgainstMockService() throws InterruptedException {
+        MockRecommendationService mock = new MockRecommendationService(tempDir.toString());
+        mock.setLoggingEnabled(false);
+        LoadGenerator generator = new LoadGenerator(mock, new UserPopulation(1, 50, 1.0, 0.5, 20, 1.0), 1);
+
+        LoadReport closed = generator.runClosedLoop(2, Duration.ofMillis(200));
+        assertTrue(closed.getRequests() > 0);
+        assertEquals(0, closed.getFailures());
+        assertTrue(closed.getCacheHitRate() > 0.5);
+        assertTrue(closed.getP50Millis() <= closed.getP95Millis());
+        assertTrue(closed.getP99Millis() <= closed.getMaxMillis());
+
+        LoadReport open = generator.runOpenLoop(200, Duration.ofMillis(500));
+        assertEquals(100, open.getRequests() + open.getDropped(), 2);
+        assertEquals(0, open.getFailures());
+    }
+
+    /**
+     * Test 4: The hybrid service runs the stub engine process and gets its fixed answer, deeper pages
+     * too, which the deepest ranking computed serves afterwards
+     */
+    @Test
+    public void testHybridWithStubEngine() throws IOException {
+        HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString());
+        hybrid.setLoggingEnabled(false);
+        hybrid.setEngineCommand(LoadGenerator.stubCommand(0));
+        try {
+            User user = new User("Test", 30);
+            user.addGenre(Genre.ACTION);
+            user.addGenre(Genre.WAR);
+            List<Item> items = hybrid.getRecommendations(user);
+
+            List<Item> expected = StubEngine.recommendationsFor(user.getGenreMask());
+            assertEquals(expected.size(), items.size());
+            assertEquals(expected.get(3).getId(), items.get(3).getId());
+            assertEquals(user.getGenreMask(), items.get(0).getGenreMask());
+
+            List<Item> deeper = hybrid.getRecommendations(user, 12, 5);
+            assertEquals(5, deeper.size());
+            assertEquals(StubEngine.recommendationsFor(user.getGenreMask(), 20).get(12).getId(), deeper.get(0).getId());
+
+            // a deeper ranking serves every page above it without another engine run
+            List<Item> deepest = hybrid.getRecommendations(user, 50, 10);
+            long runs = hybrid.getMetrics().getEngineRuns();
+            assertEquals(StubEngine.recommendationsFor(user.getGenreMask(), 80).get(50).getId(), deepest.get(0).getId());
+            List<Item> between = hybrid.getRecommendations(user, 30, 5);
+            assertEquals(StubEngine.recommendationsFor(user.getGenreMask(), 80).get(30).getId(), between.get(0).getId());
+            assertEquals(deeper.get(0).getId(), hybrid.getRecommendations(user, 12, 5).get(0).getId());
+            assertEquals(runs, hybrid.getMetrics().getEngineRuns());
+        } finally {
+            hybrid.close();
+        }
+    }
+
+    /**
+     * Test 5: The stub worker negotiates binary messages, a declining worker stays on JSON
+     */
+    @Test
+    public void testWorkerFormatNegotiation() throws IOException {
+        User user = new User("Test", 30);
+        user.addGenre(Genre.COMEDY);
+        List<User> batch = List.of(user, new User("Other", 40));
+        batch.get(1).addGenre(Genre.HORROR);
+
+        for (boolean binary : new boolean[] {true, false}) {
+            EngineWorker worker = binary ? new EngineWorker(LoadGenerator.stubCommand(0, "--serve"), null)
+                                         : new EngineWorker(LoadGenerator.stubCommand(0, "--json", "--serve"), null);
+            worker.setLoggingEnabled(false);
+            HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString(), worker);
+            hybrid.setLoggingEnabled(false);
+            try {
+                List<Item> items = hybrid.getRecommendations(user);
+                assertEquals(binary, worker.isUsingBinary());
+                assertEquals(StubEngine.RECOMMENDATION_COUNT, items.size());
+                assertEquals(StubEngine.recommendationsFor(user.getGenreMask()).get(2).getTitle(),
+                             items.get(2).getTitle());
+                assertEquals(user.getGenreMask(), items.get(2).getGenreMask());
+
+                List<Item> secondPage = hybrid.getRecommendations(user, 10, 10);
+                assertEquals(10, secondPage.size());
+                assertEquals(StubEngine.recommendationsFor(user.getGenreMask(), 20).get(10).getId(),
+                             secondPage.get(0).getId());
+                List<List<Item>> results = hybrid.getRecommendationsBatch(batch);
+                assertEquals(batch.get(1).getGenreMask(), results.get(1).get(0).getGenreMask());
+            } finally {
+                hybrid.close();
+            }
+        }
+    }
+
+    /**
+     * Test 6: An engine that exits without writing output fails over, nothing made up is cached
+     */
+    @Test
+    public void testEngineWithoutOutputFallsBack() throws IOException {
+        MockRecommendationService fallback = new MockRecommendationService(tempDir.toString());
+        fallback.setLoggingEnabled(false);
+        HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString());
+        hybrid.setLoggingEnabled(false);
+        hybrid.setFallbackService(fallback);
+        hybrid.setEngineCommand(LoadGenerator.stubCommand(0, "--fail"));
+        try {
+            User user = new User("Test", 30);
+            user.addGenre(Genre.DRAMA);
+            List<Item> expected = fallback.getRecommendations(user);
+
+            for (int i = 0; i < 2; i++) {
+                List<Item> items = hybrid.getRecommendations(user);
+                assertEquals(expected.size(), items.size());
+                assertEquals(expected.get(0).getId(), items.get(0).getId());
+            }
+            assertEquals(2, hybrid.getMetrics().getEngineRuns());
+            assertEquals(2, hybrid.getEngineBreaker().getConsecutiveFailures());
+        } finally {
+            hybrid.close();
+            fallback.close();
+        }
+    }
+
+    /**
+     * Test 7: An error response from the worker counts against the circuit breaker
+     */
+    @Test
+    public void testWorkerErrorIsEngineFailure() throws IOException {
+        MockRecommendationService fallback = new MockRecommendationService(tempDir.toString());
+        fallback.setLoggingEnabled(false);
+        User user = new User("Test", 30);
+        user.addGenre(Genre.WESTERN);
+        List<Item> expected = fallback.getRecommendations(user);
+
+        for (boolean binary : new boolean[] {true, false}) {
+            EngineWorker worker = binary ? new EngineWorker(LoadGenerator.stubCommand(0, "--fail", "--serve"), null)
+                                         : new EngineWorker(LoadGenerator.stubCommand(0, "--fail", "--json", "--serve"), null);
+            worker.setLoggingEnabled(false);
+            HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString(), worker);
+            hybrid.setLoggingEnabled(false);
+            hybrid.setFallbackService(fallback);
+            try {
+                List<Item> items = hybrid.getRecommendations(user);
+                assertEquals(binary, worker.isUsingBinary());
+                assertEquals(expected.get(0).getId(), items.get(0).getId());
+                assertEquals(1, hybrid.getEngineBreaker().getConsecutiveFailures());
+                assertEquals(1, hybrid.getMetrics().getEngineFailures());
+            } finally {
+                hybrid.close();
+            }
+        }
+        fallback.close();
+    }
+
+    /**
+     * Test 8: A worker slower than the engine timeout gets a bounded answer from the
+     * fallback, while starting and once it is stuck on a request (which kills it)
+     */
+    @Test
+    public void testSlowWorkerTimesOutToFallback() throws Exception {
+        MockRecommendationService fallback = new MockRecommendationService(tempDir.toString());
+        fallback.setLoggingEnabled(false);
+        User user = new User("Test", 30);
+        user.addGenre(Genre.MYSTERY);
+        List<Item> expected = fallback.getRecommendations(user);
+
+        EngineWorker worker = new EngineWorker(LoadGenerator.stubCommand(5_000, "--serve"), null);
+        worker.setLoggingEnabled(false);
+        HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString(), worker);
+        hybrid.setLoggingEnabled(false);
+        hybrid.setFallbackService(fallback);
+        try {
+            // the stub's JVM is still starting, the request doesn't wait for it
+            hybrid.setEngineTimeout(Duration.ofMillis(1));
+            long start = System.nanoTime();
+            List<Item> items = hybrid.getRecommendations(user);
+            assertTrue(System.nanoTime() - start < 3_000_000_000L);
+            assertEquals(expected.get(0).getId(), items.get(0).getId());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!worker.isUsingBinary() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(worker.isUsingBinary());
+
+            hybrid.setEngineTimeout(Duration.ofMillis(300));
+            start = System.nanoTime();
+            items = hybrid.getRecommendations(user);
+            assertTrue(System.nanoTime() - start < 3_000_000_000L);
+            assertEquals(expected.get(0).getId(), items.get(0).getId());
+            assertTrue(!worker.isRunning());
+            assertTrue(hybrid.getMetrics().getEngineTimeouts() >= 1);
+            assertEquals(1, hybrid.getEngineBreaker().getConsecutiveFailures());
+        } finally {
+            hybrid.close();
+            fallback.close();
+        }
+    }
+
+    /**
+     * Test 9: Requests still running when the drain timeout ends an open loop run are
+     * reported as timed out
+     */
+    @Test
+    public void testOpenLoopCountsUnansweredRequests() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        MockRecommendationService stuck = new MockRecommendationService(tempDir.toString()) {
+            @Override
+            public List<Item> getRecommendations(User user) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        };
+        stuck.setLoggingEnabled(false);
+        LoadGenerator generator = new LoadGenerator(stuck, new UserPopulation(1), 1);
+        generator.setDrainTimeout(Duration.ofMillis(100));
+        try {
+            LoadReport report = generator.runOpenLoop(50, Duration.ofMillis(200));
+            assertEquals(10, report.getRequests() + report.getDropped(), 1);
+            assertEquals(report.getRequests(), report.getTimedOut());
+            assertEquals(report.getTimedOut(), report.getFailures());
+            assertTrue(report.getTimedOut() > 0);
+            assertEquals(0.0, report.getThroughput(), 1e-9);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Test 10: Paging through the whole ranking runs the engine once per ranking depth
+     */
+    @Test
+    public void testHybridPagingRunsEngineOncePerDepth() throws IOException {
+        HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString());
+        hybrid.setLoggingEnabled(false);
+        hybrid.setEngineCommand(LoadGenerator.stubCommand(0));
+        try {
+            User user = new User("Test", 30);
+            user.addGenre(Genre.COMEDY);
+            List<Item> ranking = StubEngine.recommendationsFor(user.getGenreMask(), 1_000);
+            for (int offset = 0; offset <= 900; offset += 10) {
+                List<Item> page = hybrid.getRecommendations(user, offset, 10);
+                assertEquals(10, page.size());
+                assertEquals(ranking.get(offset).getId(), page.get(0).getId());
+            }
+            // depths 10, 20, 40, 80, 160, 320, 640 and 1000
+            assertEquals(8, hybrid.getMetrics().getEngineRuns());
+        } finally {
+            hybrid.close();
+        }
+    }
+
+    /**
+     * Test 11: Requests that give up while the worker is still starting fall back
+     * without counting against the circuit breaker
+     */
+    @Test
+    public void testSlowWorkerStartLeavesBreakerClosed() throws Exception {
+        MockRecommendationService fallback = new MockRecommendationService(tempDir.toString());
+        fallback.setLoggingEnabled(false);
+        User user = new User("Test", 30);
+        user.addGenre(Genre.DRAMA);
+        List<Item> expected = fallback.getRecommendations(user);
+
+        EngineWorker worker = new EngineWorker(LoadGenerator.stubCommand(0, "--serve"), null);
+        worker.setLoggingEnabled(false);
+        HybridRecommendationService hybrid = new HybridRecommendationService(tempDir.toString(), worker);
+        hybrid.setLoggingEnabled(false);
+        hybrid.setFallbackService(fallback);
+        hybrid.setEngineTimeout(Duration.ofMillis(1));
+        try {
+            // more than the breaker's failure threshold, all before the stub's JVM is up
+            for (int i = 0; i < 6; i++) {
+                assertEquals(expected.get(0).getId(), hybrid.getRecommendations(user).get(0).getId());
+            }
+            assertEquals(0, hybrid.getEngineBreaker().getConsecutiveFailures());
+            assertEquals(CircuitBreaker.State.CLOSED, hybrid.getEngineBreaker().getState());
+            assertEquals(0, hybrid.getMetrics().getEngineFailures());
+        } finally {
+            hybrid.close();
+            fallback.close();
+        }
+    }
+
+    /**
+     * Test 12: A worker that keeps dying is started at most five times a minute
+     */
+    @Test
+    public void testWorkerRestartLimit() {
+        EngineWorker worker = new EngineWorker(LoadGenerator.stubCommand(0, "--serve"), null);
+        worker.setLoggingEnabled(false);
+        EngineWorker.RequestBody json = out -> out.name("count").value(10);
+        EngineWorker.BinaryRequestBody binary = out -> out.writeShort(10);
+        try {
+            for (int i = 0; i < 5; i++) {
+                // starts a process, gives up before it is ready, then kills it
+                assertThrows(TimeoutException.class, () -> worker.send(json, binary, System.nanoTime()));
+                worker.kill();
+            }
+            IOException refused = assertThrows(IOException.class, () -> worker.send(json, binary, System.nanoTime()));
+            assertTrue(refused.getMessage().contains("not restarting"));
+        } finally {
+            worker.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package crossai.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import crossai.model.Genre;
+import crossai.model.User;
+import crossai.service.MockRecommendationService;
+
+/**
+ * Unit tests for LatencyHistogram and ServiceMetrics.
+ * Tests percentile accuracy, counters and the JMX registration.
+ */
+
+public class ServiceMetricsTest {
+
+    /**
+     * Test 1: Percentiles are within one bucket (1/16) of the exact value
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000); // 1us .. 10ms
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 16.0);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 16.0);
+        assertTrue(histogram.getValueAtPercentile(50) >= 5_000_000);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    /**
+     * Test 2: Bucket bounds cover every value exactly once
+     */
+    @Test
+    public void testBuckets() {
+        long[] values = { 0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, 1L << 40, Long.MAX_VALUE };
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket) || value > (1L << 41), "value " + value);
+            if (bucket > 0 && value < (1L << 41)) {
+                assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1), "value " + value);
+            }
+        }
+    }
+
+    /**
+     * Test 3: Service requests update stage latencies and cache counters
+     */
+    @Test
+    public void testServiceMetrics() {
+        MockRecommendationService service = new MockRecommendationService("test-data");
+        service.setLoggingEnabled(false);
+        User user = new User("Alice", 25);
+        user.addPreferredGenres(Arrays.asList(Genre.ACTION));
+
+        service.getRecommendations(user);
+        service.getRecommendations(user);
+
+        ServiceMetrics metrics = service.getMetrics();
+        assertEquals(2, metrics.getHistogram(Stage.VALIDATE).getCount());
+        assertEquals(2, metrics.getHistogram(Stage.CACHE_LOOKUP).getCount());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(1, metrics.getCacheMisses());
+        assertEquals(0.5, metrics.getCacheHitRate(), 1e-9);
+
+        metrics.recordEngineExit(0);
+        metrics.recordEngineExit(3);
+        assertEquals(2, metrics.getEngineRuns());
+        assertEquals(1, metrics.getEngineFailures());
+        assertEquals(1L, metrics.getEngineExitCodes().get(3));
+
+        metrics.reset();
+        assertEquals(0, metrics.getCacheHits());
+        assertEquals(0, metrics.getEngineRuns());
+        assertEquals(0, metrics.getHistogram(Stage.VALIDATE).getCount());
+    }
+
+    /**
+     * Test 4: Metrics are readable through the platform MBean server
+     */
+    @Test
+    public void testJmxRegistration() throws Exception {
+        MockRecommendationService service = new MockRecommendationService("test-data");
+        service.setLoggingEnabled(false);
+        User user = new User("Bob", 30);
+        user.addPreferredGenres(Arrays.asList(Genre.DRAMA));
+        service.getRecommendations(user);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = service.getMetrics().getObjectName();
+        assertEquals("MockRecommendationService", name.getKeyProperty("name"));
+        assertTrue(server.isRegistered(name));
+        assertEquals(1L, server.getAttribute(name, "CacheMisses"));
+
+        TabularData stages = (TabularData) server.getAttribute(name, "StageLatencies");
+        CompositeData validate = (CompositeData) stages.get(new Object[] { "validate" }).get("value");
+        assertEquals(1L, validate.get("count"));
+
+        service.getMetrics().unregister();
+        assertTrue(!server.isRegistered(name));
+    }
+
+    /**
+     * Test 5: Services of the same class register apart, closing one keeps the other
+     */
+    @Test
+    public void testRegistrationPerInstance() throws Exception {
+        MockRecommendationService first = new MockRecommendationService("test-data");
+        MockRecommendationService second = new MockRecommendationService("test-data");
+        ObjectName firstName = first.getMetrics().getObjectName();
+        ObjectName secondName = second.getMetrics().getObjectName();
+        assertNotEquals(firstName, secondName);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        first.close();
+        assertNull(first.getMetrics().getObjectName());
+        assertTrue(!server.isRegistered(firstName));
+        assertTrue(server.isRegistered(secondName));
+
+        second.close();
+        assertTrue(!server.isRegistered(secondName));
+    }
+}
@@ -0,0 +1,70 @@
+package crossai.model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the Item class and Genre lookup.
+ * Tests the genre mask, genre matching and name resolution.
+ */
+
+public class ItemTest {
+
+    /**
+     * Test 1: Genres given as a collection are stored as a mask
+     */
+    @Test
+    public void testGenreMask() {
+        Item item = new Item(1, "Alien", "", Arrays.asList(Genre.SCIENCE_FICTION, Genre.HORROR), 8.1);
+
+        assertEquals(Genre.HORROR.mask() | Genre.SCIENCE_FICTION.mask(), item.getGenreMask());
+        assertEquals(EnumSet.of(Genre.HORROR, Genre.SCIENCE_FICTION), item.getGenres());
+        assertTrue(item.hasGenre(Genre.HORROR));
+        assertFalse(item.hasGenre(Genre.DRAMA));
+    }
+
+    /**
+     * Test 2: Genre matching is a bitwise AND against a user's mask
+     */
+    @Test
+    public void testMatchesAny() {
+        Item item = new Item(2, "Heat", "", Genre.ACTION.mask() | Genre.CRIME.mask(), 7.9);
+
+        assertTrue(item.matchesAny(Genre.CRIME.mask() | Genre.DRAMA.mask()));
+        assertFalse(item.matchesAny(Genre.COMEDY.mask()));
+        assertFalse(item.matchesAny(0));
+    }
+
+    /**
+     * Test 3: Display string lists genres in enum order, or "Unknown" without genres
+     */
+    @Test
+    public void testGenresAsString() {
+        Item item = new Item(3, "Fargo", "", Arrays.asList(Genre.THRILLER, Genre.CRIME), 7.5);
+
+        assertEquals("Crime, Thriller", item.getGenresAsString());
+        assertEquals("Unknown", new Item(4, "Untitled").getGenresAsString());
+    }
+
+    /**
+     * Test 4: Genre names resolve case-insensitively, including the Sci-Fi aliases
+     */
+    @Test
+    public void testGenreFromString() {
+        assertEquals(Genre.SCIENCE_FICTION, Genre.fromString("Science Fiction"));
+        assertEquals(Genre.SCIENCE_FICTION, Genre.fromString("science_fiction"));
+        assertEquals(Genre.SCIENCE_FICTION, Genre.fromString(" sci-fi "));
+        assertEquals(Genre.SCIENCE_FICTION, Genre.fromString("SCIFI"));
+        assertEquals(Genre.TV_MOVIE, Genre.fromString("tv movie"));
+        assertEquals(Genre.DRAMA, Genre.fromString("DRAMA"));
+        assertNull(Genre.fromString("Documentary Short"));
+        assertNull(Genre.fromString("  "));
+        assertNull(Genre.fromString(null));
+    }
+}
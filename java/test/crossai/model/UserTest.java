@@ -147,4 +147,21 @@ public class UserTest {
         assertEquals(1, user.getPreferredGenres().size());
         assertFalse(user.getPreferredGenres().contains(Genre.ROMANCE));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test 11: Genre mask does not depend on the order genres were added in
+     */
+    @Test
+    public void testGenreMaskIgnoresOrder() {
+        User other = new User("Jane Doe", 30);
+        user.addGenre(Genre.ACTION);
+        user.addGenre(Genre.WESTERN);
+        other.addGenre(Genre.WESTERN);
+        other.addGenre(Genre.ACTION);
+        other.addGenre(Genre.ACTION);
+
+        assertEquals(user.getGenreMask(), other.getGenreMask());
+        assertEquals(Genre.maskOf(user.getPreferredGenres()), user.getGenreMask());
+        assertEquals(Arrays.asList(Genre.ACTION, Genre.WESTERN), Genre.fromMask(user.getGenreMask()));
+    }
+}
@@ -0,0 +1,156 @@
+package crossai.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import crossai.controller.AppController;
+import crossai.controller.ServiceType;
+import crossai.json.ExchangeCodec;
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Unit tests for the RecommendationServer class.
+ * Tests the JSON endpoints, gzip, input validation and the health check, against the mock service.
+ */
+
+public class RecommendationServerTest {
+
+    private AppController controller;
+    private RecommendationServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        controller = new AppController(ServiceType.MOCK);
+        server = new RecommendationServer(controller, 0);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+        controller.close();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    /**
+     * Test 1: GET with query parameters returns recommendations in the engine's format
+     */
+    @Test
+    public void testGetRecommendations() throws Exception {
+        HttpResponse<String> response = client.send(
+            HttpRequest.newBuilder(uri("/recommendations?genres=Action,Comedy&name=Ana&age=30")).build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/json"));
+        List<Item> items = new ExchangeCodec().readRecommendations(response.body(), "recommendations");
+        assertFalse(items.isEmpty());
+    }
+
+    /**
+     * Test 2: POST with an input.json style body, gzip-compressed for a client accepting it
+     */
+    @Test
+    public void testPostWithGzip() throws Exception {
+        String body = "{\"user\": {\"name\": \"Ana\", \"age\": 30, \"preferredGenres\": [\"Drama\", \"Action\"]}}";
+        HttpResponse<byte[]> response = client.send(
+            HttpRequest.newBuilder(uri("/recommendations"))
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(""));
+        byte[] json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            json = in.readAllBytes();
+        }
+        List<Item> items = new ExchangeCodec().readRecommendations(
+            new String(json, StandardCharsets.UTF_8), "recommendations");
+        assertFalse(items.isEmpty());
+    }
+
+    /**
+     * Test 3: Invalid requests are answered with 400 or 405
+     */
+    @Test
+    public void testBadRequests() throws Exception {
+        assertEquals(400, client.send(HttpRequest.newBuilder(uri("/recommendations?genres=Nope")).build(),
+                                      HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(400, client.send(HttpRequest.newBuilder(uri("/recommendations")).build(),
+                                      HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(400, client.send(HttpRequest.newBuilder(uri("/recommendations"))
+                                          .POST(HttpRequest.BodyPublishers.ofString("{\"user\": ")).build(),
+                                      HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(405, client.send(HttpRequest.newBuilder(uri("/recommendations")).DELETE().build(),
+                                      HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    /**
+     * Test 4: The health check reports the controller's readiness
+     */
+    @Test
+    public void testHealth() throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/health")).build(),
+                                                    HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"ready\""));
+    }
+
+    /**
+     * Test 5: Query parsing decodes parameters and rejects bad ages
+     */
+    @Test
+    public void testUserFromQuery() {
+        User user = RecommendationServer.userFromQuery("name=Ana%20Lee&age=41&genres=Science%20Fiction,war");
+        assertEquals("Ana Lee", user.getName());
+        assertEquals(41, user.getAge());
+        assertEquals(Genre.SCIENCE_FICTION.mask() | Genre.WAR.mask(), user.getGenreMask());
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> RecommendationServer.userFromQuery("genres=Action&age=old"));
+    }
+
+    /**
+     * Test 6: Malformed POST bodies are client errors, not server errors
+     */
+    @Test
+    public void testMalformedPostBody() throws Exception {
+        List<String> bodies = List.of(
+            "not json",
+            "[]",
+            "{\"user\": {\"name\": \"Ann\", \"preferredGenres\": \"Action\"}}",
+            "{\"user\": {\"name\": \"Ann\", \"preferredGenres\": [{}]}}",
+            "{\"user\": {\"name\": \"Ann\", \"age\": \"old\", \"preferredGenres\": [\"Action\"]}}",
+            "{\"user\": {\"name\": \"Ann\", \"preferredGenres\": [\"Action\"]}");
+        for (String body : bodies) {
+            HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/recommendations")).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            assertEquals(400, response.statusCode(), body);
+        }
+    }
+}
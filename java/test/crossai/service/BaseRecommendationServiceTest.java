@@ -0,0 +1,286 @@
+package crossai.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Unit tests for the shared behaviour of BaseRecommendationService.
+ * Tests single-flight loading of concurrent identical requests, invalidation and warm-up.
+ */
+
+public class BaseRecommendationServiceTest {
+    private static final int CALLERS = 8;
+
+    private ExecutorService executor;
+    private TestService service;
+
+    @TempDir
+    Path tempDir;
+
+    // loads through loadOnce with a loader the test controls
+    private static class TestService extends BaseRecommendationService {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean fail;
+        final List<Path> dependencies = new ArrayList<>();
+
+        TestService() {
+            super("test-data");
+            setLoggingEnabled(false);
+        }
+
+        @Override
+        public List<Item> getRecommendations(User user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected List<Path> getDependencies() {
+            return dependencies;
+        }
+
+        List<Item> load(String cacheKey) throws Exception {
+            return loadOnce(cacheKey, () -> {
+                loads.incrementAndGet();
+                release.await();
+                if (fail) {
+                    throw new IOException("engine failed");
+                }
+                List<Item> result = new ArrayList<>();
+                result.add(new Item(1, "Heat", "", Genre.CRIME.mask(), 7.9));
+                return result;
+            });
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(CALLERS);
+        service = new TestService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private List<Future<List<Item>>> startCallers(String cacheKey) throws InterruptedException {
+        List<Future<List<Item>>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> service.load(cacheKey)));
+        }
+        // wait until the first caller is loading and the others are queued behind it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.getMetrics().getCoalescedRequests() < CALLERS - 1 &&
+               System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        return futures;
+    }
+
+    /**
+     * Test 1: Concurrent callers for the same key share one load and one result
+     */
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        List<Future<List<Item>>> futures = startCallers("test:1:10");
+        service.release.countDown();
+
+        List<Item> first = futures.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<Item>> future : futures) {
+            assertSame(first, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, service.loads.get());
+        assertEquals(CALLERS - 1, service.getMetrics().getCoalescedRequests());
+        assertTrue(service.lookupCache("test:1:10").isPresent());
+    }
+
+    /**
+     * Test 2: A failure reaches every waiting caller and is not cached
+     */
+    @Test
+    public void testFailureReachesAllCallers() throws Exception {
+        service.fail = true;
+        List<Future<List<Item>>> futures = startCallers("test:2:10");
+        service.release.countDown();
+
+        for (Future<List<Item>> future : futures) {
+            Exception e = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(1, service.loads.get());
+        assertTrue(service.lookupCache("test:2:10").isEmpty());
+
+        // the next request tries again
+        service.fail = false;
+        assertEquals(1, service.load("test:2:10").size());
+        assertEquals(2, service.loads.get());
+    }
+
+    /**
+     * Test 3: Different keys are loaded independently
+     */
+    @Test
+    public void testDifferentKeysLoadSeparately() throws Exception {
+        service.release.countDown();
+        service.load("test:a:10");
+        service.load("test:b:10");
+
+        assertEquals(2, service.loads.get());
+        assertEquals(0, service.getMetrics().getCoalescedRequests());
+    }
+
+    /**
+     * Test 4: After invalidation nothing cached before is served, including a result
+     * that was still being computed
+     */
+    @Test
+    public void testInvalidateDropsCachedAndInFlightResults() throws Exception {
+        service.release.countDown();
+        service.load("test:1:10");
+        assertTrue(service.lookupCache("test:1:10").isPresent());
+
+        service.invalidate("test");
+        assertTrue(service.lookupCache("test:1:10").isEmpty());
+        assertEquals(1, service.getCacheGeneration());
+        assertEquals(1, service.getMetrics().getCacheInvalidations());
+
+        // a load that started before invalidation is not cached for later callers
+        TestService slow = new TestService();
+        Future<List<Item>> running = executor.submit(() -> slow.load("test:2:10"));
+        while (slow.loads.get() == 0) {
+            Thread.sleep(5);
+        }
+        slow.invalidate("test");
+        slow.release.countDown();
+        assertEquals(1, running.get(5, TimeUnit.SECONDS).size());
+
+        assertTrue(slow.lookupCache("test:2:10").isEmpty());
+        slow.load("test:2:10");
+        assertEquals(2, slow.loads.get());
+    }
+
+    /**
+     * Test 5: Changing a watched dependency invalidates the cache, other files and
+     * rewriting a dependency unchanged don't
+     */
+    @Test
+    public void testFileWatchInvalidatesOnDependencyChange() throws Exception {
+        Path catalog = tempDir.resolve("catalog.json");
+        Files.write(catalog, "[]".getBytes(StandardCharsets.UTF_8));
+        service.dependencies.add(catalog);
+        service.enableFileWatch();
+        try {
+            service.release.countDown();
+            service.load("test:1:10");
+
+            Files.write(tempDir.resolve("output.json"), "{}".getBytes(StandardCharsets.UTF_8));
+            Files.write(catalog, "[]".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(catalog, FileTime.fromMillis(System.currentTimeMillis()));
+            Thread.sleep(200);
+            assertEquals(0, service.getCacheGeneration());
+
+            Files.write(catalog, "[{}]".getBytes(StandardCharsets.UTF_8));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (service.getCacheGeneration() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(service.getCacheGeneration() > 0);
+            assertTrue(service.lookupCache("test:1:10").isEmpty());
+        } finally {
+            service.disableFileWatch();
+        }
+    }
+
+    /**
+     * Test 6: Warm-up computes the profiles in the background and reports readiness
+     */
+    @Test
+    public void testWarmUpFillsCache() throws Exception {
+        MockRecommendationService mock = new MockRecommendationService(tempDir.toString());
+        mock.setLoggingEnabled(false);
+        assertTrue(mock.isReady());
+
+        List<Integer> profiles = WarmUpProfiles.singleGenres();
+        profiles.add(Genre.ACTION.mask() | Genre.COMEDY.mask());
+        mock.warmUp(profiles, 2);
+        mock.whenReady().get(10, TimeUnit.SECONDS);
+
+        assertTrue(mock.isReady());
+        assertTrue(mock.getMetrics().isReady());
+        assertEquals(profiles.size(), mock.getWarmedProfiles());
+        assertEquals(profiles.size(), mock.getWarmUpTotal());
+
+        long hitsBefore = mock.getMetrics().getCacheHits();
+        User user = new User("Test", 30);
+        user.addGenre(Genre.COMEDY);
+        user.addGenre(Genre.ACTION);
+        mock.getRecommendations(user);
+        assertEquals(hitsBefore + 1, mock.getMetrics().getCacheHits());
+    }
+
+    /**
+     * Test 7: The profile file gives the most frequent combinations, after the single genres
+     */
+    @Test
+    public void testWarmUpProfilesFromFile() throws IOException {
+        Path file = tempDir.resolve("profiles.tsv");
+        Files.write(file, String.join("\n",
+            "# count  genres",
+            "10\tAction,Sci-Fi",
+            "300\tComedy, Romance",
+            "",
+            "5\tNot-A-Genre",
+            "50\tsci-fi,action",
+            "1\tHorror").getBytes(StandardCharsets.UTF_8));
+
+        List<Integer> top = WarmUpProfiles.mostFrequent(file, 2);
+        assertEquals(List.of(Genre.COMEDY.mask() | Genre.ROMANCE.mask(),
+                             Genre.ACTION.mask() | Genre.SCIENCE_FICTION.mask()), top);
+
+        List<Integer> plan = WarmUpProfiles.plan(file, 2);
+        assertEquals(Genre.values().length + 2, plan.size());
+        assertEquals(Genre.values()[0].mask(), plan.get(0).intValue());
+        assertEquals(WarmUpProfiles.singleGenres(), WarmUpProfiles.plan(tempDir.resolve("missing.tsv"), 2));
+    }
+
+    /**
+     * Test 8: An item added to the mock database replaces results cached before it
+     */
+    @Test
+    public void testAddedMockItemServed() {
+        MockRecommendationService mock = new MockRecommendationService(tempDir.toString());
+        mock.setLoggingEnabled(false);
+        User user = new User("Test", 30);
+        user.addGenre(Genre.WESTERN);
+        assertTrue(mock.getRecommendations(user).stream().noneMatch(item -> item.getId() == 13));
+
+        mock.addMockItem(new Item(13, "Unforgiven", "Retired gunslinger", List.of(Genre.WESTERN), 0.0));
+        assertEquals(13, mock.getRecommendations(user).get(0).getId());
+        assertEquals(13, mock.getAllMockItems().size());
+    }
+}
@@ -0,0 +1,270 @@
+package crossai.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import crossai.catalog.GenreTfIdfModel;
+import crossai.metrics.Stage;
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+
+/**
+ * Unit tests for the in-JVM CatalogRecommendationService.
+ * Uses a small catalog in the processed_movies.json format.
+ */
+
+public class CatalogRecommendationServiceTest {
+    private static final String CATALOG_JSON = "[\n"
+        + "  {\"id\": 1, \"title\": \"Alien\", \"genres\": [\"Horror\", \"Science Fiction\"],"
+        + " \"vote_average\": 7.5, \"vote_count\": 5000.0, \"popularity\": 60.0},\n"
+        + "  {\"id\": 2, \"title\": \"Ju-on: The Grudge\", \"genres\": [\"Horror\"],"
+        + " \"vote_average\": 6.7, \"vote_count\": 199.0, \"popularity\": 7.6},\n"
+        + "  {\"id\": 3, \"title\": \"Bad Horror\", \"genres\": [\"Horror\"],"
+        + " \"vote_average\": 4.0, \"vote_count\": 500.0, \"popularity\": 5.0},\n"
+        + "  {\"id\": 4, \"title\": \"Obscure Horror\", \"genres\": [\"Horror\"],"
+        + " \"vote_average\": 7.0, \"vote_count\": 20.0, \"popularity\": NaN},\n"
+        + "  {\"id\": 5, \"title\": \"Superbad\", \"genres\": [\"Comedy\"],"
+        + " \"vote_average\": 8.0, \"vote_count\": 1000.0, \"popularity\": 30.0}\n"
+        + "]";
+
+    @TempDir
+    Path tempDir;
+
+    private CatalogRecommendationService service;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path catalogFile = tempDir.resolve("processed_movies.json");
+        Files.writeString(catalogFile, CATALOG_JSON);
+        service = new CatalogRecommendationService(tempDir.toString(), catalogFile.toString());
+        service.setLoggingEnabled(false);
+    }
+
+    /**
+     * Test 1: Catalog is loaded once with all movies
+     */
+    @Test
+    public void testCatalogLoaded() {
+        assertEquals(5, service.getCatalog().size());
+        assertEquals("Alien", service.getCatalog().getTitle(0));
+    }
+
+    /**
+     * Test 2: Best genre match comes first, low rating and low vote count are filtered out
+     */
+    @Test
+    public void testRankingAndQualityFilters() {
+        User user = new User("Alice", 30);
+        user.addGenre(Genre.HORROR);
+
+        List<Item> recommendations = service.getRecommendations(user);
+
+        assertEquals(2, recommendations.size());
+        assertEquals(2, recommendations.get(0).getId());
+        assertEquals(1, recommendations.get(1).getId());
+        assertEquals(6.7, recommendations.get(0).getRating(), 1e-9);
+    }
+
+    /**
+     * Test 3: Similarity matches scikit-learn's smooth idf and l2 normalization
+     */
+    @Test
+    public void testSimilarityMatchesTfIdf() {
+        GenreTfIdfModel model = new GenreTfIdfModel(service.getCatalog());
+
+        double idfHorror = Math.log(6.0 / 5.0) + 1.0;
+        double idfSciFi = Math.log(6.0 / 2.0) + 1.0;
+        double horror = idfHorror * idfHorror;
+        double sciFi = 2 * idfSciFi * idfSciFi; // "science" and "fiction" tokens
+        double expected = horror / (Math.sqrt(horror) * Math.sqrt(horror + sciFi));
+
+        int query = Genre.HORROR.mask();
+        double actual = model.similarity(query, model.norm(query), 0, service.getCatalog().getGenreMask(0));
+
+        assertEquals(expected, actual, 1e-12);
+    }
+
+    /**
+     * Test 4: User without genres gets no recommendations
+     */
+    @Test
+    public void testNoGenresNoRecommendations() {
+        assertTrue(service.getRecommendations(new User("Bob", 20)).isEmpty());
+    }
+
+    /**
+     * Test 5: Same genre set in a different order hits the cache
+     */
+    @Test
+    public void testCacheIgnoresGenreOrder() {
+        User first = new User("Carol", 40);
+        first.addGenre(Genre.HORROR);
+        first.addGenre(Genre.COMEDY);
+
+        User second = new User("Carol", 40);
+        second.addGenre(Genre.COMEDY);
+        second.addGenre(Genre.HORROR);
+
+        assertSame(service.getRecommendations(first), service.getRecommendations(second));
+    }
+
+    /**
+     * Test 6: Missing catalog file fails fast
+     */
+    @Test
+    public void testMissingCatalog() {
+        assertThrows(IllegalStateException.class, () ->
+            new CatalogRecommendationService(tempDir.toString(), tempDir.resolve("missing.json").toString()));
+    }
+
+    /**
+     * Test 7: Index and full scan give the same recommendations
+     */
+    @Test
+    public void testIndexMatchesScan() {
+        User user = new User("Dave", 35);
+        user.addGenre(Genre.HORROR);
+        user.addGenre(Genre.SCIENCE_FICTION);
+
+        List<Item> fromIndex = service.getRecommendations(user);
+        service.setUseIndex(false);
+        service.clearCache();
+        List<Item> fromScan = service.getRecommendations(user);
+
+        assertEquals(fromScan.size(), fromIndex.size());
+        for (int i = 0; i < fromScan.size(); i++) {
+            assertEquals(fromScan.get(i).getId(), fromIndex.get(i).getId());
+        }
+    }
+
+    /**
+     * Test 8: Pages and the stream follow the full ranking
+     */
+    @Test
+    public void testPagedRecommendations() {
+        service.setQualityFilters(0, 0);
+        User user = new User("Erin", 28);
+        user.addGenre(Genre.HORROR);
+        List<Item> full = service.getRecommendations(user);
+        assertEquals(4, full.size());
+
+        List<Item> page = service.getRecommendations(user, 1, 2);
+        assertEquals(2, page.size());
+        assertEquals(full.get(1).getId(), page.get(0).getId());
+        assertEquals(full.get(2).getId(), page.get(1).getId());
+        assertEquals(1, service.getRecommendations(user, 3, 10).size());
+        assertTrue(service.getRecommendations(user, 50, 10).isEmpty());
+
+        // the deepest ranking, capped at MAX_RANKING_DEPTH, serves shallower deep pages
+        assertTrue(service.getRecommendations(user, Paging.MAX_RANKING_DEPTH - 10, 10).isEmpty());
+        long ranked = service.getMetrics().getHistogram(Stage.ENGINE).getCount();
+        assertTrue(service.getRecommendations(user, 600, 10).isEmpty());
+        assertEquals(ranked, service.getMetrics().getHistogram(Stage.ENGINE).getCount());
+
+        List<Item> streamed = service.streamRecommendations(user, 3).collect(Collectors.toList());
+        assertEquals(full.size(), streamed.size());
+        for (int i = 0; i < full.size(); i++) {
+            assertEquals(full.get(i).getId(), streamed.get(i).getId());
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> service.getRecommendations(user, -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> service.getRecommendations(user, 0, 0));
+    }
+
+    /**
+     * Test 9: A stream only fetches the pages it reaches
+     */
+    @Test
+    public void testStreamIsLazy() {
+        List<Integer> offsets = new ArrayList<>();
+        List<Item> firstThree = Paging.stream(offset -> {
+            offsets.add(offset);
+            List<Item> page = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                page.add(new Item(offset + i, "Movie " + (offset + i), "", 0, 5.0));
+            }
+            return page;
+        }, 2).limit(3).collect(Collectors.toList());
+
+        assertEquals(3, firstThree.size());
+        assertEquals(2, firstThree.get(2).getId());
+        assertEquals(List.of(0, 2), offsets);
+    }
+
+    /**
+     * Test 10: A page holds the same movies whatever was asked for before, even when
+     * the best matches are filtered out
+     */
+    @Test
+    public void testPagesIndependentOfHistory() throws IOException {
+        // 60 badly rated exact matches rank above 30 good partial ones
+        StringBuilder json = new StringBuilder("[\n");
+        for (int i = 1; i <= 90; i++) {
+            boolean good = i > 60;
+            json.append("  {\"id\": ").append(i).append(", \"title\": \"Movie ").append(i)
+                .append("\", \"genres\": ").append(good ? "[\"Horror\", \"Comedy\"]" : "[\"Horror\"]")
+                .append(", \"vote_average\": ").append(good ? "7.0" : "4.0")
+                .append(", \"vote_count\": 500.0, \"popularity\": 1.0}")
+                .append(i < 90 ? ",\n" : "\n");
+        }
+        Path catalogFile = tempDir.resolve("paging_movies.json");
+        Files.writeString(catalogFile, json.append("]").toString());
+        CatalogRecommendationService first = new CatalogRecommendationService(tempDir.toString(), catalogFile.toString());
+        CatalogRecommendationService deepFirst = new CatalogRecommendationService(tempDir.toString(), catalogFile.toString());
+        first.setLoggingEnabled(false);
+        deepFirst.setLoggingEnabled(false);
+        User user = new User("Finn", 33);
+        user.addGenre(Genre.HORROR);
+
+        deepFirst.getRecommendations(user, 100, 10);
+        for (int offset = 0; offset < 40; offset += 10) {
+            List<Item> page = first.getRecommendations(user, offset, 10);
+            List<Item> other = deepFirst.getRecommendations(user, offset, 10);
+            assertEquals(offset < 30 ? 10 : 0, page.size());
+            for (int i = 0; i < page.size(); i++) {
+                assertEquals(page.get(i).getId(), other.get(i).getId());
+            }
+        }
+        assertEquals(30, first.streamRecommendations(user, 10).count());
+        first.close();
+        deepFirst.close();
+    }
+
+    /**
+     * Test 11: Movies without a title are left out of the catalog instead of failing requests
+     */
+    @Test
+    public void testMoviesWithoutTitleSkipped() throws IOException {
+        Path catalogFile = tempDir.resolve("untitled_movies.json");
+        Files.writeString(catalogFile, "[\n"
+            + "  {\"id\": 1, \"genres\": [\"Horror\"], \"vote_average\": 9.0, \"vote_count\": 900.0},\n"
+            + "  {\"id\": 2, \"title\": null, \"genres\": [\"Horror\"], \"vote_average\": 9.0, \"vote_count\": 900.0},\n"
+            + "  {\"id\": 3, \"title\": \" \", \"genres\": [\"Horror\"], \"vote_average\": 9.0, \"vote_count\": 900.0},\n"
+            + "  {\"id\": 4, \"title\": \"Alien\", \"vote_average\": 7.5, \"vote_count\": 5000.0}\n"
+            + "]");
+        CatalogRecommendationService untitled = new CatalogRecommendationService(tempDir.toString(), catalogFile.toString());
+        untitled.setLoggingEnabled(false);
+        assertEquals(1, untitled.getCatalog().size());
+        assertEquals(4, untitled.getCatalog().getId(0));
+        assertEquals(0, untitled.getCatalog().getGenreMask(0));
+
+        User user = new User("Gil", 40);
+        user.addGenre(Genre.HORROR);
+        assertTrue(untitled.getRecommendations(user).isEmpty());
+        assertTrue(untitled.getRecommendations(user, 0, 10).isEmpty());
+        untitled.close();
+    }
+}
@@ -0,0 +1,81 @@
+package crossai.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import crossai.model.Genre;
+import crossai.model.Item;
+
+/**
+ * Unit tests for the results list model and its cell renderer.
+ * Runs without a display, the model and the text of a row need none.
+ */
+
+public class RecommendationListModelTest {
+
+    /**
+     * Test 1: Appending announces only the new rows, clearing removes them all
+     */
+    @Test
+    public void testAppendAnnouncesNewRows() {
+        RecommendationListModel model = new RecommendationListModel();
+        List<String> events = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed");
+            }
+        });
+
+        model.append(items(0, 10));
+        model.append(items(10, 5));
+        model.append(new ArrayList<>());
+        assertEquals(15, model.getSize());
+        assertEquals(12, model.getElementAt(12).getId());
+
+        model.clear();
+        model.clear();
+        assertEquals(0, model.getSize());
+        assertEquals(List.of("added 0-9", "added 10-14", "removed 0-14"), events);
+    }
+
+    /**
+     * Test 2: Row details leave out unknown genres and missing ratings
+     */
+    @Test
+    public void testRowDetails() {
+        Item rated = new Item(550, "Fight Club", "", Genre.DRAMA.mask(), 8.4);
+        String details = RecommendationCellRenderer.details(rated);
+        assertTrue(details.contains("ID: 550"));
+        assertTrue(details.contains("Drama"));
+        assertTrue(details.contains("8.4/10"));
+
+        Item bare = new Item(7, "Unknown Movie");
+        assertEquals("🎬 ID: 7", RecommendationCellRenderer.details(bare));
+    }
+
+    private static List<Item> items(int firstId, int count) {
+        List<Item> items = new ArrayList<>();
+        for (int id = firstId; id < firstId + count; id++) {
+            items.add(new Item(id, "Movie " + id, "", Genre.ACTION.mask(), 7.0));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,154 @@
+package crossai.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the Cache class.
+ * Tests basic operations, LRU eviction, weights and concurrent use.
+ */
+
+public class CacheTest {
+
+    /**
+     * Test 1: Put, get, contains and remove work as before
+     */
+    @Test
+    public void testBasicOperations() {
+        Cache<String> cache = new Cache<>();
+        cache.put("a", "alpha");
+
+        assertTrue(cache.contains("a"));
+        assertEquals("alpha", cache.get("a").orElseThrow());
+
+        cache.remove("a");
+        assertFalse(cache.contains("a"));
+        assertTrue(cache.get("a").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Test 2: Null values are rejected
+     */
+    @Test
+    public void testNullValue() {
+        Cache<String> cache = new Cache<>();
+        assertThrows(IllegalArgumentException.class, () -> cache.put("a", null));
+    }
+
+    /**
+     * Test 3: Overflow evicts only the least recently used entry
+     */
+    @Test
+    public void testLruEviction() {
+        Cache<String> cache = new Cache<>(3);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+
+        cache.get("a"); // "b" is now the least recently used
+        cache.put("d", "4");
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Test 4: Weighted cache is bounded by list sizes, not entry count
+     */
+    @Test
+    public void testWeightedEviction() {
+        Cache<List<Integer>> cache = new Cache<>(10, List::size);
+        cache.put("a", Arrays.asList(1, 2, 3, 4));
+        cache.put("b", Arrays.asList(1, 2, 3, 4));
+        cache.put("c", Arrays.asList(1, 2, 3, 4));
+
+        assertFalse(cache.contains("a"));
+        assertEquals(8, cache.getWeight());
+
+        // a value larger than the whole cache is not stored
+        cache.put("huge", new ArrayList<>(Arrays.asList(new Integer[11])));
+        assertFalse(cache.contains("huge"));
+        assertTrue(cache.contains("c"));
+    }
+
+    /**
+     * Test 5: Hit and miss counters
+     */
+    @Test
+    public void testStatistics() {
+        Cache<String> cache = new Cache<>();
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+        cache.get("missing");
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Test 6: Concurrent writers never push the cache over its capacity
+     */
+    @Test
+    public void testConcurrentAccessStaysBounded() throws InterruptedException {
+        Cache<Integer> cache = new Cache<>(2048);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 10_000;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    String key = "k" + (offset + i);
+                    cache.put(key, i);
+                    cache.get(key);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(cache.size() <= 2048);
+        assertEquals(cache.size(), cache.getWeight());
+    }
+
+    /**
+     * Test 7: A striped cache keeps an entry heavier than one segment's share
+     */
+    @Test
+    public void testEntryLargerThanSegmentIsKept() {
+        Cache<List<Integer>> cache = new Cache<>(10_000, List::size);
+        for (int i = 0; i < 100; i++) {
+            cache.put("small" + i, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        }
+        List<Integer> large = new ArrayList<>(Arrays.asList(new Integer[9_500]));
+        cache.put("large", large);
+
+        assertEquals(large, cache.get("large").orElse(null));
+        assertTrue(cache.getWeight() <= 10_000);
+        assertEquals(9_500 + 10 * (cache.size() - 1), cache.getWeight());
+    }
+}
@@ -0,0 +1,81 @@
+package crossai.util;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CircuitBreaker class.
+ * Tests opening after repeated failures, the half-open trial call and releases.
+ */
+
+public class CircuitBreakerTest {
+
+    /**
+     * Test 1: The circuit opens after the threshold of failures in a row and refuses calls
+     */
+    @Test
+    public void testOpensAfterThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess(); // a success resets the count
+        assertEquals(0, breaker.getConsecutiveFailures());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.allowRequest());
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getRejectedCount());
+        assertEquals(1, breaker.getOpenCount());
+    }
+
+    /**
+     * Test 2: After the open period one trial call goes through; its outcome decides the state
+     */
+    @Test
+    public void testHalfOpenTrial() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertFalse(breaker.allowRequest());
+
+        Thread.sleep(40);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest()); // only one trial at a time
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(40);
+        assertTrue(breaker.allowRequest());
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    /**
+     * Test 3: A released trial call lets the next caller try
+     */
+    @Test
+    public void testReleaseFreesTrial() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(10));
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        Thread.sleep(30);
+
+        assertTrue(breaker.allowRequest());
+        breaker.release();
+        assertTrue(breaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+}
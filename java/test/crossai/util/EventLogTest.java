@@ -0,0 +1,167 @@
+package crossai.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the EventLog class.
+ * Tests formatting, level filtering, sampling, dropping on a full buffer and waking the writer.
+ */
+
+public class EventLogTest {
+    private EventLog.Sink originalSink;
+    private EventLog.Level originalLevel;
+    private CapturingSink captured;
+
+    // keeps formatted copies, events themselves are reused by the log
+    private static class CapturingSink implements EventLog.Sink {
+        final List<String> lines = new ArrayList<>();
+        final List<Throwable> thrown = new ArrayList<>();
+        volatile CountDownLatch gate;
+
+        @Override
+        public synchronized void write(EventLog.Event event) {
+            CountDownLatch waitFor = gate;
+            if (waitFor != null) {
+                try {
+                    waitFor.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lines.add(event.getLevel() + " [" + event.getTag() + "] " + event.getMessage());
+            if (event.getThrown() != null) {
+                thrown.add(event.getThrown());
+            }
+        }
+
+        synchronized List<String> lines() {
+            return new ArrayList<>(lines);
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        originalSink = EventLog.getSink();
+        originalLevel = EventLog.getLevel();
+        EventLog.flush(Duration.ofSeconds(5));
+        captured = new CapturingSink();
+        EventLog.setSink(captured);
+        EventLog.setLevel(EventLog.Level.INFO);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        EventLog.flush(Duration.ofSeconds(5));
+        EventLog.setSampleRate(EventLog.Level.INFO, 1);
+        EventLog.setSink(originalSink);
+        EventLog.setLevel(originalLevel);
+    }
+
+    /**
+     * Test 1: Placeholders are filled with numbers and objects in order
+     */
+    @Test
+    public void testFormatting() {
+        IllegalStateException failure = new IllegalStateException("boom");
+        EventLog.info("CACHE", "Cache cleared");
+        EventLog.info("RECOMMENDATION", "Generated {} recommendations for user: {}", 10, "Ana");
+        EventLog.info("BATCH", "{} users, {} profiles, {} sent to engine", 8, 3, 2);
+        EventLog.warn("CACHE", "{} and {}", "a", null);
+        EventLog.error("BATCH", "Batch of {} profiles failed", 4, failure);
+        assertTrue(EventLog.flush(Duration.ofSeconds(5)));
+
+        List<String> lines = captured.lines();
+        assertEquals("INFO [CACHE] Cache cleared", lines.get(0));
+        assertEquals("INFO [RECOMMENDATION] Generated 10 recommendations for user: Ana", lines.get(1));
+        assertEquals("INFO [BATCH] 8 users, 3 profiles, 2 sent to engine", lines.get(2));
+        assertEquals("WARN [CACHE] a and null", lines.get(3));
+        assertEquals("ERROR [BATCH] Batch of 4 profiles failed", lines.get(4));
+        assertSame(failure, captured.thrown.get(0));
+    }
+
+    /**
+     * Test 2: Events below the level are not recorded
+     */
+    @Test
+    public void testLevelFiltering() {
+        EventLog.debug("FILE I/O", "hidden {}", "path");
+        assertTrue(!EventLog.isEnabled(EventLog.Level.DEBUG));
+
+        EventLog.setLevel(EventLog.Level.DEBUG);
+        EventLog.debug("FILE I/O", "shown {}", "path");
+        EventLog.setLevel(EventLog.Level.ERROR);
+        EventLog.warn("CACHE", "hidden");
+        assertTrue(EventLog.flush(Duration.ofSeconds(5)));
+
+        List<String> lines = captured.lines();
+        assertEquals(1, lines.size());
+        assertEquals("DEBUG [FILE I/O] shown path", lines.get(0));
+    }
+
+    /**
+     * Test 3: A sample rate keeps roughly one event in n
+     */
+    @Test
+    public void testSampling() {
+        EventLog.setSampleRate(EventLog.Level.INFO, 10);
+        for (int i = 0; i < 5000; i++) {
+            EventLog.info("CACHE", "hit {}", i);
+        }
+        EventLog.warn("CACHE", "never sampled");
+        assertTrue(EventLog.flush(Duration.ofSeconds(5)));
+
+        List<String> lines = captured.lines();
+        int kept = lines.size() - 1;
+        assertTrue(kept > 300 && kept < 700, "kept " + kept);
+        assertEquals("WARN [CACHE] never sampled", lines.get(lines.size() - 1));
+    }
+
+    /**
+     * Test 4: A stalled writer makes the log drop events instead of blocking callers
+     */
+    @Test
+    public void testDropsWhenFull() {
+        CountDownLatch gate = new CountDownLatch(1);
+        captured.gate = gate;
+        long droppedBefore = EventLog.getDroppedCount();
+
+        for (int i = 0; i < 10_000; i++) {
+            EventLog.info("LOAD", "event {}", i);
+        }
+        long dropped = EventLog.getDroppedCount() - droppedBefore;
+        gate.countDown();
+        captured.gate = null;
+        assertTrue(EventLog.flush(Duration.ofSeconds(5)));
+
+        assertTrue(dropped >= 10_000 - 8192 - 1, "dropped " + dropped);
+        List<String> lines = captured.lines();
+        assertEquals("INFO [LOAD] event 0", lines.get(0));
+        assertTrue(lines.get(lines.size() - 1).contains("events dropped"));
+    }
+
+    /**
+     * Test 5: An idle writer is woken by the next event, without a flush
+     */
+    @Test
+    public void testIdleWriterWokenByEvent() throws InterruptedException {
+        assertTrue(EventLog.flush(Duration.ofSeconds(5)));
+        Thread.sleep(50); // the writer parks on the empty buffer
+
+        EventLog.info("CACHE", "after idle");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (captured.lines().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("INFO [CACHE] after idle"), captured.lines());
+    }
+}
@@ -0,0 +1,197 @@
+package crossai.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import crossai.json.ExchangeCodec;
+import crossai.model.Genre;
+import crossai.model.Item;
+import crossai.model.User;
+import crossai.service.MockRecommendationService;
+
+/**
+ * Unit tests for the PersistentCache class.
+ * Tests persistence across reopen, versioning, expiry, compaction and torn writes.
+ */
+
+public class PersistentCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PersistentCache<List<Item>> open(Path file, String version, Duration ttl) {
+        return new PersistentCache<>(file, version, ttl, new ExchangeCodec().itemListAdapter());
+    }
+
+    private static List<Item> items(int... ids) {
+        Item[] result = new Item[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = new Item(ids[i], "Movie " + ids[i], "",
+                                 Arrays.asList(Genre.ACTION, Genre.DRAMA), 7.5);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Test 1: Stored results are read back after the cache is reopened
+     */
+    @Test
+    public void testPersistsAcrossReopen() throws IOException {
+        Path file = tempDir.resolve("results.log");
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            cache.put("a", items(1, 2));
+            cache.put("b", items(3));
+            cache.remove("b");
+        }
+
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            assertEquals(1, cache.size());
+            List<Item> restored = cache.get("a").orElseThrow();
+            assertEquals(2, restored.size());
+            assertEquals(2, restored.get(1).getId());
+            assertEquals(Genre.ACTION.mask() | Genre.DRAMA.mask(), restored.get(0).getGenreMask());
+            assertEquals(7.5, restored.get(0).getRating(), 1e-9);
+            assertTrue(cache.get("b").isEmpty());
+        }
+    }
+
+    /**
+     * Test 2: A log written for another version (catalog) is discarded
+     */
+    @Test
+    public void testVersionChangeDropsEntries() throws IOException {
+        Path file = tempDir.resolve("results.log");
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            cache.put("a", items(1));
+        }
+
+        try (PersistentCache<List<Item>> cache = open(file, "v2", Duration.ofHours(1))) {
+            assertTrue(cache.get("a").isEmpty());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    /**
+     * Test 3: Expired entries are not returned
+     */
+    @Test
+    public void testExpiredEntriesIgnored() throws Exception {
+        Path file = tempDir.resolve("results.log");
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofMillis(20))) {
+            cache.put("a", items(1));
+            Thread.sleep(50);
+            assertTrue(cache.get("a").isEmpty());
+        }
+    }
+
+    /**
+     * Test 4: Compaction removes replaced records and keeps the live ones
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        Path file = tempDir.resolve("results.log");
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            for (int round = 0; round < 50; round++) {
+                cache.put("a", items(round, round + 1));
+                cache.put("b", items(round));
+            }
+            long before = cache.getFileSize();
+            cache.compact();
+
+            assertTrue(cache.getFileSize() < before / 10);
+            assertEquals(50, cache.get("a").orElseThrow().get(1).getId());
+            assertEquals(49, cache.get("b").orElseThrow().get(0).getId());
+        }
+
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            assertEquals(2, cache.size());
+        }
+    }
+
+    /**
+     * Test 5: A record cut off by a crash is dropped, earlier records survive
+     */
+    @Test
+    public void testTornTailIgnored() throws IOException {
+        Path file = tempDir.resolve("results.log");
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            cache.put("a", items(1));
+        }
+        Files.write(file, "99999999999999\tb\t[{\"id\":12".getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.APPEND);
+
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            assertEquals(1, cache.size());
+            assertTrue(cache.get("b").isEmpty());
+            cache.put("c", items(3));
+        }
+
+        try (PersistentCache<List<Item>> cache = open(file, "v1", Duration.ofHours(1))) {
+            assertEquals(3, cache.get("c").orElseThrow().get(0).getId());
+        }
+    }
+
+    /**
+     * Test 6: A service answers from disk after a restart and counts the hit
+     */
+    @Test
+    public void testServiceUsesPersistentCache() throws IOException {
+        Path catalog = tempDir.resolve("catalog.json");
+        Files.write(catalog, "[]".getBytes(StandardCharsets.UTF_8));
+        User user = new User("Test", 30);
+        user.addGenre(Genre.ACTION);
+
+        MockRecommendationService first = new MockRecommendationService(tempDir.toString());
+        first.setLoggingEnabled(false);
+        first.enablePersistentCache(catalog, Duration.ofHours(1));
+        List<Item> computed = first.getRecommendations(user);
+        first.disablePersistentCache();
+
+        MockRecommendationService second = new MockRecommendationService(tempDir.toString());
+        second.setLoggingEnabled(false);
+        second.enablePersistentCache(catalog, Duration.ofHours(1));
+        List<Item> restored = second.getRecommendations(user);
+
+        assertEquals(computed.size(), restored.size());
+        assertEquals(computed.get(0).getId(), restored.get(0).getId());
+        assertEquals(1, second.getMetrics().getPersistentCacheHits());
+        second.disablePersistentCache();
+    }
+
+    /**
+     * Test 7: Invalidation keeps results on disk while the catalog is unchanged
+     */
+    @Test
+    public void testInvalidationKeepsUnchangedCatalog() throws IOException {
+        Path catalog = tempDir.resolve("catalog.json");
+        Files.write(catalog, "[]".getBytes(StandardCharsets.UTF_8));
+        User user = new User("Test", 30);
+        user.addGenre(Genre.DRAMA);
+
+        MockRecommendationService service = new MockRecommendationService(tempDir.toString());
+        service.setLoggingEnabled(false);
+        service.enablePersistentCache(catalog, Duration.ofHours(1));
+        service.getRecommendations(user);
+
+        service.invalidate("test");
+        service.getRecommendations(user);
+        assertEquals(1, service.getMetrics().getPersistentCacheHits());
+
+        Files.write(catalog, "[{}]".getBytes(StandardCharsets.UTF_8));
+        service.invalidate("test");
+        service.getRecommendations(user);
+        assertEquals(1, service.getMetrics().getPersistentCacheHits());
+        service.disablePersistentCache();
+    }
+}
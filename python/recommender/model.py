@@ -1,4 +1,5 @@
 import json
+import struct
 import sys
 import numpy as np
 from pathlib import Path
@@ -117,8 +118,41 @@ def save_output(recommendations, output_path):
     
     print("Output saved successfully!")
 
+def recommend_batch(recommender, requests):
+    """
+    Run the recommender for several genre profiles with one fitted model.
+    
+    Args:
+        recommender: fitted MovieRecommender
+        requests: list of {"preferredGenres": [...], "n": optional count}
+    
+    Returns:
+        List of {"ml_recommendations": [...], "count": n}, in request order
+    """
+    results = []
+    for request in requests:
+        recommendations = recommender.recommend(request.get('preferredGenres', []),
+                                                n=request.get('n', 10))
+        results.append({'ml_recommendations': recommendations,
+                        'count': len(recommendations)})
+    return results
+
+def save_batch_output(results, output_path):
+    """Save batch results to output JSON."""
+    print(f"Saving {len(results)} batch results to: {output_path}")
+    
+    with open(output_path, 'w', encoding='utf-8') as f:
+        json.dump({'results': results, 'count': len(results)}, f, indent=2, ensure_ascii=False)
+    
+    print("Output saved successfully!")
+
 def main():
-    """Main function for ML recommendation."""
+    """
+    Main function for ML recommendation.
+    
+    Usage: model.py [ml_input.json ml_output.json]
+    The C++ engine passes per-request paths; without arguments the shared/ files are used.
+    """
     try:
         # Paths
         script_dir = Path(__file__).parent
@@ -126,8 +160,12 @@ def main():
         shared_dir = script_dir.parent.parent / "shared"
         
         movies_path = data_dir / "processed_movies.json"
-        input_path = shared_dir / "ml_input.json"
-        output_path = shared_dir / "ml_output.json"
+        if len(sys.argv) >= 3:
+            input_path = Path(sys.argv[1])
+            output_path = Path(sys.argv[2])
+        else:
+            input_path = shared_dir / "ml_input.json"
+            output_path = shared_dir / "ml_output.json"
         
         # Check if input exists (called by C++)
         if not input_path.exists():
@@ -141,17 +179,24 @@ def main():
             # Load user preferences from C++
             user_data = load_input(input_path)
         
-        preferred_genres = user_data.get('preferredGenres', [])
-        print(f"User preferred genres: {preferred_genres}")
-        
         # Load movies
         movies = load_movies(movies_path)
         
         # Create recommender
         recommender = MovieRecommender(movies)
         
+        # Batch input: many genre profiles, one model fit
+        if 'requests' in user_data:
+            results = recommend_batch(recommender, user_data['requests'])
+            save_batch_output(results, output_path)
+            print(f"\n[SUCCESS] ML Recommendations generated for {len(results)} profiles!")
+            return 0
+        
+        preferred_genres = user_data.get('preferredGenres', [])
+        print(f"User preferred genres: {preferred_genres}")
+        
         # Get recommendations
-        recommendations = recommender.recommend(preferred_genres, n=10)
+        recommendations = recommender.recommend(preferred_genres, n=user_data.get('n', 10))
         
         # Save output
         save_output(recommendations, output_path)
@@ -169,5 +214,141 @@ def main():
         traceback.print_exc()
         return 1
 
+# Negotiated binary worker messages, see BinaryExchangeCodec on the Java side
+BINARY_FORMAT = 'binary/1'
+KIND_SINGLE = 1
+KIND_BATCH = 2
+KIND_ERROR = 3
+MAX_ERROR_BYTES = 1000
+
+def read_exact(stream, size):
+    """Read exactly size bytes, None at the end of the stream."""
+    data = b''
+    while len(data) < size:
+        chunk = stream.read(size - len(data))
+        if not chunk:
+            return None
+        data += chunk
+    return data
+
+def genres_of_mask(mask, genre_names):
+    """Genre names of a mask, bit i being genre_names[i]."""
+    return [name for bit, name in enumerate(genre_names) if mask & (1 << bit)]
+
+def encode_items(recommendations, genre_bits):
+    """u16 count, then per movie: i32 id, f64 rating, i32 genre mask, u16 + UTF-8 title."""
+    parts = [struct.pack('>H', len(recommendations))]
+    for movie in recommendations:
+        mask = 0
+        for genre in movie.get('genres', []):
+            mask |= genre_bits.get(genre, 0)
+        title = movie.get('title', '').encode('utf-8')[:0xFFFF]
+        parts.append(struct.pack('>idiH', int(movie['id']), float(movie.get('vote_average') or 0),
+                                 mask, len(title)))
+        parts.append(title)
+    return b''.join(parts)
+
+def respond_binary(recommender, body, genre_names, genre_bits):
+    """Response body for one binary request body."""
+    kind = body[0]
+    if kind == KIND_SINGLE:
+        count, mask = struct.unpack_from('>Hi', body, 1)
+        recommendations = recommender.recommend(genres_of_mask(mask, genre_names), n=count)
+        return bytes([KIND_SINGLE]) + encode_items(recommendations, genre_bits)
+    if kind == KIND_BATCH:
+        (profiles,) = struct.unpack_from('>H', body, 1)
+        masks = struct.unpack_from('>%di' % profiles, body, 3)
+        results = recommend_batch(recommender,
+                                  [{'preferredGenres': genres_of_mask(m, genre_names)} for m in masks])
+        parts = [struct.pack('>BH', KIND_BATCH, len(results))]
+        parts.extend(encode_items(result['ml_recommendations'], genre_bits) for result in results)
+        return b''.join(parts)
+    raise ValueError(f"Unknown request kind {kind}")
+
+def serve_binary(recommender, stream_in, stream_out, genre_names):
+    """
+    Worker loop after the client and the worker agreed on binary messages.
+    
+    Every message is a frame: u32 length of the rest, i64 request id, body (big-endian).
+    genre_names comes from the client's hello and gives the bit of each genre in a mask.
+    """
+    genre_bits = {name: 1 << bit for bit, name in enumerate(genre_names)}
+    while True:
+        header = read_exact(stream_in, 4)
+        if header is None:
+            return 0
+        (length,) = struct.unpack('>I', header)
+        frame = read_exact(stream_in, length)
+        if frame is None:
+            return 0
+        (request_id,) = struct.unpack_from('>q', frame, 0)
+        try:
+            body = respond_binary(recommender, frame[8:], genre_names, genre_bits)
+        except Exception as e:
+            message = str(e).encode('utf-8')[:MAX_ERROR_BYTES].decode('utf-8', 'ignore').encode('utf-8')
+            body = struct.pack('>BH', KIND_ERROR, len(message)) + message
+        stream_out.write(struct.pack('>Iq', len(body) + 8, request_id) + body)
+        stream_out.flush()
+
+def serve():
+    """
+    Long-lived worker mode (model.py --serve).
+    
+    Movies are loaded and TF-IDF is fitted once. Requests arrive on stdin and
+    responses go to stdout, one JSON object per line:
+      request:  {"id": 7, "preferredGenres": ["Action", "Drama"], "n": 10}
+      response: {"id": 7, "ml_recommendations": [...], "count": 10}
+              or {"id": 7, "error": "..."}
+    A batch request carries {"id": 8, "requests": [{"preferredGenres": [...]}, ...]}
+    and is answered with {"id": 8, "results": [{"ml_recommendations": [...]}, ...]}.
+    A {"hello": {"formats": [...], "genres": [...]}} line offering "binary/1" is
+    answered with {"format": "binary/1"}, and binary frames follow (see serve_binary).
+    Diagnostics are printed to stderr so stdout only carries protocol lines.
+    """
+    protocol_in = sys.stdin.buffer
+    protocol_out = sys.stdout.buffer
+    sys.stdout = sys.stderr
+    
+    script_dir = Path(__file__).parent
+    movies_path = script_dir.parent / "data" / "processed_movies.json"
+    recommender = MovieRecommender(load_movies(movies_path))
+    
+    def respond(message):
+        protocol_out.write((json.dumps(message, ensure_ascii=False) + "\n").encode('utf-8'))
+        protocol_out.flush()
+    
+    respond({'ready': True})
+    
+    for raw_line in iter(protocol_in.readline, b''):
+        line = raw_line.decode('utf-8').strip()
+        if not line:
+            continue
+        request_id = None
+        try:
+            request = json.loads(line)
+            if 'hello' in request:
+                hello = request['hello']
+                if BINARY_FORMAT in hello.get('formats', []):
+                    respond({'format': BINARY_FORMAT})
+                    return serve_binary(recommender, protocol_in, protocol_out, hello.get('genres', []))
+                respond({'format': 'json'})
+                continue
+            request_id = request.get('id')
+            if 'requests' in request:
+                respond({'id': request_id,
+                         'results': recommend_batch(recommender, request['requests'])})
+                continue
+            recommendations = recommender.recommend(request.get('preferredGenres', []),
+                                                    n=request.get('n', 10))
+            respond({'id': request_id,
+                     'ml_recommendations': recommendations,
+                     'count': len(recommendations)})
+        except Exception as e:
+            respond({'id': request_id, 'error': str(e)})
+    
+    return 0
+
 if __name__ == "__main__":
+    if len(sys.argv) >= 2 and sys.argv[1] == "--serve":
+        sys.exit(serve())
     sys.exit(main())
\ No newline at end of file